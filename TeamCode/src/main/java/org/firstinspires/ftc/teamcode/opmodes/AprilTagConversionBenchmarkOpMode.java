@@ -0,0 +1,53 @@
+package org.firstinspires.ftc.teamcode.opmodes;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.vision.DetectionConversionBenchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Runs {@link DetectionConversionBenchmark} on the hub and writes the results to {@link #RESULTS_PATH}.
+ * Needs no camera. Press START and wait for the result table; the run takes about 40 seconds.
+ */
+@TeleOp(name = "AprilTag Conversion Benchmark", group = "Vision")
+public class AprilTagConversionBenchmarkOpMode extends LinearOpMode {
+
+    private static final String RESULTS_PATH = "/sdcard/FIRST/vision-conversion-benchmark.json";
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry.addLine("Conversion benchmark ready. Press start to run.");
+        telemetry.update();
+
+        waitForStart();
+        telemetry.addLine("Benchmark running...");
+        telemetry.update();
+
+        DetectionConversionBenchmark benchmark = new DetectionConversionBenchmark(
+                new DetectionConversionBenchmark.Config());
+        benchmark.runAll();
+
+        String saved;
+        try {
+            benchmark.writeJson(new File(RESULTS_PATH));
+            saved = "Saved to " + RESULTS_PATH;
+        } catch (IOException e) {
+            saved = "Cannot save results: " + e.getMessage();
+        }
+
+        telemetry.addLine("Benchmark complete");
+        for (DetectionConversionBenchmark.Result result : benchmark.getResults()) {
+            telemetry.addLine(String.format(Locale.US, "%-19s | %2d tags | %9.0f ns",
+                    result.benchmark, result.tags, result.nanosPerOp));
+        }
+        telemetry.addLine(saved);
+        telemetry.update();
+        while (opModeIsActive()) {
+            sleep(50);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.firstinspires.ftc.teamcode.opmodes;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.vision.AprilTagVisionManager;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor.TagFamily;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures pipeline frame rate for 1, 2 and 3 tag families, comparing one processor per family against
+ * a single combined processor (serial and parallel). Point the camera at a representative scene, press
+ * START and wait for the result table; each run takes roughly {@code WARMUP_S + SAMPLE_S} seconds.
+ */
+@TeleOp(name = "AprilTag Family Benchmark", group = "Vision")
+public class AprilTagFamilyBenchmarkOpMode extends LinearOpMode {
+
+    private static final TagFamily[] FAMILIES = {TagFamily.TAG_36h11, TagFamily.TAG_16h5, TagFamily.TAG_25h9};
+    private static final double STREAM_TIMEOUT_S = 5.0;
+    private static final double WARMUP_S = 2.0;
+    private static final double SAMPLE_S = 5.0;
+
+    private enum Mode {
+        PER_FAMILY("per-family", false, false),
+        COMBINED_SERIAL("combined", true, false),
+        COMBINED_PARALLEL("combined+par", true, true);
+
+        final String label;
+        final boolean combineFamilies;
+        final boolean parallelFamilies;
+
+        Mode(String label, boolean combineFamilies, boolean parallelFamilies) {
+            this.label = label;
+            this.combineFamilies = combineFamilies;
+            this.parallelFamilies = parallelFamilies;
+        }
+    }
+
+    private AprilTagVisionManager visionManager;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        telemetry.addLine("Family benchmark ready. Press start to run.");
+        telemetry.update();
+
+        waitForStart();
+
+        List<String> results = new ArrayList<>();
+        for (int familyCount = 1; familyCount <= FAMILIES.length && opModeIsActive(); familyCount++) {
+            for (Mode mode : Mode.values()) {
+                if (!opModeIsActive()) {
+                    break;
+                }
+                if (familyCount == 1 && mode != Mode.PER_FAMILY) {
+                    // All modes build the same single-detector pipeline for one family.
+                    continue;
+                }
+                double fps = measure(mode, familyCount);
+                results.add(String.format(Locale.US, "%d fam | %-13s | %5.1f fps", familyCount, mode.label, fps));
+                showResults(results, false);
+            }
+        }
+
+        showResults(results, true);
+        while (opModeIsActive()) {
+            sleep(50);
+        }
+    }
+
+    private double measure(Mode mode, int familyCount) {
+        AprilTagVisionManager.Config config = new AprilTagVisionManager.Config();
+        config.useWebcam = true;
+        config.cameraName = "Webcam 1";
+        config.tagFamilies = EnumSet.noneOf(TagFamily.class);
+        for (int i = 0; i < familyCount; i++) {
+            config.tagFamilies.add(FAMILIES[i]);
+        }
+        config.combineFamilies = mode.combineFamilies;
+        config.parallelFamilies = mode.parallelFamilies;
+
+        visionManager = new AprilTagVisionManager(hardwareMap, telemetry, config);
+        try {
+            ElapsedTime timer = new ElapsedTime();
+            while (opModeIsActive() && !visionManager.isCameraStreaming() && timer.seconds() < STREAM_TIMEOUT_S) {
+                sleep(20);
+            }
+            timer.reset();
+            while (opModeIsActive() && timer.seconds() < WARMUP_S) {
+                sleep(20);
+            }
+
+            double fpsSum = 0;
+            int samples = 0;
+            timer.reset();
+            while (opModeIsActive() && timer.seconds() < SAMPLE_S) {
+                fpsSum += visionManager.getFps();
+                samples++;
+                sleep(100);
+            }
+            return samples > 0 ? fpsSum / samples : 0;
+        } finally {
+            visionManager.shutdown();
+            visionManager = null;
+        }
+    }
+
+    private void showResults(List<String> results, boolean finished) {
+        telemetry.addLine(finished ? "Benchmark complete" : "Benchmark running...");
+        for (String line : results) {
+            telemetry.addLine(line);
+        }
+        telemetry.update();
+    }
+
+    @Override
+    public void onStop() {
+        if (visionManager != null) {
+            visionManager.shutdown();
+        }
+    }
+}
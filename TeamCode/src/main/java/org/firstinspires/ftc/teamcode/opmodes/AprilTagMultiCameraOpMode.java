@@ -0,0 +1,74 @@
+package org.firstinspires.ftc.teamcode.opmodes;
+
+import android.util.Size;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.vision.AprilTagVisionManager;
+import org.firstinspires.ftc.teamcode.vision.FrameBudget;
+import org.firstinspires.ftc.teamcode.vision.MergedDetectionView;
+import org.firstinspires.ftc.teamcode.vision.MultiCameraVisionManager;
+
+import java.util.Locale;
+
+/**
+ * Runs a front and a rear webcam side by side and shows the merged, de-duplicated detections with the
+ * camera each one came from. Each camera is capped at 15 processed frames per second and half a core.
+ */
+@TeleOp(name = "AprilTag Multi-Camera Test", group = "Vision")
+public class AprilTagMultiCameraOpMode extends LinearOpMode {
+
+    private MultiCameraVisionManager visionManager;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        MultiCameraVisionManager.Config config = new MultiCameraVisionManager.Config();
+        config.cameras.add(cameraConfig("Front Webcam"));
+        config.cameras.add(cameraConfig("Rear Webcam"));
+
+        visionManager = new MultiCameraVisionManager(hardwareMap, telemetry, config);
+
+        telemetry.addLine("Multi-camera vision ready. Press start when ready.");
+        telemetry.update();
+
+        waitForStart();
+
+        long lastFrame = visionManager.getFrameSequence();
+        while (opModeIsActive() && !isStopRequested()) {
+            lastFrame = visionManager.awaitNextFrame(lastFrame, 100);
+            MergedDetectionView merged = visionManager.getMergedView();
+            for (int c = 0; c < visionManager.getCameraCount(); c++) {
+                AprilTagVisionManager camera = visionManager.getCamera(c);
+                FrameBudget budget = camera.getFrameBudget();
+                telemetry.addLine(String.format(Locale.US, "%s: %.1f fps, %d skipped",
+                        camera.getCameraName(), camera.getFps(), budget != null ? budget.getSkippedFrames() : 0));
+            }
+            telemetry.addLine(String.format(Locale.US, "Tags: %d (%d stale cameras)",
+                    merged.size(), merged.getStaleCameraCount()));
+            for (int i = 0; i < merged.size(); i++) {
+                telemetry.addLine(String.format(Locale.US, "id=%d %s range=%.2f bearing=%.1f seen by %d, %d ms old",
+                        merged.getId(i), merged.getCameraName(i), merged.getRange(i), merged.getBearing(i),
+                        merged.getSightings(i), merged.getCaptureOffsetNanos(i) / 1_000_000L));
+            }
+            telemetry.update();
+        }
+    }
+
+    private static AprilTagVisionManager.Config cameraConfig(String cameraName) {
+        AprilTagVisionManager.Config camera = new AprilTagVisionManager.Config();
+        camera.cameraName = cameraName;
+        camera.cameraResolution = new Size(640, 480);
+        camera.frameBudget = new FrameBudget.Config();
+        camera.frameBudget.maxFps = 15;
+        camera.frameBudget.maxCpuFraction = 0.5;
+        return camera;
+    }
+
+    @Override
+    public void onStop() {
+        if (visionManager != null) {
+            visionManager.shutdown();
+        }
+    }
+}
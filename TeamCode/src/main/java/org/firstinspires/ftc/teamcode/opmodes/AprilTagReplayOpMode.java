@@ -0,0 +1,106 @@
+package org.firstinspires.ftc.teamcode.opmodes;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.vision.AprilTagVisionProcessor;
+import org.firstinspires.ftc.teamcode.vision.FrameReplayer;
+import org.firstinspires.ftc.teamcode.vision.FrameSource;
+import org.firstinspires.ftc.teamcode.vision.ImageDirectoryFrameSource;
+import org.firstinspires.ftc.teamcode.vision.PipelineMetrics;
+import org.firstinspires.ftc.teamcode.vision.RawFrameFileSource;
+import org.firstinspires.ftc.teamcode.vision.RingFileReader;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor.TagFamily;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+
+/**
+ * Runs the AprilTag pipeline against recorded footage instead of the camera and reports throughput and
+ * latency. {@link #REPLAY_PATH} may be a directory of images, a raw frame file or a {@code .ring} recording. In STEP mode each press
+ * of gamepad1 A advances one frame; the other modes play the recording once.
+ */
+@TeleOp(name = "AprilTag Replay", group = "Vision")
+public class AprilTagReplayOpMode extends LinearOpMode {
+
+    private static final String REPLAY_PATH = "/sdcard/FIRST/replay";
+    private static final FrameReplayer.Mode MODE = FrameReplayer.Mode.AS_FAST_AS_POSSIBLE;
+    /** Spacing assumed for image files whose names carry no capture time. */
+    private static final long IMAGE_FRAME_INTERVAL_NANOS = 33_333_333L;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        AprilTagVisionProcessor.Config processorConfig = new AprilTagVisionProcessor.Config();
+        processorConfig.tagFamilies = EnumSet.of(TagFamily.TAG_36h11);
+        processorConfig.metrics = new PipelineMetrics();
+
+        FrameReplayer.Config replayConfig = new FrameReplayer.Config();
+        replayConfig.mode = MODE;
+
+        FrameSource source;
+        try {
+            File path = new File(REPLAY_PATH);
+            if (path.isDirectory()) {
+                source = new ImageDirectoryFrameSource(path, IMAGE_FRAME_INTERVAL_NANOS);
+            } else if (path.getName().endsWith(".ring")) {
+                source = new RingFileReader(path);
+            } else {
+                source = new RawFrameFileSource(path);
+            }
+        } catch (IOException e) {
+            telemetry.addLine("Cannot open replay: " + e.getMessage());
+            telemetry.update();
+            waitForStart();
+            return;
+        }
+
+        AprilTagVisionProcessor processor = AprilTagVisionProcessor.fromConfig(processorConfig);
+        FrameReplayer replayer = new FrameReplayer(source, processor, replayConfig);
+        try {
+            telemetry.addLine("Replay of " + source.getWidth() + "x" + source.getHeight()
+                    + " frames ready (" + MODE + "). Press start.");
+            telemetry.update();
+            waitForStart();
+
+            boolean more = true;
+            boolean wasPressed = false;
+            while (opModeIsActive() && more) {
+                if (MODE == FrameReplayer.Mode.STEP) {
+                    boolean pressed = gamepad1.a;
+                    if (pressed && !wasPressed) {
+                        more = replayer.step();
+                    }
+                    wasPressed = pressed;
+                    showReport(replayer, "Press A for the next frame");
+                    sleep(20);
+                } else {
+                    more = replayer.step();
+                    if (replayer.getReport().getDeliveredFrames() % 30 == 0) {
+                        showReport(replayer, "Replaying...");
+                    }
+                }
+            }
+
+            showReport(replayer, "Replay complete");
+            while (opModeIsActive()) {
+                sleep(50);
+            }
+        } catch (IOException e) {
+            telemetry.addLine("Replay failed: " + e.getMessage());
+            telemetry.update();
+        } finally {
+            replayer.close();
+            processor.close();
+            source.close();
+        }
+    }
+
+    private void showReport(FrameReplayer replayer, String status) {
+        telemetry.addLine(status);
+        for (String line : replayer.getReport().toLines()) {
+            telemetry.addLine(line);
+        }
+        telemetry.update();
+    }
+}
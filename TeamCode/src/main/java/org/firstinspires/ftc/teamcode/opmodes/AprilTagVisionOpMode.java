@@ -12,7 +12,8 @@ import java.util.EnumSet;
 
 /**
  * Demonstrates how to initialize {@link AprilTagVisionManager} from a LinearOpMode and stream telemetry
- * back to the driver station in real time.
+ * back to the driver station in real time. The loop wakes as soon as a new frame has been processed
+ * instead of polling on a fixed sleep.
  */
 @TeleOp(name = "AprilTag Vision Test", group = "Vision")
 public class AprilTagVisionOpMode extends LinearOpMode {
@@ -42,9 +43,10 @@ public class AprilTagVisionOpMode extends LinearOpMode {
 
         waitForStart();
 
+        long lastFrame = visionManager.getFrameSequence();
         while (opModeIsActive() && !isStopRequested()) {
+            lastFrame = visionManager.awaitNextFrame(lastFrame, 100);
             visionManager.pushTelemetry();
-            sleep(20);
         }
     }
 
@@ -6,6 +6,7 @@ import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
 import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
+import org.opencv.core.Point;
 
 /**
  * Immutable container that exposes the most relevant information for a detected AprilTag.
@@ -16,6 +17,7 @@ public final class AprilTagDetectionData {
     private final String tagFamily;
     private final double centerX;
     private final double centerY;
+    private final double[] corners;
     private final double range;
     private final double bearing;
     private final double elevation;
@@ -27,11 +29,14 @@ public final class AprilTagDetectionData {
     private final double roll;
     private final DistanceUnit distanceUnit;
     private final AngleUnit angleUnit;
+    private final long captureTimeNanos;
+    private final long frameSequence;
 
     private AprilTagDetectionData(int id,
                                   String tagFamily,
                                   double centerX,
                                   double centerY,
+                                  double[] corners,
                                   double range,
                                   double bearing,
                                   double elevation,
@@ -42,11 +47,14 @@ public final class AprilTagDetectionData {
                                   double pitch,
                                   double roll,
                                   DistanceUnit distanceUnit,
-                                  AngleUnit angleUnit) {
+                                  AngleUnit angleUnit,
+                                  long captureTimeNanos,
+                                  long frameSequence) {
         this.id = id;
         this.tagFamily = tagFamily;
         this.centerX = centerX;
         this.centerY = centerY;
+        this.corners = corners;
         this.range = range;
         this.bearing = bearing;
         this.elevation = elevation;
@@ -58,19 +66,51 @@ public final class AprilTagDetectionData {
         this.roll = roll;
         this.distanceUnit = distanceUnit;
         this.angleUnit = angleUnit;
+        this.captureTimeNanos = captureTimeNanos;
+        this.frameSequence = frameSequence;
     }
 
     @NonNull
     public static AprilTagDetectionData from(@NonNull AprilTagDetection detection,
                                              @NonNull DistanceUnit distanceUnit,
                                              @NonNull AngleUnit angleUnit) {
+        return from(detection,
+                detection.metadata != null ? detection.metadata.tagFamily : "unknown",
+                distanceUnit,
+                angleUnit);
+    }
+
+    /**
+     * Converts a detection whose family is known from the detector that produced it, which also covers
+     * tags that are missing from the SDK tag library and therefore carry no metadata.
+     */
+    @NonNull
+    public static AprilTagDetectionData from(@NonNull AprilTagDetection detection,
+                                             @NonNull String tagFamily,
+                                             @NonNull DistanceUnit distanceUnit,
+                                             @NonNull AngleUnit angleUnit) {
+        return from(detection, tagFamily, distanceUnit, angleUnit, detection.frameAcquisitionNanoTime, -1);
+    }
+
+    /**
+     * @param captureTimeNanos {@link System#nanoTime()} at which the frame was captured
+     * @param frameSequence    sequence number of the processed frame, or -1 if unknown
+     */
+    @NonNull
+    public static AprilTagDetectionData from(@NonNull AprilTagDetection detection,
+                                             @NonNull String tagFamily,
+                                             @NonNull DistanceUnit distanceUnit,
+                                             @NonNull AngleUnit angleUnit,
+                                             long captureTimeNanos,
+                                             long frameSequence) {
         AprilTagPoseFtc pose = detection.ftcPose;
 
         return new AprilTagDetectionData(
                 detection.id,
-                detection.metadata != null ? detection.metadata.tagFamily : "unknown",
+                tagFamily,
                 detection.center.x,
                 detection.center.y,
+                flattenCorners(detection.corners),
                 pose != null ? distanceUnit.fromMeters(pose.range) : Double.NaN,
                 pose != null ? angleUnit.fromRadians(pose.bearing) : Double.NaN,
                 pose != null ? angleUnit.fromRadians(pose.elevation) : Double.NaN,
@@ -81,10 +121,90 @@ public final class AprilTagDetectionData {
                 pose != null ? angleUnit.fromRadians(pose.pitch) : Double.NaN,
                 pose != null ? angleUnit.fromRadians(pose.roll) : Double.NaN,
                 distanceUnit,
-                angleUnit
+                angleUnit,
+                captureTimeNanos,
+                frameSequence
+        );
+    }
+
+    /**
+     * Copies one slot of a snapshot, converting the raw meters/radians into the requested units.
+     */
+    @NonNull
+    static AprilTagDetectionData fromSnapshot(@NonNull DetectionSnapshot snapshot,
+                                              int slot,
+                                              @NonNull DistanceUnit distanceUnit,
+                                              @NonNull AngleUnit angleUnit) {
+        double[] corners = new double[8];
+        System.arraycopy(snapshot.corners, slot * 8, corners, 0, 8);
+        return new AprilTagDetectionData(
+                snapshot.getId(slot),
+                snapshot.getTagFamily(slot),
+                snapshot.getCenterX(slot),
+                snapshot.getCenterY(slot),
+                corners,
+                distanceUnit.fromMeters(snapshot.getRangeMeters(slot)),
+                angleUnit.fromRadians(snapshot.getBearingRadians(slot)),
+                angleUnit.fromRadians(snapshot.getElevationRadians(slot)),
+                distanceUnit.fromMeters(snapshot.getXMeters(slot)),
+                distanceUnit.fromMeters(snapshot.getYMeters(slot)),
+                distanceUnit.fromMeters(snapshot.getZMeters(slot)),
+                angleUnit.fromRadians(snapshot.getYawRadians(slot)),
+                angleUnit.fromRadians(snapshot.getPitchRadians(slot)),
+                angleUnit.fromRadians(snapshot.getRollRadians(slot)),
+                distanceUnit,
+                angleUnit,
+                snapshot.getCaptureTimeNanos(),
+                snapshot.getFrameSequence()
         );
     }
 
+    /**
+     * Copies one detection of a view. The view's values are already converted, so {@code distanceUnit} and
+     * {@code angleUnit} must be the units the view was created with; they are only recorded.
+     */
+    @NonNull
+    public static AprilTagDetectionData fromView(@NonNull DetectionView view,
+                                                 int index,
+                                                 @NonNull DistanceUnit distanceUnit,
+                                                 @NonNull AngleUnit angleUnit) {
+        double[] corners = new double[8];
+        for (int i = 0; i < 4; i++) {
+            corners[i * 2] = view.getCornerX(index, i);
+            corners[i * 2 + 1] = view.getCornerY(index, i);
+        }
+        return new AprilTagDetectionData(
+                view.getId(index),
+                view.getTagFamily(index),
+                view.getCenterX(index),
+                view.getCenterY(index),
+                corners,
+                view.getRange(index),
+                view.getBearing(index),
+                view.getElevation(index),
+                view.getTranslationX(index),
+                view.getTranslationY(index),
+                view.getTranslationZ(index),
+                view.getYaw(index),
+                view.getPitch(index),
+                view.getRoll(index),
+                distanceUnit,
+                angleUnit,
+                view.getCaptureTimeNanos(index),
+                view.getFrameSequence(index)
+        );
+    }
+
+    private static double[] flattenCorners(Point[] points) {
+        double[] flat = new double[8];
+        for (int i = 0; i < 4; i++) {
+            boolean present = points != null && i < points.length && points[i] != null;
+            flat[i * 2] = present ? points[i].x : Double.NaN;
+            flat[i * 2 + 1] = present ? points[i].y : Double.NaN;
+        }
+        return flat;
+    }
+
     public int getId() {
         return id;
     }
@@ -102,6 +222,20 @@ public final class AprilTagDetectionData {
         return centerY;
     }
 
+    /**
+     * @param index corner index 0-3, in the same order as {@code AprilTagDetection.corners}
+     */
+    public double getCornerX(int index) {
+        return corners[index * 2];
+    }
+
+    /**
+     * @param index corner index 0-3, in the same order as {@code AprilTagDetection.corners}
+     */
+    public double getCornerY(int index) {
+        return corners[index * 2 + 1];
+    }
+
     public double getRange() {
         return range;
     }
@@ -138,6 +272,20 @@ public final class AprilTagDetectionData {
         return roll;
     }
 
+    /**
+     * @return {@link System#nanoTime()} at which the frame containing this detection was captured
+     */
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    /**
+     * @return sequence number of the processed frame this detection came from, or -1 if unknown
+     */
+    public long getFrameSequence() {
+        return frameSequence;
+    }
+
     @NonNull
     public DistanceUnit getDistanceUnit() {
         return distanceUnit;
@@ -5,37 +5,55 @@ import android.util.Size;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.qualcomm.robotcore.util.ElapsedTime;
-
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
-import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.ExposureControl;
-import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.GainControl;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.vision.VisionPortal;
 import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
 import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor.TagFamily;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 /**
  * High level manager that owns camera setup, {@link VisionPortal} lifecycle and exposes AprilTag detections.
  */
-public class AprilTagVisionManager {
+public class AprilTagVisionManager implements DecimationTarget {
 
     public static class Config {
         public boolean useWebcam = true;
         public String cameraName = "Webcam 1";
         public boolean enableLiveView = false;
+        /**
+         * Live view container for this camera's portal, e.g. one of {@code VisionPortal.makeMultiPortalView};
+         * 0 uses the default container.
+         */
+        public int liveViewContainerId = 0;
         public EnumSet<TagFamily> tagFamilies = EnumSet.of(TagFamily.TAG_36h11);
+        /**
+         * Detect every family in one processor instead of registering one processor per family. Off by
+         * default so existing configurations keep one processor per family.
+         */
+        public boolean combineFamilies = false;
+        /** Run the per-family detectors of a combined processor concurrently on extra threads. */
+        public boolean parallelFamilies = false;
+        /**
+         * Threads that solve ROI-frame tag poses in parallel with the vision thread; 0 keeps them serial.
+         * Capped at the hub's spare cores; only used with {@link #roiTracking} or lens distortion.
+         */
+        public int poseSolverThreads = 0;
+        /**
+         * Publish frames whose poses are solved outside the SDK with corners first and poses as a follow-up
+         * under the same frame sequence; see {@link AprilTagVisionProcessor.Config#publishCornersFirst}.
+         */
+        public boolean publishCornersFirst = false;
         public boolean drawAxes = false;
         public boolean drawCube = false;
         public boolean drawTagOutline = true;
@@ -47,24 +65,166 @@ public class AprilTagVisionManager {
         public boolean useManualExposure = false;
         public int manualExposureMs = 20;
         public int manualGain = 15;
+        /**
+         * Sweeps exposure and gain from construction until the best-detecting setting is found when non-null;
+         * {@link #manualExposureMs} and {@link #manualGain} are the fallback if no tag is seen.
+         */
+        public @Nullable ExposureAutoTuner.Config exposureTuning = null;
         public @Nullable AprilTagVisionProcessor.LensIntrinsics lensIntrinsics = null;
+        /**
+         * Shared contrast enhancement and downscaling run once per frame ahead of every tag processor when
+         * non-null and either is enabled; see {@link FramePreprocessor}.
+         */
+        public @Nullable FramePreprocessor.Config preprocessing = null;
+        /** Closed-loop decimation driven by frame time and tag range; {@code null} keeps it manual. */
+        public @Nullable DecimationController.Config adaptiveDecimation = null;
+        /** Search only around predicted tag locations between full-frame searches; {@code null} disables. */
+        public @Nullable RoiTracker.Config roiTracking = null;
+        /** Which delivered frames are processed: every one, every n-th, or only fresh ones; see {@link FramePolicy}. */
+        public FramePolicy.Config framePolicy = new FramePolicy.Config();
+        /** Caps this camera's processed frame rate and CPU share when non-null; see {@link FrameBudget}. */
+        public @Nullable FrameBudget.Config frameBudget = null;
+        /** Drops tags by ID allow/deny list, decision margin and range in every processor when non-null. */
+        public @Nullable TagFilter.Config tagFilter = null;
+        /** Per-family filters overriding {@link #tagFilter}, e.g. a stricter margin for {@code TAG_16h5}. */
+        public @Nullable Map<TagFamily, TagFilter.Config> familyTagFilters = null;
+        /** Record per-stage latency histograms for every processed frame. */
+        public boolean collectLatencyMetrics = true;
+        /**
+         * Live-view overlay rendering: {@code HEADLESS} for matches, {@code THROTTLED} or {@code FULL} for
+         * practice. Can be changed at runtime through {@link #setOverlayMode}; see {@link OverlayPolicy}.
+         */
+        public OverlayPolicy.Config overlay = new OverlayPolicy.Config();
+        /** Append the latency histogram page to {@link #pushTelemetry()} output. */
+        public boolean showLatencyTelemetry = false;
+        /** Rate limit and layout of {@link #pushTelemetry()}. */
+        public TelemetryRenderer.Config telemetry = new TelemetryRenderer.Config();
+        /**
+         * Keeps the last frames and detections in a memory-mapped ring file when non-null. With
+         * {@link #combineFamilies} disabled only the first family's processor records.
+         */
+        public @Nullable RingFileRecorder.Config recording = null;
+        /** Solves one robot field pose per frame from all layout tags when non-null. */
+        public @Nullable FieldLocalizer.Config localization = null;
+        /**
+         * Filters the field pose and predicts it between frames for {@link #getPredictedPose(long)}; needs
+         * {@link #localization}. {@code null} disables prediction.
+         */
+        public @Nullable ConstantVelocityPosePredictor.Config prediction = null;
+        /** Custom predictor; overrides {@link #prediction} when set. */
+        public @Nullable PosePredictor posePredictor = null;
+        /** Detections kept per processor and frame; snapshots are preallocated for this many. */
+        public int maxDetections = 32;
+        /**
+         * Watches frame rate, processing time and frame age, degrades in tiers under load and restarts a
+         * stalled camera when non-null; see {@link VisionWatchdog}.
+         */
+        public @Nullable VisionWatchdog.Config watchdog = null;
     }
 
+    private final HardwareMap hardwareMap;
     private final Telemetry telemetry;
     private final Config config;
     private final List<AprilTagVisionProcessor> processors = new ArrayList<>();
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final TelemetryRenderer telemetryRenderer;
+    private final FramePolicy framePolicy;
+    private final OverlayPolicy overlayPolicy;
+    private final @Nullable FrameBudget frameBudget;
+
+    /** Guards replacing the portal, which the watchdog may do from its own thread. */
+    private final Object lifecycleLock = new Object();
+    private volatile VisionPortal visionPortal;
+    private volatile @Nullable Size activeResolution;
+    private volatile boolean streamingRequested = true;
+    private volatile long portalRestarts;
+    private volatile @Nullable CameraControlScheduler cameraControl;
+    private @Nullable VisionWatchdog watchdog;
+    private volatile @Nullable ExposureAutoTuner exposureTuner;
+    private @Nullable FramePreprocessor preprocessor;
+    /** Op mode side of the detections; the view, the ID index and the localizer read its snapshots. */
+    private DetectionReader reader;
+    private @Nullable FieldLocalizer localizer;
+    /** Intrinsics the localizer was built with; a portal restart at another resolution replaces them. */
+    private @Nullable AprilTagVisionProcessor.LensIntrinsics localizerIntrinsics;
+    private final FieldLocalizer.RobotPose robotPose = new FieldLocalizer.RobotPose();
+    private final @Nullable PosePredictor posePredictor;
+    private final PredictedPose predictedPose = new PredictedPose();
+    private long predictedSequence = -1;
 
-    private VisionPortal visionPortal;
+    private final Object listenerLock = new Object();
+    private final FrameSignal frames = new FrameSignal();
+    /** The processor the portal runs last; its publish completes a frame. */
+    private volatile @Nullable AprilTagVisionProcessor frameCompletingProcessor;
+    private volatile DetectionListener[] listeners = new DetectionListener[0];
+    private volatile @Nullable RuntimeException lastListenerError;
+    /** Runs on the vision thread after each completed frame; used by {@link MultiCameraVisionManager}. */
+    private volatile @Nullable Runnable frameCompletedCallback;
 
     public AprilTagVisionManager(@NonNull HardwareMap hardwareMap,
                                  @NonNull Telemetry telemetry,
                                  @NonNull Config config) {
+        this.hardwareMap = hardwareMap;
         this.telemetry = telemetry;
         this.config = config;
-        initialise(hardwareMap);
+        this.telemetryRenderer = new TelemetryRenderer(config.telemetry);
+        this.framePolicy = new FramePolicy(config.framePolicy);
+        this.overlayPolicy = new OverlayPolicy(config.overlay);
+        this.frameBudget = config.frameBudget != null ? new FrameBudget(config.frameBudget) : null;
+        if (config.localization == null) {
+            this.posePredictor = null;
+        } else if (config.posePredictor != null) {
+            this.posePredictor = config.posePredictor;
+        } else {
+            this.posePredictor = config.prediction != null
+                    ? new ConstantVelocityPosePredictor(config.prediction)
+                    : null;
+        }
+        initialise();
+        if (config.watchdog != null) {
+            watchdog = new VisionWatchdog(this, config.watchdog);
+            watchdog.start();
+        }
     }
 
-    private void initialise(HardwareMap hardwareMap) {
+    private void initialise() {
+        if (config.preprocessing != null && FramePreprocessor.hasWork(config.preprocessing)) {
+            preprocessor = new FramePreprocessor(config.preprocessing,
+                    config.collectLatencyMetrics ? metrics : null, framePolicy, frameBudget);
+        }
+        if (config.combineFamilies) {
+            addProcessor(config.tagFamilies);
+        } else {
+            for (TagFamily tagFamily : config.tagFamilies) {
+                addProcessor(EnumSet.of(tagFamily));
+            }
+        }
+
+        frameCompletingProcessor = processors.isEmpty() ? null : processors.get(processors.size() - 1);
+        SnapshotSource[] sources = new SnapshotSource[processors.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = processors.get(i)::acquireSnapshot;
+        }
+        String[] familyNames = new String[config.tagFamilies.size()];
+        int familyIndex = 0;
+        for (TagFamily tagFamily : config.tagFamilies) {
+            familyNames[familyIndex++] = tagFamily.name();
+        }
+        reader = new DetectionReader(sources, familyNames, new SdkPoseUnits(config.distanceUnit, config.angleUnit));
+        activeResolution = config.cameraResolution;
+        visionPortal = buildPortal(config.cameraResolution);
+        cameraControl = new CameraControlScheduler(visionPortal);
+        if (config.exposureTuning != null) {
+            startExposureTuning(config.exposureTuning);
+        } else if (config.useManualExposure) {
+            configureManualExposure(config.manualExposureMs, config.manualGain);
+        }
+    }
+
+    /**
+     * Opens the camera with the existing processors; they are initialised again for the new frame size.
+     */
+    private VisionPortal buildPortal(@Nullable Size resolution) {
         VisionPortal.Builder portalBuilder = new VisionPortal.Builder();
         if (config.useWebcam) {
             WebcamName webcamName = hardwareMap.get(WebcamName.class, config.cameraName);
@@ -72,113 +232,669 @@ public class AprilTagVisionManager {
         } else {
             portalBuilder.setCamera(VisionPortal.CameraType.BUILTIN_PHONE);
         }
-        if (config.cameraResolution != null) {
-            portalBuilder.setCameraResolution(config.cameraResolution);
+        if (resolution != null) {
+            portalBuilder.setCameraResolution(resolution);
         }
         portalBuilder.setAutoStopLiveView(!config.enableLiveView);
+        if (config.liveViewContainerId != 0) {
+            portalBuilder.setLiveViewContainerId(config.liveViewContainerId);
+        }
+        if (preprocessor != null) {
+            // Registered first: the portal runs processors in registration order on the same frame.
+            portalBuilder.addProcessor(preprocessor);
+        }
+        for (AprilTagVisionProcessor processor : processors) {
+            portalBuilder.addProcessor(processor);
+        }
+        return portalBuilder.build();
+    }
 
-        for (TagFamily tagFamily : config.tagFamilies) {
-            AprilTagVisionProcessor.Config processorConfig = new AprilTagVisionProcessor.Config();
-            processorConfig.tagFamily = tagFamily;
-            processorConfig.drawAxes = config.drawAxes;
-            processorConfig.drawCube = config.drawCube;
-            processorConfig.drawTagId = config.drawTagId;
-            processorConfig.drawTagOutline = config.drawTagOutline;
-            processorConfig.tagSizeMeters = config.tagSizeMeters;
-            processorConfig.distanceUnit = config.distanceUnit;
-            processorConfig.angleUnit = config.angleUnit;
-            processorConfig.lensIntrinsics = config.lensIntrinsics;
-
-            AprilTagVisionProcessor wrappedProcessor = AprilTagVisionProcessor.fromConfig(processorConfig);
-            processors.add(wrappedProcessor);
-            portalBuilder.addProcessor(wrappedProcessor);
-        }
-
-        visionPortal = portalBuilder.build();
-        if (config.useManualExposure) {
-            configureManualExposure(config.manualExposureMs, config.manualGain);
+    /**
+     * Closes the camera and opens it again with the same processors, e.g. when it stopped delivering frames.
+     * Detections, listeners, counters and degradation settings carry over, and the exposure in effect is
+     * requested again. An exposure sweep in progress is abandoned. May be called from any thread.
+     *
+     * @param resolution resolution to reopen with, or {@code null} for {@link Config#cameraResolution}
+     * @return {@code false} after {@link #shutdown()}
+     */
+    public boolean restartPortal(@Nullable Size resolution) {
+        synchronized (lifecycleLock) {
+            VisionPortal previous = visionPortal;
+            if (previous == null) {
+                return false;
+            }
+            int exposureMs = -1;
+            int gain = -1;
+            CameraControlScheduler previousControl = cameraControl;
+            if (previousControl != null) {
+                exposureMs = previousControl.getAppliedExposureMs();
+                gain = previousControl.getAppliedGain();
+                previousControl.close();
+            }
+            ExposureAutoTuner tuner = exposureTuner;
+            if (tuner != null && !tuner.isDone()) {
+                removeDetectionListener(tuner);
+            }
+            try {
+                previous.close();
+            } catch (RuntimeException e) {
+                // A stalled camera may not close cleanly; open a fresh one regardless.
+            }
+
+            Size target = resolution != null ? resolution : config.cameraResolution;
+            activeResolution = target;
+            VisionPortal portal = buildPortal(target);
+            visionPortal = portal;
+            CameraControlScheduler control = new CameraControlScheduler(portal);
+            cameraControl = control;
+            if (exposureMs >= 0) {
+                control.requestExposure(exposureMs, gain);
+            } else if (config.useManualExposure) {
+                control.requestExposure(config.manualExposureMs, config.manualGain);
+            }
+            portalRestarts++;
+            return true;
+        }
+    }
+
+    /**
+     * @return how often the portal was restarted, by {@link #restartPortal} or the watchdog
+     */
+    public long getPortalRestartCount() {
+        return portalRestarts;
+    }
+
+    /**
+     * @return the resolution the camera was last opened with, or {@code null} for the SDK default
+     */
+    @Nullable
+    public Size getActiveResolution() {
+        return activeResolution;
+    }
+
+    private void addProcessor(EnumSet<TagFamily> tagFamilies) {
+        AprilTagVisionProcessor.Config processorConfig = new AprilTagVisionProcessor.Config();
+        processorConfig.tagFamilies = EnumSet.copyOf(tagFamilies);
+        processorConfig.parallelFamilies = config.parallelFamilies;
+        processorConfig.poseSolverThreads = config.poseSolverThreads;
+        processorConfig.publishCornersFirst = config.publishCornersFirst;
+        processorConfig.drawAxes = config.drawAxes;
+        processorConfig.drawCube = config.drawCube;
+        processorConfig.drawTagId = config.drawTagId;
+        processorConfig.drawTagOutline = config.drawTagOutline;
+        processorConfig.tagSizeMeters = config.tagSizeMeters;
+        processorConfig.distanceUnit = config.distanceUnit;
+        processorConfig.angleUnit = config.angleUnit;
+        processorConfig.lensIntrinsics = config.lensIntrinsics;
+        processorConfig.adaptiveDecimation = config.adaptiveDecimation;
+        processorConfig.roiTracking = config.roiTracking;
+        processorConfig.framePolicy = framePolicy;
+        processorConfig.overlayPolicy = overlayPolicy;
+        processorConfig.frameBudget = frameBudget;
+        processorConfig.tagFilter = config.tagFilter;
+        processorConfig.familyTagFilters = config.familyTagFilters;
+        processorConfig.metrics = config.collectLatencyMetrics ? metrics : null;
+        processorConfig.maxDetections = config.maxDetections;
+        processorConfig.recording = processors.isEmpty() ? config.recording : null;
+
+        AprilTagVisionProcessor wrappedProcessor = AprilTagVisionProcessor.fromConfig(processorConfig);
+        wrappedProcessor.setPublishListener(this::onProcessorPublished);
+        wrappedProcessor.setPreprocessor(preprocessor);
+        processors.add(wrappedProcessor);
+    }
+
+    /**
+     * Runs on the vision thread. Listeners see every processor's snapshot; the frame sequence only advances
+     * once the last processor (which the portal runs last) has published, so waiters wake once per frame.
+     */
+    private void onProcessorPublished(@NonNull DetectionSnapshot snapshot) {
+        DetectionListener[] current = listeners;
+        for (DetectionListener listener : current) {
+            try {
+                listener.onDetections(snapshot);
+            } catch (RuntimeException e) {
+                // A faulty consumer must not stall detection; keep the error for the op mode to inspect.
+                lastListenerError = e;
+            }
+        }
+
+        AprilTagVisionProcessor completing = frameCompletingProcessor;
+        if (completing != null && completing.getFrameSequence() == snapshot.getFrameSequence()) {
+            frames.signal();
+            Runnable callback = frameCompletedCallback;
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+
+    void setFrameCompletedCallback(@Nullable Runnable callback) {
+        frameCompletedCallback = callback;
+    }
+
+    public void addDetectionListener(@NonNull DetectionListener listener) {
+        synchronized (listenerLock) {
+            DetectionListener[] current = listeners;
+            DetectionListener[] updated = new DetectionListener[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
+    }
+
+    public void removeDetectionListener(@NonNull DetectionListener listener) {
+        synchronized (listenerLock) {
+            DetectionListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    DetectionListener[] updated = new DetectionListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    listeners = updated;
+                    return;
+                }
+            }
         }
     }
 
+    /**
+     * @return the most recent exception thrown by a detection listener, or {@code null}
+     */
+    @Nullable
+    public RuntimeException getLastListenerError() {
+        return lastListenerError;
+    }
+
+    /**
+     * @return the number of frames fully processed so far; increases by one per frame
+     */
+    public long getFrameSequence() {
+        return frames.get();
+    }
+
+    /**
+     * Blocks until a frame newer than {@code lastSequence} has been published or the timeout expires.
+     *
+     * @return the current frame sequence; equal to {@code lastSequence} if the wait timed out
+     */
+    public long awaitNextFrame(long lastSequence, long timeoutMs) throws InterruptedException {
+        return frames.await(lastSequence, timeoutMs);
+    }
+
     public void startStreaming() {
-        if (visionPortal != null) {
-            visionPortal.resumeStreaming();
+        streamingRequested = true;
+        VisionPortal portal = visionPortal;
+        if (portal != null) {
+            portal.resumeStreaming();
         }
     }
 
+    /**
+     * Pauses the camera. The watchdog does not treat a paused camera as stalled.
+     */
     public void stopStreaming() {
-        if (visionPortal != null) {
-            visionPortal.stopStreaming();
+        streamingRequested = false;
+        VisionPortal portal = visionPortal;
+        if (portal != null) {
+            portal.stopStreaming();
         }
     }
 
+    boolean isStreamingRequested() {
+        return streamingRequested;
+    }
+
     public void shutdown() {
-        if (visionPortal != null) {
-            visionPortal.close();
-            visionPortal = null;
+        if (watchdog != null) {
+            watchdog.close();
+        }
+        synchronized (lifecycleLock) {
+            if (cameraControl != null) {
+                cameraControl.close();
+                cameraControl = null;
+            }
+            if (visionPortal != null) {
+                visionPortal.close();
+                visionPortal = null;
+            }
+        }
+        frameCompletingProcessor = null;
+        for (AprilTagVisionProcessor processor : processors) {
+            processor.setPublishListener(null);
+            processor.close();
         }
         processors.clear();
+        if (preprocessor != null) {
+            preprocessor.release();
+            preprocessor = null;
+        }
+        if (localizer != null) {
+            localizer.release();
+            localizer = null;
+        }
+        // Wake anyone still waiting so they can notice the shutdown.
+        frames.wakeAll();
+    }
+
+    /**
+     * Rebinds and returns the manager's reusable view over the newest snapshot of every processor. Does not
+     * allocate. The view (and any index into it) is only valid until the next call, and all calls must come
+     * from the same thread, normally the op mode thread.
+     *
+     * <p>Once a view has been handed out, tag lookups, {@link #getRobotPose()}, {@link #pushTelemetry()} and
+     * {@link #getLatestDetections()} read the frame that view holds, so a loop sees one consistent frame;
+     * call this once per loop to move on. Until then they fetch the newest frame themselves.</p>
+     */
+    @NonNull
+    public DetectionView getDetectionView() {
+        return reader.acquireView();
+    }
+
+    /**
+     * Solves the robot's field pose from the newest frame, once per frame; repeated calls within a frame
+     * return the cached result. Call from the op mode thread; the returned object is owned by the manager
+     * and updated in place.
+     *
+     * @return the pose (check {@link FieldLocalizer.RobotPose#valid}), or {@code null} when
+     *         {@link Config#localization} is not set or no lens intrinsics are known yet
+     */
+    @Nullable
+    public FieldLocalizer.RobotPose getRobotPose() {
+        if (config.localization == null || processors.isEmpty()) {
+            return null;
+        }
+        AprilTagVisionProcessor.LensIntrinsics intrinsics = processors.get(0).getLensIntrinsics();
+        if (localizer != null && intrinsics != localizerIntrinsics) {
+            // The camera was reopened at another resolution.
+            localizer.release();
+            localizer = null;
+        }
+        if (localizer == null) {
+            if (intrinsics == null) {
+                return null;
+            }
+            localizer = new FieldLocalizer(config.localization, intrinsics, processors.get(0).getUndistortion());
+            localizerIntrinsics = intrinsics;
+            robotPose.frameSequence = -1;
+        }
+        DetectionView view = reader.currentView();
+        if (view.getFrameSequence() != robotPose.frameSequence) {
+            localizer.solve(view, robotPose);
+        }
+        return robotPose;
+    }
+
+    /**
+     * Feeds each new field pose into the predictor and predicts the robot pose at {@code nanoTime}, so a
+     * control loop can run faster than the camera and still see where the robot is now instead of where it
+     * was when the frame was captured. Measurement noise is scaled by the solve's reprojection error in
+     * pixels, floored at one. Does not allocate; the returned object is owned by the manager and updated in
+     * place. Call from the op mode thread.
+     *
+     * @param nanoTime {@link System#nanoTime()} to predict for, normally now
+     * @return the prediction (check {@link PredictedPose#valid}), or {@code null} when prediction is not
+     *         configured or no lens intrinsics are known yet
+     */
+    @Nullable
+    public PredictedPose getPredictedPose(long nanoTime) {
+        if (posePredictor == null) {
+            return null;
+        }
+        FieldLocalizer.RobotPose pose = getRobotPose();
+        if (pose == null) {
+            return null;
+        }
+        if (pose.valid && pose.frameSequence != predictedSequence) {
+            predictedSequence = pose.frameSequence;
+            posePredictor.addMeasurement(pose.captureTimeNanos, pose.x, pose.y, pose.heading,
+                    Math.max(1.0, pose.rmsErrorPx));
+        }
+        posePredictor.predictAt(nanoTime, predictedPose);
+        return predictedPose;
+    }
+
+    /**
+     * Feeds robot-frame odometry (meters and radians since the previous call) to the pose predictor; ignored
+     * when prediction is not configured. Call from the op mode thread, ideally every loop.
+     */
+    public void addOdometry(long nanoTime, double forward, double left, double turn) {
+        if (posePredictor != null) {
+            posePredictor.addOdometry(nanoTime, forward, left, turn);
+        }
+    }
+
+    /**
+     * @return the latest sighting of tag {@code id} in any configured family, or {@code null} if it has never
+     * been seen. The entry is owned by the manager and updated in place; see {@link TagIdIndex}. Reads the
+     * same frame as the current {@link #getDetectionView()}. Its {@code getRange()}, {@code getYaw()} and
+     * similar accessors use {@link Config#distanceUnit} and {@link Config#angleUnit}, like the view; the
+     * {@code *Meters} and {@code *Radians} accessors do not convert.
+     */
+    @Nullable
+    public TagIdIndex.Entry getDetection(int id) {
+        return reader.lookup().get(id);
     }
 
+    @Nullable
+    public TagIdIndex.Entry getDetection(@NonNull TagFamily tagFamily, int id) {
+        return reader.lookup().get(tagFamily.name(), id);
+    }
+
+    /**
+     * @return whether tag {@code id} was captured within the last {@code maxAgeMs} milliseconds
+     */
+    public boolean hasFreshDetection(int id, long maxAgeMs) {
+        return reader.lookup().hasFresh(id, System.nanoTime(), maxAgeMs);
+    }
+
+    /**
+     * Looks up several tags at once without allocating.
+     *
+     * @param out receives, at the same position as in {@code ids}, each fresh entry or {@code null}
+     * @return the number of tags found with a capture younger than {@code maxAgeMs}
+     */
+    public int getFreshDetections(@NonNull int[] ids, long maxAgeMs, @NonNull TagIdIndex.Entry[] out) {
+        return reader.lookup().getFresh(ids, System.nanoTime(), maxAgeMs, out);
+    }
+
+    /**
+     * Copies the latest detections into immutable value objects. Allocates on every call; prefer
+     * {@link #getDetectionView()} in loops.
+     */
     public List<AprilTagDetectionData> getLatestDetections() {
         if (processors.isEmpty()) {
             return Collections.emptyList();
         }
-        List<AprilTagDetectionData> combined = new ArrayList<>();
-        for (AprilTagVisionProcessor processor : processors) {
-            combined.addAll(processor.getLatestDetections());
+        DetectionView view = reader.currentView();
+        List<AprilTagDetectionData> combined = new ArrayList<>(view.size());
+        for (int i = 0; i < view.size(); i++) {
+            combined.add(AprilTagDetectionData.fromView(view, i, config.distanceUnit, config.angleUnit));
         }
         return Collections.unmodifiableList(combined);
     }
 
-    public void pushTelemetry() {
-        List<AprilTagDetectionData> detections = getLatestDetections();
-        telemetry.addData("Detections", detections.size());
-        int idx = 0;
-        for (AprilTagDetectionData detection : detections) {
-            telemetry.addLine(String.format(Locale.US,
-                    "#%d | id=%d fam=%s range=%.2f %s yaw=%.1f %s pitch=%.1f %s roll=%.1f %s",
-                    ++idx,
-                    detection.getId(),
-                    detection.getTagFamily(),
-                    detection.getRange(), config.distanceUnit,
-                    detection.getYaw(), config.angleUnit,
-                    detection.getPitch(), config.angleUnit,
-                    detection.getRoll(), config.angleUnit));
+    /**
+     * Renders the current detections, plus the latency page when enabled, and updates telemetry. Calls are
+     * cheap to make every loop: nothing is rendered until a new frame has been published and the
+     * configured telemetry rate allows it.
+     *
+     * @return whether telemetry was updated
+     */
+    public boolean pushTelemetry() {
+        return telemetryRenderer.render(telemetry, reader.currentView(),
+                config.showLatencyTelemetry ? metrics : null, System.nanoTime());
+    }
+
+    /**
+     * Adds one line per pipeline stage with p50/p95/p99/max in milliseconds. Does not call
+     * {@code telemetry.update()}.
+     */
+    public void addLatencyTelemetry() {
+        telemetryRenderer.addLatency(telemetry, metrics);
+    }
+
+    /**
+     * @return the active ring file recorder, or {@code null} when recording is disabled, the camera has not
+     *         started yet or the file could not be opened (see {@link #getRecordingError()})
+     */
+    @Nullable
+    public RingFileRecorder getRecorder() {
+        return processors.isEmpty() ? null : processors.get(0).getRecorder();
+    }
+
+    @Nullable
+    public IOException getRecordingError() {
+        return processors.isEmpty() ? null : processors.get(0).getRecordingError();
+    }
+
+    /**
+     * @return per-stage latency histograms, shared by all processors of this manager; they stay empty when
+     * {@link Config#collectLatencyMetrics} is disabled. In per-family mode every processor records its own
+     * pass over each frame.
+     */
+    @NonNull
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Switches overlay rendering without rebuilding the portal; takes effect from the next displayed frame.
+     */
+    public void setOverlayMode(@NonNull OverlayPolicy.Mode mode) {
+        overlayPolicy.setMode(mode);
+    }
+
+    /**
+     * Sets the overlay rate used in {@link OverlayPolicy.Mode#THROTTLED} mode.
+     */
+    public void setOverlayMaxFps(double maxFps) {
+        overlayPolicy.setMaxFps(maxFps);
+    }
+
+    @NonNull
+    public OverlayPolicy getOverlayPolicy() {
+        return overlayPolicy;
+    }
+
+    /**
+     * Stops or resumes the live view itself. Unlike {@link OverlayPolicy.Mode#HEADLESS}, which only skips
+     * the overlays, a stopped live view also saves rendering the camera image to the screen.
+     */
+    public void setLiveViewEnabled(boolean enabled) {
+        VisionPortal portal = visionPortal;
+        if (portal == null) {
+            return;
         }
-        telemetry.update();
+        if (enabled) {
+            portal.resumeLiveView();
+        } else {
+            portal.stopLiveView();
+        }
+    }
+
+    /**
+     * @return the shared preprocessing stage, or {@code null} when {@link Config#preprocessing} is not set or
+     *         enables neither contrast enhancement nor downscaling
+     */
+    @Nullable
+    public FramePreprocessor getPreprocessor() {
+        return preprocessor;
+    }
+
+    /**
+     * @return detections dropped by the tag filters across all processors
+     */
+    public long getRejectedDetections() {
+        long rejected = 0;
+        for (AprilTagVisionProcessor processor : processors) {
+            rejected += processor.getRejectedDetections();
+        }
+        return rejected;
+    }
+
+    /**
+     * @return the frame policy shared by this camera's processors
+     */
+    @NonNull
+    public FramePolicy getFramePolicy() {
+        return framePolicy;
+    }
+
+    /**
+     * @return frames the camera delivered to the processors, whether or not they were processed
+     */
+    public long getDeliveredFrameCount() {
+        return framePolicy.getDeliveredFrames();
+    }
+
+    /**
+     * @return frames that were processed, after the frame policy and the frame budget
+     */
+    public long getProcessedFrameCount() {
+        return framePolicy.getProcessedFrames() - getBudgetSkippedFrames();
+    }
+
+    /**
+     * @return delivered frames that were not processed, by the frame policy or the frame budget
+     */
+    public long getSkippedFrameCount() {
+        return framePolicy.getSkippedFrames() + getBudgetSkippedFrames();
+    }
+
+    /**
+     * @return estimated camera frames dropped before they reached the pipeline because it was busy
+     */
+    public long getDroppedFrameCount() {
+        return framePolicy.getDroppedFrames();
+    }
+
+    private long getBudgetSkippedFrames() {
+        return frameBudget != null ? frameBudget.getSkippedFrames() : 0;
+    }
+
+    /**
+     * @return the frame budget shared by this camera's processors, or {@code null} when none is configured
+     */
+    @Nullable
+    public FrameBudget getFrameBudget() {
+        return frameBudget;
+    }
+
+    @NonNull
+    public String getCameraName() {
+        return config.useWebcam ? config.cameraName : "Built-in camera";
     }
 
     public boolean isCameraStreaming() {
-        return visionPortal != null && visionPortal.getCameraState() == VisionPortal.CameraState.STREAMING;
+        VisionPortal portal = visionPortal;
+        return portal != null && portal.getCameraState() == VisionPortal.CameraState.STREAMING;
+    }
+
+    /**
+     * @return the portal's measured frame rate, or 0 when the portal has been shut down
+     */
+    public float getFps() {
+        VisionPortal portal = visionPortal;
+        return portal != null ? portal.getFps() : 0f;
+    }
+
+    /**
+     * @return the averaged processing time of one frame across all tag processors in milliseconds, or
+     *         {@link Double#NaN} before the first frame
+     */
+    public double getAverageFrameMs() {
+        double total = Double.NaN;
+        for (AprilTagVisionProcessor processor : processors) {
+            double average = processor.getAverageFrameMs();
+            if (!Double.isNaN(average)) {
+                total = Double.isNaN(total) ? average : total + average;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Detects only the first configured family while {@code enabled}, in combined or per-family processors
+     * alike. Frames keep completing, so waiters and listeners are unaffected.
+     */
+    public void setPrimaryFamilyOnly(boolean enabled) {
+        for (int i = 0; i < processors.size(); i++) {
+            processors.get(i).setFamilyLimit(enabled ? (i == 0 ? 1 : 0) : Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @return the health watchdog, or {@code null} when {@link Config#watchdog} is not set
+     */
+    @Nullable
+    public VisionWatchdog getWatchdog() {
+        return watchdog;
     }
 
+    boolean hasConfiguredIntrinsics() {
+        return config.lensIntrinsics != null;
+    }
+
+    int getFamilyCount() {
+        return config.tagFamilies.size();
+    }
+
+    @Override
     public void setDecimation(float decimation) {
         for (AprilTagVisionProcessor processor : processors) {
             processor.setDecimation(decimation);
         }
     }
 
-    public void configureManualExposure(int exposureMs, int gain) {
-        if (visionPortal == null) {
-            return;
+    /**
+     * @return the decimation currently applied by the first processor, or {@link Float#NaN} while the SDK
+     *         default is in effect
+     */
+    @Override
+    public float getDecimation() {
+        return processors.isEmpty() ? Float.NaN : processors.get(0).getDecimation();
+    }
+
+    @Override
+    public void clearDecimation() {
+        for (AprilTagVisionProcessor processor : processors) {
+            processor.clearDecimation();
         }
-        ExposureControl exposureControl = visionPortal.getCameraControl(ExposureControl.class);
-        GainControl gainControl = visionPortal.getCameraControl(GainControl.class);
-        if (exposureControl == null || gainControl == null) {
-            return;
+    }
+
+    @Override
+    public void setAdaptiveDecimationPaused(boolean paused) {
+        for (AprilTagVisionProcessor processor : processors) {
+            processor.setAdaptiveDecimationPaused(paused);
         }
+    }
 
-        boolean changedMode = exposureControl.getMode() != ExposureControl.Mode.Manual;
-        if (changedMode) {
-            exposureControl.setMode(ExposureControl.Mode.Manual);
-            // Give the hardware a brief moment to settle in manual mode before configuring values.
-            ElapsedTime timer = new ElapsedTime();
-            while (timer.milliseconds() < 50 && !Thread.currentThread().isInterrupted()) {
-                Thread.yield();
-            }
+    /**
+     * Queues a manual exposure and gain setting and returns immediately; it is applied on a background
+     * thread once the camera is streaming (see {@link CameraControlScheduler}).
+     *
+     * @return the request number, or -1 after shutdown
+     */
+    public long configureManualExposure(int exposureMs, int gain) {
+        return cameraControl != null ? cameraControl.requestExposure(exposureMs, gain) : -1;
+    }
+
+    /**
+     * Starts an exposure and gain sweep that keeps the best-detecting setting, replacing any sweep in
+     * progress. Point the camera at tags while it runs, typically during init, and poll
+     * {@link ExposureAutoTuner#isDone()}.
+     *
+     * @return the running tuner, or {@code null} after shutdown
+     */
+    @Nullable
+    public ExposureAutoTuner startExposureTuning(@NonNull ExposureAutoTuner.Config tuningConfig) {
+        if (cameraControl == null) {
+            return null;
         }
-        exposureControl.setExposure(exposureMs, TimeUnit.MILLISECONDS);
-        gainControl.setGain(gain);
+        ExposureAutoTuner previous = exposureTuner;
+        if (previous != null) {
+            removeDetectionListener(previous);
+        }
+        ExposureAutoTuner tuner = new ExposureAutoTuner(tuningConfig, cameraControl, framePolicy,
+                config.manualExposureMs, config.manualGain);
+        exposureTuner = tuner;
+        addDetectionListener(tuner);
+        return tuner;
+    }
+
+    /**
+     * @return the most recently started exposure sweep, or {@code null}
+     */
+    @Nullable
+    public ExposureAutoTuner getExposureTuner() {
+        return exposureTuner;
+    }
+
+    /**
+     * @return the scheduler applying camera control requests, or {@code null} after shutdown
+     */
+    @Nullable
+    public CameraControlScheduler getCameraControl() {
+        return cameraControl;
     }
 }
@@ -1,6 +1,8 @@
 package org.firstinspires.ftc.teamcode.vision;
 
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -10,67 +12,344 @@ import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.vision.VisionProcessor;
 import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagGameDatabase;
+import org.firstinspires.ftc.vision.apriltag.AprilTagLibrary;
+import org.firstinspires.ftc.vision.apriltag.AprilTagMetadata;
+import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
 import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
 import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.opencv.core.Rect;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Thin wrapper around {@link AprilTagProcessor} that caches detection data in a telemetry-friendly format
  * while still implementing FTC's {@link VisionProcessor} interface.
+ *
+ * <p>A single instance can detect several tag families. The portal then dispatches each frame to one
+ * processor, the per-family detectors share that frame (optionally running concurrently on the hub's
+ * spare cores) and the results are merged into one family-tagged snapshot on the vision thread.</p>
+ *
+ * <p>Detections are written into preallocated {@link DetectionSnapshot}s and handed to readers through a
+ * {@link DetectionSnapshotBuffer}, so steady-state frames allocate nothing on this side of the SDK. The
+ * delegates report poses in meters and radians; conversion to the configured units happens when a
+ * {@link DetectionView} or {@link AprilTagDetectionData} is read.</p>
+ *
+ * <p>With {@link Config#roiTracking} enabled, frames between periodic full searches are only searched
+ * inside regions predicted from the previous detections. Because the SDK delegate assumes the full-frame
+ * principal point, tags found in a crop are shifted back to full-frame coordinates and re-solved with
+ * {@link TagPoseSolver}; this needs lens intrinsics from {@link Config#lensIntrinsics} or the camera
+ * calibration, and falls back to full-frame search without them.</p>
+ *
+ * <p>When the lens intrinsics carry distortion terms, an {@link UndistortionTable} is built in {@code init}
+ * and only the detected corners are undistorted. The SDK delegates are then rebuilt with an empty tag
+ * library, which stops them solving poses on the distorted corners, and every pose is solved once from the
+ * undistorted corners; tag sizes come from the current game's tag library, else
+ * {@link Config#tagSizeMeters}. The SDK draws axes and cubes from its own poses, so those overlays are
+ * not drawn in this mode.</p>
+ *
+ * <p>Behind a {@link FramePreprocessor} with a downscale, the delegates detect on the smaller frame. Corners
+ * are scaled back to full-frame pixels, and poses are solved from them the same way, with the delegates'
+ * own pose solving turned off; without lens intrinsics such frames report corners only.</p>
+ *
+ * <p>{@link Config#tagFilter} drops unwanted tags as soon as the delegate hands them over: rejected tags
+ * never take a snapshot slot, are never re-solved or tracked in ROI mode and never reach readers.</p>
  */
 public class AprilTagVisionProcessor implements VisionProcessor {
 
+    /**
+     * Pinhole intrinsics in pixels plus optional Brown-Conrady distortion as produced by an OpenCV
+     * calibration: radial {@code k1, k2, k3} and tangential {@code p1, p2}.
+     */
     public static class LensIntrinsics {
         public final double fx;
         public final double fy;
         public final double cx;
         public final double cy;
+        public final double k1;
+        public final double k2;
+        public final double p1;
+        public final double p2;
+        public final double k3;
 
         public LensIntrinsics(double fx, double fy, double cx, double cy) {
+            this(fx, fy, cx, cy, 0, 0, 0, 0, 0);
+        }
+
+        public LensIntrinsics(double fx, double fy, double cx, double cy,
+                              double k1, double k2, double p1, double p2, double k3) {
             this.fx = fx;
             this.fy = fy;
             this.cx = cx;
             this.cy = cy;
+            this.k1 = k1;
+            this.k2 = k2;
+            this.p1 = p1;
+            this.p2 = p2;
+            this.k3 = k3;
+        }
+
+        public boolean hasDistortion() {
+            return k1 != 0 || k2 != 0 || p1 != 0 || p2 != 0 || k3 != 0;
         }
     }
 
     public static class Config {
         public AprilTagProcessor.TagFamily tagFamily = AprilTagProcessor.TagFamily.TAG_36h11;
+        /** Families detected by this processor; when non-empty this overrides {@link #tagFamily}. */
+        public EnumSet<AprilTagProcessor.TagFamily> tagFamilies = EnumSet.noneOf(AprilTagProcessor.TagFamily.class);
+        /** Run the per-family detectors concurrently on extra threads instead of one after another. */
+        public boolean parallelFamilies = false;
+        /**
+         * Threads that solve ROI-frame tag poses alongside the vision thread; 0 solves them all on the vision
+         * thread. Capped at the spare cores. The SDK solves full-frame poses inside its detector, so this only
+         * affects ROI frames and the full-frame poses solved here: from undistorted corners with lens
+         * distortion, or from rescaled corners behind a downscaling {@link FramePreprocessor}.
+         */
+        public int poseSolverThreads = 0;
         public boolean drawTagId = true;
         public boolean drawTagOutline = true;
+        /** SDK overlays drawn from the SDK's pose; not drawn while corners are undistorted or downscaled. */
         public boolean drawAxes = false;
         public boolean drawCube = false;
         public double tagSizeMeters = 0.165; // 6.5 inches default
         public DistanceUnit distanceUnit = DistanceUnit.METER;
         public AngleUnit angleUnit = AngleUnit.RADIANS;
         public @Nullable LensIntrinsics lensIntrinsics = null;
+        /** Enables closed-loop decimation control when non-null. */
+        public @Nullable DecimationController.Config adaptiveDecimation = null;
+        /** Custom decimation control; overrides {@link #adaptiveDecimation} when non-null. */
+        public @Nullable DecimationPolicy decimationPolicy = null;
+        /** Enables region-of-interest tracking between full-frame searches when non-null. */
+        public @Nullable RoiTracker.Config roiTracking = null;
+        /** Receives per-stage latency samples for every processed frame when non-null. */
+        public @Nullable PipelineMetrics metrics = null;
+        /** Detections kept per frame; extra detections are counted as snapshot overflow and dropped. */
+        public int maxDetections = 32;
+        /** Records recent frames and detections to a ring file when non-null; opened in {@code init}. */
+        public @Nullable RingFileRecorder.Config recording = null;
+        /**
+         * Which delivered frames are processed, and the counters for them; processes every frame when
+         * {@code null}. May be shared by every processor of one camera.
+         */
+        public @Nullable FramePolicy framePolicy = null;
+        /**
+         * Which frames get overlays; every displayed frame when {@code null}. May be shared by every
+         * processor of one camera.
+         */
+        public @Nullable OverlayPolicy overlayPolicy = null;
+        /**
+         * Frame rate and CPU cap when non-null; frames over budget are skipped before detection. May be shared
+         * by every processor of one camera.
+         */
+        public @Nullable FrameBudget frameBudget = null;
+        /** Drops detections by ID, decision margin and range when non-null. */
+        public @Nullable TagFilter.Config tagFilter = null;
+        /** Per-family filters; a family listed here uses its own filter instead of {@link #tagFilter}. */
+        public @Nullable Map<AprilTagProcessor.TagFamily, TagFilter.Config> familyTagFilters = null;
+        /**
+         * Publish each frame whose poses are solved here (ROI frames, undistorted or downscaled corners) twice:
+         * corners first, marked {@link DetectionSnapshot#isPending() pending}, then with poses under the same
+         * frame sequence. Readers polling the snapshot see corners a pose solve earlier; listeners only see
+         * the complete snapshot.
+         */
+        public boolean publishCornersFirst = false;
     }
 
-    private final AprilTagProcessor delegate;
+    /** Weight of the newest frame in {@link #getAverageFrameMs()}. */
+    private static final double FRAME_TIME_SMOOTHING = 0.1;
+    /** {@link #pendingDecimation} value meaning no override is waiting. */
+    private static final int NO_PENDING_DECIMATION = Float.floatToIntBits(Float.NaN);
+    /** How often a vision thread waiting on a family worker checks that the worker is still running. */
+    private static final long WORKER_POLL_MS = 100;
+
+    /** Family detectors; replaced in {@code init} when the pose source changes, see {@link #buildDelegate}. */
+    private final AprilTagProcessor[] delegates;
+    private final AprilTagProcessor.TagFamily[] families;
+    /** Builder settings, kept so {@code init} can rebuild the delegates. */
+    private final Config delegateConfig;
+    /** Whether the current delegates solve poses themselves; false once rebuilt with an empty tag library. */
+    private boolean delegatesSolvePoses = true;
+    /** Tag sizes for the poses this class solves, looked up by ID like the SDK does. */
+    private final @Nullable AprilTagLibrary poseTagLibrary;
+    private final String[] familyNames;
+    private final FamilyWorker[] familyWorkers;
+    /** Filter per family index, {@code null} when the family is unfiltered. */
+    private final TagFilter[] tagFilters;
     private final DistanceUnit distanceUnit;
     private final AngleUnit angleUnit;
+    private final @Nullable Method decimationSetter;
+    private final @Nullable DecimationPolicy decimationPolicy;
+    private final @Nullable LensIntrinsics configuredIntrinsics;
+    /** Configured intrinsics, or those of the SDK calibration passed to {@code init}. */
+    private volatile @Nullable LensIntrinsics activeIntrinsics;
+    /** Built in {@code init} when the active intrinsics carry distortion terms. */
+    private volatile @Nullable UndistortionTable undistortion;
+    /** Undistorted copy of the snapshot corners that the pose solves read. */
+    private final double[] undistortedCorners;
+    private final double tagSizeMeters;
+    private final @Nullable RoiTracker roiTracker;
+    private final int[] roiRects;
+    private final Rect roiRect = new Rect();
+    private final int poseSolverThreads;
+    private final boolean publishCornersFirst;
+    /** Edge length in meters of each ROI-frame slot's tag, for the deferred pose solves. */
+    private final double[] slotTagSizes;
+
+    private @Nullable PoseSolverPool poseSolvers;
+    private @Nullable Paint roiOverlayPaint;
+    private int frameWidth;
+    private int frameHeight;
+    /** Full-frame pixels per pixel of the frame the delegates detect on this frame. */
+    private double inputScaleX = 1;
+    private double inputScaleY = 1;
 
-    private volatile List<AprilTagDetectionData> latestDetections = Collections.emptyList();
+    private final @Nullable PipelineMetrics metrics;
+    private final FramePolicy framePolicy;
+    private final OverlayPolicy overlayPolicy;
+    private final @Nullable FrameBudget frameBudget;
+    private final DetectionSnapshotBuffer snapshots;
+    private final int maxDetections;
+    private final @Nullable RingFileRecorder.Config recordingConfig;
+    private volatile @Nullable RingFileRecorder recorder;
+    private volatile @Nullable IOException recordingError;
+    /** Draw contexts rotate so the live view can still be drawing one while the next frames are processed. */
+    private final FrameContext[] frameContexts = new FrameContext[3];
+    private int frameContextIndex;
 
-    private AprilTagVisionProcessor(@NonNull AprilTagProcessor delegate,
-                                    @NonNull DistanceUnit distanceUnit,
-                                    @NonNull AngleUnit angleUnit) {
-        this.delegate = delegate;
-        this.distanceUnit = distanceUnit;
-        this.angleUnit = angleUnit;
+    private volatile @Nullable DetectionListener publishListener;
+    /** Shared stage registered ahead of this processor whose enhanced frame is detected on when it has one. */
+    private volatile @Nullable FramePreprocessor preprocessor;
+    private volatile long publishedSequence;
+    private volatile long publishedCaptureTimeNanos;
+    private long frameSequence;
+    private long conversionStartNanos;
+    private volatile float currentDecimation = Float.NaN;
+    /**
+     * Float bits of a manual override posted from another thread and applied at the start of the next frame;
+     * taken with one get-and-set so an override posted while the previous one is applied is never lost.
+     */
+    private final AtomicInteger pendingDecimation = new AtomicInteger(NO_PENDING_DECIMATION);
+    /** Holds the decimation policy at its current value while set; posted from another thread. */
+    private volatile boolean adaptiveDecimationPaused;
+    /** Families detected per frame, in family order; posted from another thread. */
+    private volatile int familyLimit = Integer.MAX_VALUE;
+    /** {@link #familyLimit} as read at the start of the current frame. */
+    private int activeFamilies;
+    /** Exponential average of the time spent in {@code processFrame}, NaN before the first frame. */
+    private volatile double averageFrameMs = Double.NaN;
+    /** Set by {@link #close()}; frames the portal still delivers afterwards are ignored. */
+    private volatile boolean closed;
+
+    private AprilTagVisionProcessor(@NonNull AprilTagProcessor[] delegates,
+                                    @NonNull AprilTagProcessor.TagFamily[] families,
+                                    @NonNull String[] familyNames,
+                                    @NonNull TagFilter[] tagFilters,
+                                    @NonNull Config config) {
+        this.delegates = delegates;
+        this.families = families;
+        this.delegateConfig = config;
+        this.poseTagLibrary = AprilTagGameDatabase.getCurrentGameTagLibrary();
+        this.familyNames = familyNames;
+        this.tagFilters = tagFilters;
+        this.distanceUnit = config.distanceUnit;
+        this.angleUnit = config.angleUnit;
+        this.decimationSetter = resolveOptionalMethod(delegates[0].getClass(), "setDecimation", float.class);
+        this.configuredIntrinsics = config.lensIntrinsics;
+        this.activeIntrinsics = config.lensIntrinsics;
+        this.metrics = config.metrics;
+        this.framePolicy = config.framePolicy != null
+                ? config.framePolicy
+                : new FramePolicy(new FramePolicy.Config());
+        this.overlayPolicy = config.overlayPolicy != null
+                ? config.overlayPolicy
+                : new OverlayPolicy(new OverlayPolicy.Config());
+        this.frameBudget = config.frameBudget;
+        this.tagSizeMeters = config.tagSizeMeters;
+        this.roiTracker = config.roiTracking != null ? new RoiTracker(config.roiTracking) : null;
+        this.roiRects = new int[config.roiTracking != null ? config.roiTracking.maxTracks * 4 : 0];
+        this.snapshots = new DetectionSnapshotBuffer(familyNames, config.maxDetections);
+        this.maxDetections = config.maxDetections;
+        // More solver threads than spare cores would only add context switches.
+        this.poseSolverThreads = Math.max(0,
+                Math.min(config.poseSolverThreads, Runtime.getRuntime().availableProcessors() - 1));
+        this.publishCornersFirst = config.publishCornersFirst;
+        this.slotTagSizes = new double[config.maxDetections];
+        this.undistortedCorners = new double[config.maxDetections * 8];
+        this.recordingConfig = config.recording;
+        for (int i = 0; i < frameContexts.length; i++) {
+            frameContexts[i] = new FrameContext(delegates.length, config.maxDetections);
+        }
+
+        if (config.decimationPolicy != null && decimationSetter != null) {
+            decimationPolicy = config.decimationPolicy;
+            applyDecimation(decimationPolicy.getDecimation());
+        } else if (config.adaptiveDecimation != null && decimationSetter != null) {
+            decimationPolicy = new DecimationController(config.adaptiveDecimation);
+            applyDecimation(decimationPolicy.getDecimation());
+        } else {
+            decimationPolicy = null;
+        }
+
+        if (config.parallelFamilies && delegates.length > 1) {
+            // The first family always runs on the vision thread; only the extra ones need a worker.
+            familyWorkers = new FamilyWorker[delegates.length - 1];
+            for (int i = 0; i < familyWorkers.length; i++) {
+                familyWorkers[i] = new FamilyWorker(familyNames[i + 1]);
+                familyWorkers[i].start();
+            }
+        } else {
+            familyWorkers = null;
+        }
     }
 
     public static AprilTagVisionProcessor fromConfig(@NonNull Config config) {
+        EnumSet<AprilTagProcessor.TagFamily> families = config.tagFamilies != null && !config.tagFamilies.isEmpty()
+                ? config.tagFamilies
+                : EnumSet.of(config.tagFamily);
+
+        AprilTagProcessor[] delegates = new AprilTagProcessor[families.size()];
+        AprilTagProcessor.TagFamily[] familyList = new AprilTagProcessor.TagFamily[families.size()];
+        String[] familyNames = new String[families.size()];
+        TagFilter[] tagFilters = new TagFilter[families.size()];
+        TagFilter sharedFilter = config.tagFilter != null ? new TagFilter(config.tagFilter) : null;
+        int index = 0;
+        for (AprilTagProcessor.TagFamily family : families) {
+            delegates[index] = buildDelegate(config, family, true);
+            familyList[index] = family;
+            familyNames[index] = family.name();
+            TagFilter.Config familyFilter = config.familyTagFilters != null
+                    ? config.familyTagFilters.get(family)
+                    : null;
+            tagFilters[index] = familyFilter != null ? new TagFilter(familyFilter) : sharedFilter;
+            index++;
+        }
+        return new AprilTagVisionProcessor(delegates, familyList, familyNames, tagFilters, config);
+    }
+
+    /**
+     * Builds one family's SDK detector. Without {@code sdkPoses} it gets an empty tag library: the SDK only
+     * solves poses for tags its library knows, so its detections then carry corners but no pose.
+     */
+    private static AprilTagProcessor buildDelegate(Config config, AprilTagProcessor.TagFamily family,
+                                                   boolean sdkPoses) {
         AprilTagProcessor.Builder builder = new AprilTagProcessor.Builder();
         builder.setDrawTagID(config.drawTagId);
         builder.setDrawTagOutline(config.drawTagOutline);
-        builder.setTagFamily(config.tagFamily);
-        builder.setOutputUnits(config.distanceUnit, config.angleUnit);
+        builder.setTagFamily(family);
+        // Keep the raw pose in SI units; readers convert to config.distanceUnit/angleUnit on access.
+        builder.setOutputUnits(DistanceUnit.METER, AngleUnit.RADIANS);
 
         if (config.drawAxes) {
             invokeOptionalBuilderMethod(builder, "setDrawAxes", true);
@@ -87,23 +366,298 @@ public class AprilTagVisionProcessor implements VisionProcessor {
             );
         }
         invokeOptionalBuilderMethod(builder, "setTagSize", config.tagSizeMeters);
+        if (!sdkPoses) {
+            builder.setTagLibrary(new AprilTagLibrary.Builder().build());
+        }
 
-        AprilTagProcessor processor = builder.build();
-        return new AprilTagVisionProcessor(processor, config.distanceUnit, config.angleUnit);
+        return builder.build();
     }
 
     @Override
     public void init(int width, int height, CameraCalibration calibration) {
-        delegate.init(width, height, calibration);
+        frameWidth = width;
+        frameHeight = height;
+        openRecorder(width, height);
+
+        if (poseSolvers != null) {
+            poseSolvers.release();
+            poseSolvers = null;
+        }
+        LensIntrinsics intrinsics = configuredIntrinsics;
+        if (intrinsics == null && calibration != null) {
+            intrinsics = fromCalibration(calibration);
+        }
+        activeIntrinsics = intrinsics;
+        undistortion = intrinsics != null && intrinsics.hasDistortion()
+                ? new UndistortionTable(width, height, intrinsics.fx, intrinsics.fy, intrinsics.cx, intrinsics.cy,
+                        intrinsics.k1, intrinsics.k2, intrinsics.p1, intrinsics.p2, intrinsics.k3)
+                : null;
+
+        // Each pose is solved once: by the SDK on raw full-frame corners, or here on undistorted or rescaled ones.
+        FramePreprocessor stage = preprocessor;
+        boolean sdkPoses = undistortion == null && (stage == null || !stage.isScaling());
+        if (sdkPoses != delegatesSolvePoses) {
+            for (int i = 0; i < delegates.length; i++) {
+                delegates[i] = buildDelegate(delegateConfig, families[i], sdkPoses);
+            }
+            delegatesSolvePoses = sdkPoses;
+            if (!Float.isNaN(currentDecimation)) {
+                applyDecimation(currentDecimation);
+            }
+        }
+        for (AprilTagProcessor familyDelegate : delegates) {
+            familyDelegate.init(width, height, calibration);
+        }
+        if (roiTracker != null) {
+            roiTracker.reset();
+        }
+        if (intrinsics != null && (roiTracker != null || !sdkPoses)) {
+            poseSolvers = new PoseSolverPool(intrinsics, poseSolverThreads, maxDetections);
+        }
     }
 
     @Override
     public Object processFrame(Mat frame, long captureTimeNanos) {
-        Object context = delegate.processFrame(frame, captureTimeNanos);
-        latestDetections = convert(delegate.getDetections());
+        if (closed) {
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        if (!framePolicy.admit(captureTimeNanos, startNanos)) {
+            return null;
+        }
+        if (frameBudget != null && !frameBudget.admit(captureTimeNanos, startNanos)) {
+            return null;
+        }
+        int manualDecimation = pendingDecimation.getAndSet(NO_PENDING_DECIMATION);
+        if (manualDecimation != NO_PENDING_DECIMATION) {
+            decimationPolicy.reset(Float.intBitsToFloat(manualDecimation));
+            applyDecimation(decimationPolicy.getDecimation());
+        }
+
+        activeFamilies = Math.min(familyLimit, delegates.length);
+        frameSequence++;
+        DetectionSnapshot snapshot = snapshots.beginWrite(captureTimeNanos, frameSequence);
+        FrameContext context = nextFrameContext();
+        context.captureTimeNanos = captureTimeNanos;
+        FramePreprocessor stage = preprocessor;
+        Mat input = stage != null ? stage.detectorInput(frame, captureTimeNanos) : frame;
+        inputScaleX = (double) frameWidth / input.cols();
+        inputScaleY = (double) frameHeight / input.rows();
+        snapshot = detect(input, captureTimeNanos, snapshot, context);
+        snapshots.publish();
+        long publishNanos = System.nanoTime();
+        publishedCaptureTimeNanos = captureTimeNanos;
+        publishedSequence = frameSequence;
+
+        if (metrics != null) {
+            metrics.recordFrame(captureTimeNanos, startNanos, conversionStartNanos, publishNanos);
+        }
+        DetectionListener listener = publishListener;
+        if (listener != null) {
+            listener.onDetections(snapshot);
+        }
+        RingFileRecorder activeRecorder = recorder;
+        if (activeRecorder != null) {
+            activeRecorder.offer(frame, snapshot);
+        }
+        if (decimationPolicy != null && !adaptiveDecimationPaused) {
+            double frameMs = (publishNanos - startNanos) / 1e6;
+            float next = decimationPolicy.update(frameMs, nearestRangeMeters(snapshot));
+            if (next != currentDecimation) {
+                applyDecimation(next);
+            }
+        }
+        long endNanos = System.nanoTime();
+        double frameMs = (endNanos - startNanos) / 1e6;
+        double average = averageFrameMs;
+        averageFrameMs = Double.isNaN(average) ? frameMs : average + FRAME_TIME_SMOOTHING * (frameMs - average);
+        if (frameBudget != null) {
+            frameBudget.record(startNanos, endNanos);
+        }
         return context;
     }
 
+    /**
+     * @return the snapshot to publish: {@code snapshot}, or the back buffer holding its complete copy when
+     *         the corners were published first
+     */
+    private DetectionSnapshot detect(Mat frame, long captureTimeNanos, DetectionSnapshot snapshot,
+                                     FrameContext context) {
+        if (roiTracker == null) {
+            return detectFullFrame(frame, captureTimeNanos, snapshot, context);
+        }
+        if (poseSolvers != null && !roiTracker.needsFullSearch()) {
+            return detectInRois(frame, captureTimeNanos, snapshot, context);
+        }
+        snapshot = detectFullFrame(frame, captureTimeNanos, snapshot, context);
+        roiTracker.beginFrame(true);
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            roiTracker.observe(snapshot.familyIndex[slot], snapshot.id[slot], snapshot.corners, slot * 8);
+        }
+        roiTracker.endFrame();
+        return snapshot;
+    }
+
+    /**
+     * Runs every family detector on each predicted region only. Regions never overlap, but a tag is still
+     * reported at most once per family in case a crop boundary splits the search oddly. Poses are solved
+     * once every region has been searched, in parallel when {@link Config#poseSolverThreads} is set.
+     */
+    private DetectionSnapshot detectInRois(Mat frame, long captureTimeNanos, DetectionSnapshot snapshot,
+                                           FrameContext context) {
+        int roiCount = roiTracker.predictRois(frameWidth, frameHeight, roiRects);
+        double scaleX = inputScaleX;
+        double scaleY = inputScaleY;
+
+        roiTracker.beginFrame(false);
+        for (int r = 0; r < roiCount; r++) {
+            // Regions are predicted in full-frame pixels; crop the covering region of the detector input.
+            roiRect.x = (int) (roiRects[r * 4] / scaleX);
+            roiRect.y = (int) (roiRects[r * 4 + 1] / scaleY);
+            roiRect.width = Math.min(frame.cols(),
+                    (int) Math.ceil((roiRects[r * 4] + roiRects[r * 4 + 2]) / scaleX)) - roiRect.x;
+            roiRect.height = Math.min(frame.rows(),
+                    (int) Math.ceil((roiRects[r * 4 + 1] + roiRects[r * 4 + 3]) / scaleY)) - roiRect.y;
+            if (roiRect.width <= 0 || roiRect.height <= 0) {
+                continue;
+            }
+
+            Mat crop = frame.submat(roiRect);
+            try {
+                for (int f = 0; f < activeFamilies; f++) {
+                    delegates[f].processFrame(crop, captureTimeNanos);
+                    List<AprilTagDetection> detections = delegates[f].getDetections();
+                    if (detections == null) {
+                        continue;
+                    }
+                    TagFilter filter = tagFilters[f];
+                    for (int d = 0; d < detections.size(); d++) {
+                        AprilTagDetection detection = detections.get(d);
+                        if (filter != null && !filter.accepts(detection.id, detection.decisionMargin)) {
+                            continue;
+                        }
+                        if (contains(snapshot, f, detection.id)) {
+                            continue;
+                        }
+                        int slot = snapshot.add(detection.id, f, (detection.center.x + roiRect.x) * scaleX,
+                                (detection.center.y + roiRect.y) * scaleY);
+                        if (slot < 0) {
+                            continue;
+                        }
+                        writeCorners(snapshot, slot, detection, roiRect.x, roiRect.y, scaleX, scaleY);
+                        slotTagSizes[slot] = tagSizeFor(detection);
+                    }
+                }
+            } finally {
+                crop.release();
+            }
+        }
+
+        snapshot = solvePoses(snapshot);
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            roiTracker.observe(snapshot.familyIndex[slot], snapshot.id[slot], snapshot.corners, slot * 8);
+        }
+        roiTracker.endFrame();
+
+        // Pose solves are interleaved with detection here, so they count towards the detection stage.
+        conversionStartNanos = System.nanoTime();
+        context.setOwnOutlines(snapshot);
+        return snapshot;
+    }
+
+    private DetectionSnapshot detectFullFrame(Mat frame, long captureTimeNanos, DetectionSnapshot snapshot,
+                                              FrameContext context) {
+        Object[] contexts = context.delegateContexts;
+        int families = activeFamilies;
+        if (familyWorkers != null && families > 1) {
+            for (int i = 0; i < families - 1; i++) {
+                familyWorkers[i].submit(delegates[i + 1], frame, captureTimeNanos);
+            }
+            contexts[0] = delegates[0].processFrame(frame, captureTimeNanos);
+            for (int i = 0; i < families - 1; i++) {
+                contexts[i + 1] = familyWorkers[i].awaitResult();
+            }
+        } else {
+            for (int i = 0; i < families; i++) {
+                contexts[i] = delegates[i].processFrame(frame, captureTimeNanos);
+            }
+        }
+
+        conversionStartNanos = System.nanoTime();
+        boolean resolve = !delegatesSolvePoses && poseSolvers != null;
+        // Families skipped this frame still hold older detections; only read the ones that ran.
+        for (int i = 0; i < families; i++) {
+            writeDetections(snapshot, delegates[i].getDetections(), i, tagFilters[i], !resolve,
+                    inputScaleX, inputScaleY);
+        }
+        if (resolve) {
+            // The delegates were built without poses; solve them here from the full-frame corners.
+            snapshot = solvePoses(snapshot);
+        }
+        if (inputScaleX != 1 || inputScaleY != 1) {
+            // Delegate overlays would be drawn in downscaled coordinates.
+            context.setOwnOutlines(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Solves every slot's pose from its corners, undistorted first when the lens has distortion, and joins
+     * the results into the snapshot. Slots whose solve fails keep the pose they had; slots the range filter
+     * rejects are removed and the rest moved up.
+     *
+     * <p>With {@link Config#publishCornersFirst}, {@code snapshot} is first published as pending and the
+     * poses are joined into a copy of it in the next back buffer.</p>
+     *
+     * @return the snapshot holding the poses
+     */
+    private DetectionSnapshot solvePoses(DetectionSnapshot snapshot) {
+        PoseSolverPool solvers = poseSolvers;
+        if (solvers == null) {
+            // Released by close() while this frame was being detected.
+            return snapshot;
+        }
+        if (publishCornersFirst && snapshot.size() > 0) {
+            snapshot.setPending(true);
+            snapshots.publish();
+            if (metrics != null) {
+                metrics.recordCorners(snapshot.getCaptureTimeNanos(), System.nanoTime());
+            }
+            DetectionSnapshot complete = snapshots.beginWrite(snapshot.getCaptureTimeNanos(),
+                    snapshot.getFrameSequence());
+            complete.copyFrom(snapshot);
+            complete.setPending(false);
+            snapshot = complete;
+        }
+        UndistortionTable table = undistortion;
+        int found = snapshot.size();
+        double[] corners = snapshot.corners;
+        if (table != null) {
+            table.undistort(snapshot.corners, 0, undistortedCorners, 0, found * 4);
+            corners = undistortedCorners;
+        }
+        solvers.solveAll(corners, slotTagSizes, found);
+
+        int kept = 0;
+        for (int slot = 0; slot < found; slot++) {
+            boolean solved = solvers.isSolved(slot);
+            TagPoseSolver.Pose p = solvers.getPose(slot);
+            TagFilter filter = tagFilters[snapshot.familyIndex[slot]];
+            if (solved && filter != null && !filter.acceptsRange(p.range)) {
+                continue;
+            }
+            if (kept != slot) {
+                snapshot.moveSlot(slot, kept);
+            }
+            if (solved) {
+                snapshot.setPose(kept, p.range, p.bearing, p.elevation, p.x, p.y, p.z, p.yaw, p.pitch, p.roll);
+            }
+            kept++;
+        }
+        snapshot.truncate(kept);
+        return snapshot;
+    }
+
     @Override
     public void onDrawFrame(Canvas canvas,
                             int onscreenWidth,
@@ -111,39 +665,436 @@ public class AprilTagVisionProcessor implements VisionProcessor {
                             float scaleBmpPxToCanvasPx,
                             float scaleCanvasDensity,
                             Object userContext) {
-        delegate.onDrawFrame(canvas, onscreenWidth, onscreenHeight, scaleBmpPxToCanvasPx, scaleCanvasDensity, userContext);
+        if (!(userContext instanceof FrameContext)) {
+            return;
+        }
+        FrameContext frameContext = (FrameContext) userContext;
+        long startNanos = System.nanoTime();
+        if (!overlayPolicy.shouldDraw(frameContext.captureTimeNanos, startNanos)) {
+            return;
+        }
+        if (frameContext.ownOutlines) {
+            // Delegate overlays would be drawn in crop or downscaled coordinates, so outline the tags ourselves.
+            drawOutlines(canvas, scaleBmpPxToCanvasPx, scaleCanvasDensity, frameContext);
+        } else {
+            for (int i = 0; i < delegates.length; i++) {
+                Object context = frameContext.delegateContexts[i];
+                if (context != null) {
+                    delegates[i].onDrawFrame(canvas, onscreenWidth, onscreenHeight, scaleBmpPxToCanvasPx,
+                            scaleCanvasDensity, context);
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.recordDraw(startNanos, System.nanoTime());
+        }
     }
 
+    /**
+     * Copies the latest snapshot into immutable value objects. Allocates on every call; loops that run every
+     * op mode cycle should read through {@link AprilTagVisionManager#getDetectionView()} instead. Shares the
+     * single-reader contract of {@link #acquireSnapshot()}.
+     */
     @NonNull
     public List<AprilTagDetectionData> getLatestDetections() {
-        return latestDetections;
+        DetectionSnapshot snapshot = snapshots.acquire();
+        if (snapshot.size() == 0) {
+            return Collections.emptyList();
+        }
+        List<AprilTagDetectionData> results = new ArrayList<>(snapshot.size());
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            results.add(AprilTagDetectionData.fromSnapshot(snapshot, slot, distanceUnit, angleUnit));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Returns the newest published snapshot without copying. Must only be called from one reader thread;
+     * the instance stays valid until that thread calls this method again.
+     */
+    @NonNull
+    public DetectionSnapshot acquireSnapshot() {
+        return snapshots.acquire();
+    }
+
+    /**
+     * @return sequence number of the most recently published frame; 0 before the first frame
+     */
+    public long getFrameSequence() {
+        return publishedSequence;
+    }
+
+    /**
+     * Runs the {@code convert} stage alone: writes {@code detections} as output of the first family's detector
+     * into a snapshot and publishes it. Lets {@link DetectionConversionBenchmark} time the conversion with
+     * SDK-typed input; must not be called while the processor is attached to a portal.
+     */
+    @NonNull
+    DetectionSnapshot convertAndPublish(@NonNull List<AprilTagDetection> detections, long captureTimeNanos) {
+        frameSequence++;
+        DetectionSnapshot snapshot = snapshots.beginWrite(captureTimeNanos, frameSequence);
+        writeDetections(snapshot, detections, 0, tagFilters[0], true, 1, 1);
+        return snapshots.publish();
+    }
+
+    /**
+     * @return capture timestamp ({@link System#nanoTime()}) of the most recently published frame
+     */
+    public long getLastCaptureTimeNanos() {
+        return publishedCaptureTimeNanos;
+    }
+
+    /**
+     * Registers the callback invoked on the vision thread after every published frame, replacing any
+     * previous one. {@link AprilTagVisionManager} uses this to fan frames out to its own listeners.
+     */
+    public void setPublishListener(@Nullable DetectionListener listener) {
+        this.publishListener = listener;
+    }
+
+    /**
+     * @return the lens intrinsics in use: the configured ones, or the SDK calibration's once {@code init}
+     *         has run; {@code null} if neither is available
+     */
+    @Nullable
+    public LensIntrinsics getLensIntrinsics() {
+        return activeIntrinsics;
+    }
+
+    /**
+     * Detects on the frame {@code stage} prepared for the same capture, when it prepared one, instead of the
+     * camera frame. The stage must be registered with the portal ahead of this processor, and set before
+     * {@code init} so a downscaling stage turns the delegates' pose solving off.
+     */
+    void setPreprocessor(@Nullable FramePreprocessor stage) {
+        this.preprocessor = stage;
+    }
+
+    /**
+     * @return the corner undistortion table built in {@code init}, or {@code null} without lens distortion
+     */
+    @Nullable
+    public UndistortionTable getUndistortion() {
+        return undistortion;
+    }
+
+    @Nullable
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return detections dropped by the tag filters since the processor was created
+     */
+    public long getRejectedDetections() {
+        long rejected = 0;
+        for (int i = 0; i < tagFilters.length; i++) {
+            TagFilter filter = tagFilters[i];
+            // Families may share one filter; count each instance once.
+            if (filter != null && !containsFilter(tagFilters, i, filter)) {
+                rejected += filter.getRejectedCount();
+            }
+        }
+        return rejected;
+    }
+
+    private static boolean containsFilter(TagFilter[] filters, int end, TagFilter filter) {
+        for (int i = 0; i < end; i++) {
+            if (filters[i] == filter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    public FramePolicy getFramePolicy() {
+        return framePolicy;
+    }
+
+    @NonNull
+    public OverlayPolicy getOverlayPolicy() {
+        return overlayPolicy;
+    }
+
+    @Nullable
+    public FrameBudget getFrameBudget() {
+        return frameBudget;
     }
 
     public AprilTagProcessor getDelegate() {
-        return delegate;
+        return delegates[0];
+    }
+
+    @NonNull
+    public List<AprilTagProcessor> getDelegates() {
+        List<AprilTagProcessor> list = new ArrayList<>(delegates.length);
+        Collections.addAll(list, delegates);
+        return Collections.unmodifiableList(list);
+    }
+
+    public int getFamilyCount() {
+        return delegates.length;
     }
 
+    /**
+     * Sets decimation on every family detector. With adaptive decimation enabled the value becomes the
+     * controller's new starting point and is applied on the vision thread before the next frame.
+     */
     public void setDecimation(float decimation) {
-        invokeOptionalProcessorMethod("setDecimation", decimation);
+        if (decimationPolicy != null) {
+            pendingDecimation.set(Float.floatToIntBits(decimation));
+        } else {
+            applyDecimation(decimation);
+        }
     }
 
-    private List<AprilTagDetectionData> convert(List<AprilTagDetection> detections) {
-        if (detections == null || detections.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * @return the decimation last applied through this wrapper, or {@link Float#NaN} if the SDK default is
+     * still in effect
+     */
+    public float getDecimation() {
+        return currentDecimation;
+    }
+
+    /**
+     * Returns every family detector to the SDK default decimation, which {@link #getDecimation()} then reports
+     * as NaN again. With adaptive decimation enabled the default becomes the controller's starting point.
+     */
+    public void clearDecimation() {
+        if (decimationPolicy != null) {
+            setDecimation(DecimationOverride.SDK_DEFAULT_DECIMATION);
+        } else {
+            applyDecimation(DecimationOverride.SDK_DEFAULT_DECIMATION);
+            currentDecimation = Float.NaN;
         }
-        List<AprilTagDetectionData> results = new ArrayList<>(detections.size());
-        for (AprilTagDetection detection : detections) {
-            results.add(AprilTagDetectionData.from(detection, distanceUnit, angleUnit));
+    }
+
+    /**
+     * Holds adaptive decimation at its current value while {@code paused}, e.g. while the watchdog has raised
+     * it. Manual {@link #setDecimation} calls still apply. No-op without adaptive decimation.
+     */
+    public void setAdaptiveDecimationPaused(boolean paused) {
+        adaptiveDecimationPaused = paused;
+    }
+
+    /**
+     * Limits detection to the first {@code limit} families in configuration order, e.g. 1 to keep only the
+     * primary family while the hub is overloaded; 0 detects nothing but still publishes empty snapshots.
+     * Applied from the next frame.
+     */
+    public void setFamilyLimit(int limit) {
+        familyLimit = Math.max(0, limit);
+    }
+
+    /**
+     * @return exponentially averaged time per processed frame in milliseconds, or {@link Double#NaN} before
+     *         the first frame
+     */
+    public double getAverageFrameMs() {
+        return averageFrameMs;
+    }
+
+    public boolean isAdaptiveDecimationEnabled() {
+        return decimationPolicy != null;
+    }
+
+    /**
+     * @return the ring file recorder, or {@code null} when recording is disabled, has not started yet
+     *         ({@code init} opens it) or failed to open
+     */
+    @Nullable
+    public RingFileRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * @return why the configured ring file could not be opened, or {@code null}
+     */
+    @Nullable
+    public IOException getRecordingError() {
+        return recordingError;
+    }
+
+    /**
+     * Stops the per-family and pose-solver worker threads and closes the recorder. Frames delivered
+     * afterwards are ignored.
+     */
+    public void close() {
+        closed = true;
+        if (familyWorkers != null) {
+            for (FamilyWorker worker : familyWorkers) {
+                worker.interrupt();
+            }
+        }
+        PoseSolverPool solvers = poseSolvers;
+        poseSolvers = null;
+        if (solvers != null) {
+            solvers.release();
+        }
+        RingFileRecorder activeRecorder = recorder;
+        recorder = null;
+        if (activeRecorder != null) {
+            activeRecorder.close();
         }
-        return Collections.unmodifiableList(results);
     }
 
-    private void invokeOptionalProcessorMethod(String methodName, float value) {
+    private void openRecorder(int width, int height) {
+        if (recordingConfig == null) {
+            return;
+        }
+        RingFileRecorder previous = recorder;
+        recorder = null;
+        if (previous != null) {
+            previous.close();
+        }
         try {
-            Method method = delegate.getClass().getMethod(methodName, float.class);
-            method.invoke(delegate, value);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException ignored) {
+            recorder = new RingFileRecorder(recordingConfig, width, height, familyNames, maxDetections);
+            recordingError = null;
+        } catch (IOException e) {
+            // Recording is a debugging aid; detection keeps running without it.
+            recordingError = e;
+        }
+    }
+
+    private void drawOutlines(Canvas canvas,
+                              float scaleBmpPxToCanvasPx,
+                              float scaleCanvasDensity,
+                              FrameContext frameContext) {
+        if (roiOverlayPaint == null) {
+            roiOverlayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            roiOverlayPaint.setColor(Color.GREEN);
+        }
+        roiOverlayPaint.setStrokeWidth(4 * scaleCanvasDensity);
+        double[] corners = frameContext.corners;
+        for (int i = 0; i < frameContext.count; i++) {
+            int base = i * 8;
+            for (int c = 0; c < 4; c++) {
+                int next = (c + 1) % 4;
+                canvas.drawLine(
+                        (float) corners[base + c * 2] * scaleBmpPxToCanvasPx,
+                        (float) corners[base + c * 2 + 1] * scaleBmpPxToCanvasPx,
+                        (float) corners[base + next * 2] * scaleBmpPxToCanvasPx,
+                        (float) corners[base + next * 2 + 1] * scaleBmpPxToCanvasPx,
+                        roiOverlayPaint);
+            }
+        }
+    }
+
+    private FrameContext nextFrameContext() {
+        frameContextIndex = (frameContextIndex + 1) % frameContexts.length;
+        FrameContext context = frameContexts[frameContextIndex];
+        context.clear();
+        return context;
+    }
+
+    private static LensIntrinsics fromCalibration(CameraCalibration calibration) {
+        // The SDK orders the coefficients as OpenCV does: k1, k2, p1, p2, k3, ...
+        float[] d = calibration.distortionCoefficients;
+        int n = d != null ? d.length : 0;
+        return new LensIntrinsics(calibration.focalLengthX, calibration.focalLengthY,
+                calibration.principalPointX, calibration.principalPointY,
+                n > 0 ? d[0] : 0, n > 1 ? d[1] : 0, n > 2 ? d[2] : 0, n > 3 ? d[3] : 0, n > 4 ? d[4] : 0);
+    }
+
+    private double tagSizeFor(AprilTagDetection detection) {
+        if (detection.metadata != null && detection.metadata.distanceUnit != null && detection.metadata.tagsize > 0) {
+            return detection.metadata.distanceUnit.toMeters(detection.metadata.tagsize);
+        }
+        // Delegates built without a tag library report no metadata; look the size up the way the SDK would.
+        AprilTagMetadata metadata = poseTagLibrary != null ? poseTagLibrary.lookupTag(detection.id) : null;
+        if (metadata != null && metadata.distanceUnit != null && metadata.tagsize > 0) {
+            return metadata.distanceUnit.toMeters(metadata.tagsize);
+        }
+        return tagSizeMeters;
+    }
+
+    private static boolean contains(DetectionSnapshot snapshot, int family, int id) {
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            if (snapshot.id[slot] == id && snapshot.familyIndex[slot] == family) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyDecimation(float decimation) {
+        if (decimationSetter == null) {
+            return;
+        }
+        for (AprilTagProcessor familyDelegate : delegates) {
+            try {
+                decimationSetter.invoke(familyDelegate, decimation);
+            } catch (IllegalAccessException | InvocationTargetException ignored) {
+                // No-op: feature is optional on older SDK releases
+                return;
+            }
+        }
+        currentDecimation = decimation;
+    }
+
+    private static double nearestRangeMeters(DetectionSnapshot snapshot) {
+        double nearest = Double.NaN;
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            double range = snapshot.range[slot];
+            if (!Double.isNaN(range) && (Double.isNaN(nearest) || range < nearest)) {
+                nearest = range;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * @param checkRange apply the filter's range check to the SDK pose; off when the pose is re-solved later
+     * @param scaleX     full-frame pixels per pixel of the frame the detections were made on
+     */
+    private void writeDetections(DetectionSnapshot snapshot, List<AprilTagDetection> detections, int family,
+                                 @Nullable TagFilter filter, boolean checkRange, double scaleX, double scaleY) {
+        if (detections == null) {
+            return;
+        }
+        for (int i = 0; i < detections.size(); i++) {
+            AprilTagDetection detection = detections.get(i);
+            if (filter != null && (!filter.accepts(detection.id, detection.decisionMargin)
+                    || (checkRange && detection.ftcPose != null && !filter.acceptsRange(detection.ftcPose.range)))) {
+                continue;
+            }
+            int slot = snapshot.add(detection.id, family, detection.center.x * scaleX, detection.center.y * scaleY);
+            if (slot < 0) {
+                return;
+            }
+            writeCorners(snapshot, slot, detection, 0, 0, scaleX, scaleY);
+            slotTagSizes[slot] = tagSizeFor(detection);
+            AprilTagPoseFtc pose = detection.ftcPose;
+            if (pose != null) {
+                snapshot.setPose(slot, pose.range, pose.bearing, pose.elevation,
+                        pose.x, pose.y, pose.z, pose.yaw, pose.pitch, pose.roll);
+            }
+        }
+    }
+
+    /**
+     * Writes the corners in full-frame pixels: shifted by the crop offset, then scaled up from the detector
+     * input. The AprilTag detector puts pixel centres at +0.5, so scaling needs no further shift.
+     */
+    private static void writeCorners(DetectionSnapshot snapshot, int slot, AprilTagDetection detection,
+                                     double offsetX, double offsetY, double scaleX, double scaleY) {
+        Point[] points = detection.corners;
+        int base = slot * 8;
+        for (int c = 0; c < 4; c++) {
+            boolean present = points != null && c < points.length && points[c] != null;
+            snapshot.corners[base + c * 2] = present ? (points[c].x + offsetX) * scaleX : Double.NaN;
+            snapshot.corners[base + c * 2 + 1] = present ? (points[c].y + offsetY) * scaleY : Double.NaN;
+        }
+    }
+
+    @Nullable
+    private static Method resolveOptionalMethod(Class<?> type, String methodName, Class<?> parameterType) {
+        try {
+            return type.getMethod(methodName, parameterType);
+        } catch (NoSuchMethodException ignored) {
             // No-op: feature is optional on older SDK releases
+            return null;
         }
     }
 
@@ -164,4 +1115,114 @@ public class AprilTagVisionProcessor implements VisionProcessor {
             // Optional metadata, ignore if unavailable
         }
     }
+
+    /**
+     * Per-frame draw context: the delegates' own contexts for full-frame searches, or a copy of the corners
+     * for ROI and downscaled frames, whose delegate contexts are in crop or downscaled coordinates.
+     */
+    private static final class FrameContext {
+        final Object[] delegateContexts;
+        final double[] corners;
+        long captureTimeNanos;
+        boolean ownOutlines;
+        int count;
+
+        FrameContext(int delegateCount, int maxDetections) {
+            delegateContexts = new Object[delegateCount];
+            corners = new double[maxDetections * 8];
+        }
+
+        void clear() {
+            for (int i = 0; i < delegateContexts.length; i++) {
+                delegateContexts[i] = null;
+            }
+            ownOutlines = false;
+            count = 0;
+        }
+
+        void setOwnOutlines(DetectionSnapshot snapshot) {
+            ownOutlines = true;
+            count = snapshot.size();
+            System.arraycopy(snapshot.corners, 0, corners, 0, count * 8);
+        }
+    }
+
+    /**
+     * Dedicated thread that runs one family's detector on the frame currently owned by the vision thread.
+     * The two semaphores hand the frame over and back without allocating per frame.
+     */
+    private static final class FamilyWorker extends Thread {
+        private AprilTagProcessor familyDelegate;
+        private final Semaphore frameReady = new Semaphore(0);
+        private final Semaphore resultReady = new Semaphore(0);
+
+        private Mat frame;
+        private long captureTimeNanos;
+        private Object result;
+
+        FamilyWorker(String familyName) {
+            super("AprilTag-" + familyName);
+            setDaemon(true);
+        }
+
+        /** Hands over the delegate with each frame, since {@code init} may have replaced it. */
+        void submit(AprilTagProcessor familyDelegate, Mat frame, long captureTimeNanos) {
+            this.familyDelegate = familyDelegate;
+            this.frame = frame;
+            this.captureTimeNanos = captureTimeNanos;
+            frameReady.release();
+        }
+
+        /**
+         * Waits for the submitted frame. Returns {@code null} if the worker stopped first, which happens when
+         * {@link #close()} races a frame; waiting without a timeout would then block the vision thread forever.
+         */
+        Object awaitResult() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        if (resultReady.tryAcquire(WORKER_POLL_MS, TimeUnit.MILLISECONDS)) {
+                            break;
+                        }
+                    } catch (InterruptedException e) {
+                        // Keep waiting: the worker may still be reading the frame the portal is about to reuse.
+                        interrupted = true;
+                        continue;
+                    }
+                    if (!isAlive() && !resultReady.tryAcquire()) {
+                        frame = null;
+                        return null;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            Object context = result;
+            result = null;
+            frame = null;
+            return context;
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                try {
+                    frameReady.acquire();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    result = familyDelegate.processFrame(frame, captureTimeNanos);
+                } catch (RuntimeException e) {
+                    // Never leave the vision thread waiting; a failed family simply reports nothing this frame.
+                    result = null;
+                } finally {
+                    resultReady.release();
+                }
+            }
+        }
+    }
 }
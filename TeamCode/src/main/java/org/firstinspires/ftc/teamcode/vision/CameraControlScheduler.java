@@ -0,0 +1,218 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.ExposureControl;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.GainControl;
+import org.firstinspires.ftc.vision.VisionPortal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies exposure and gain changes on a background thread, so neither the op mode nor the vision thread
+ * ever waits for the camera. Each request is applied once the portal reports {@code STREAMING}; camera
+ * controls are not available before that. A request made while an earlier one is still pending replaces
+ * it, since only the newest setting matters.
+ *
+ * <p>The worker sleeps while it waits (for requests, for streaming, and for the camera to settle after a
+ * switch to manual mode) instead of spinning. It is started by the first request and stopped by
+ * {@link #close()}.</p>
+ */
+public class CameraControlScheduler {
+
+    private static final long STREAMING_POLL_MS = 20;
+    /** Time the camera needs after switching to manual mode before it accepts exposure values reliably. */
+    private static final long MODE_SETTLE_MS = 50;
+
+    private final VisionPortal portal;
+    private final Object lock = new Object();
+
+    private long pendingRequest;
+    private int pendingExposureMs;
+    private int pendingGain;
+
+    private long completedRequest;
+    private boolean lastSucceeded;
+    private long appliedAtNanos;
+    private int appliedExposureMs = -1;
+    private int appliedGain = -1;
+
+    private Thread worker;
+    private boolean closed;
+
+    // Worker-thread only: the clamped values of the last apply().
+    private int clampedExposureMs;
+    private int clampedGain;
+
+    public CameraControlScheduler(@NonNull VisionPortal portal) {
+        this.portal = portal;
+    }
+
+    /**
+     * Queues a manual exposure and gain setting. Returns immediately. Values outside the camera's supported
+     * range are clamped.
+     *
+     * @return the request number, for {@link #isComplete} and {@link #awaitApplied}
+     */
+    public long requestExposure(int exposureMs, int gain) {
+        synchronized (lock) {
+            if (closed) {
+                return completedRequest;
+            }
+            pendingRequest++;
+            pendingExposureMs = exposureMs;
+            pendingGain = gain;
+            if (worker == null) {
+                worker = new Thread(this::run, "CameraControl");
+                worker.setDaemon(true);
+                worker.start();
+            }
+            lock.notifyAll();
+            return pendingRequest;
+        }
+    }
+
+    /**
+     * @return whether request {@code request}, or a newer one that replaced it, has been handled
+     */
+    public boolean isComplete(long request) {
+        synchronized (lock) {
+            return completedRequest >= request;
+        }
+    }
+
+    /**
+     * Blocks until {@code request} (or a newer one) has been handled or the timeout expires.
+     *
+     * @return whether the camera accepted the setting; {@code false} on timeout or when the camera has no
+     *         exposure or gain control
+     */
+    public boolean awaitApplied(long request, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        synchronized (lock) {
+            while (completedRequest < request && !closed) {
+                long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                lock.wait(remainingMs);
+            }
+            return completedRequest >= request && lastSucceeded;
+        }
+    }
+
+    /**
+     * @return {@link System#nanoTime()} at which the newest setting took effect; frames captured later use it
+     */
+    public long getAppliedAtNanos() {
+        synchronized (lock) {
+            return appliedAtNanos;
+        }
+    }
+
+    /**
+     * @return the exposure in effect, in milliseconds, or -1 before any setting was applied
+     */
+    public int getAppliedExposureMs() {
+        synchronized (lock) {
+            return appliedExposureMs;
+        }
+    }
+
+    /**
+     * @return the gain in effect, or -1 before any setting was applied
+     */
+    public int getAppliedGain() {
+        synchronized (lock) {
+            return appliedGain;
+        }
+    }
+
+    /**
+     * @return whether the most recently handled request was accepted by the camera
+     */
+    public boolean didLastRequestSucceed() {
+        synchronized (lock) {
+            return lastSucceeded;
+        }
+    }
+
+    /**
+     * Stops the worker; pending requests are dropped.
+     */
+    public void close() {
+        Thread thread;
+        synchronized (lock) {
+            closed = true;
+            thread = worker;
+            lock.notifyAll();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (pendingRequest == completedRequest && !closed) {
+                        lock.wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                while (portal.getCameraState() != VisionPortal.CameraState.STREAMING) {
+                    Thread.sleep(STREAMING_POLL_MS);
+                }
+
+                long request;
+                int exposureMs;
+                int gain;
+                synchronized (lock) {
+                    request = pendingRequest;
+                    exposureMs = pendingExposureMs;
+                    gain = pendingGain;
+                }
+                boolean applied;
+                try {
+                    applied = apply(exposureMs, gain);
+                } catch (RuntimeException e) {
+                    // Controls throw when the camera closes mid-call; report the request as failed.
+                    applied = false;
+                }
+                synchronized (lock) {
+                    completedRequest = request;
+                    lastSucceeded = applied;
+                    if (applied) {
+                        appliedAtNanos = System.nanoTime();
+                        appliedExposureMs = clampedExposureMs;
+                        appliedGain = clampedGain;
+                    }
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean apply(int exposureMs, int gain) throws InterruptedException {
+        ExposureControl exposureControl = portal.getCameraControl(ExposureControl.class);
+        GainControl gainControl = portal.getCameraControl(GainControl.class);
+        if (exposureControl == null || gainControl == null) {
+            return false;
+        }
+        if (exposureControl.getMode() != ExposureControl.Mode.Manual) {
+            exposureControl.setMode(ExposureControl.Mode.Manual);
+            Thread.sleep(MODE_SETTLE_MS);
+        }
+        clampedExposureMs = (int) Math.max(exposureControl.getMinExposure(TimeUnit.MILLISECONDS),
+                Math.min(exposureControl.getMaxExposure(TimeUnit.MILLISECONDS), exposureMs));
+        clampedGain = Math.max(gainControl.getMinGain(), Math.min(gainControl.getMaxGain(), gain));
+        boolean exposureSet = exposureControl.setExposure(clampedExposureMs, TimeUnit.MILLISECONDS);
+        boolean gainSet = gainControl.setGain(clampedGain);
+        return exposureSet && gainSet;
+    }
+}
@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
+import org.opencv.core.Point;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times the SDK-typed conversion paths on the device they run on, which the JMH benchmarks in
+ * {@code VisionCore} cannot do without the FTC SDK:
+ * <ul>
+ *     <li>{@code from}: {@link AprilTagDetectionData#from} for every detection of a frame, the per-frame
+ *     list conversion that snapshots replaced;</li>
+ *     <li>{@code convertAndPublish}: the processor's {@code convert} stage, writing SDK detections into a
+ *     snapshot and publishing it;</li>
+ *     <li>{@code getLatestDetections}: copying the published snapshot back into value objects.</li>
+ * </ul>
+ * Input is {@link #TAG_COUNTS} synthetic detections per frame. Results are written in the layout of JMH's
+ * JSON output so they can be kept next to {@code VisionCore/jmh-baseline.json}.
+ */
+public final class DetectionConversionBenchmark {
+
+    public static final int[] TAG_COUNTS = {0, 1, 4, 16};
+
+    public static class Config {
+        /** Time each benchmark runs before it is measured. */
+        public long warmupMs = 1000;
+        /** Time each benchmark is measured for. */
+        public long measureMs = 2000;
+    }
+
+    public static final class Result {
+        public final String benchmark;
+        public final int tags;
+        public final double nanosPerOp;
+
+        Result(String benchmark, int tags, double nanosPerOp) {
+            this.benchmark = benchmark;
+            this.tags = tags;
+            this.nanosPerOp = nanosPerOp;
+        }
+    }
+
+    private interface Operation {
+        int run(long frame);
+    }
+
+    private static final String FAMILY = "TAG_36h11";
+    private static final int BATCH = 256;
+
+    private final Config config;
+    private final List<Result> results = new ArrayList<>();
+    /** Folds every operation's output so the work cannot be optimized away. */
+    private volatile int sink;
+
+    public DetectionConversionBenchmark(@NonNull Config config) {
+        if (config.warmupMs < 0 || config.measureMs <= 0) {
+            throw new IllegalArgumentException("warmupMs must be non-negative and measureMs positive");
+        }
+        this.config = config;
+    }
+
+    /**
+     * Runs every benchmark for every tag count. Blocks for roughly
+     * {@code 3 * TAG_COUNTS.length * (warmupMs + measureMs)}; stops early when the thread is interrupted.
+     */
+    public void runAll() {
+        AprilTagVisionProcessor processor = AprilTagVisionProcessor.fromConfig(new AprilTagVisionProcessor.Config());
+        try {
+            for (int tags : TAG_COUNTS) {
+                List<AprilTagDetection> detections = syntheticDetections(tags);
+                List<AprilTagDetectionData> converted = new ArrayList<>(tags);
+                measure("from", tags, frame -> {
+                    converted.clear();
+                    for (int i = 0; i < detections.size(); i++) {
+                        converted.add(AprilTagDetectionData.from(detections.get(i), FAMILY,
+                                DistanceUnit.INCH, AngleUnit.DEGREES, frame, frame));
+                    }
+                    return converted.size();
+                });
+                measure("convertAndPublish", tags,
+                        frame -> processor.convertAndPublish(detections, frame).size());
+                measure("getLatestDetections", tags, frame -> processor.getLatestDetections().size());
+            }
+        } finally {
+            processor.close();
+        }
+    }
+
+    @NonNull
+    public List<Result> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Writes the results as a JMH-style JSON array, replacing {@code file}.
+     */
+    public void writeJson(@NonNull File file) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(String.format(Locale.US,
+                    "    {\"benchmark\": \"%s.%s\", \"mode\": \"avgt\", \"params\": {\"tags\": \"%d\"}, "
+                            + "\"primaryMetric\": {\"score\": %.3f, \"scoreUnit\": \"ns/op\"}}",
+                    getClass().getName(), result.benchmark, result.tags, result.nanosPerOp));
+            json.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("]\n");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(json.toString());
+        }
+    }
+
+    private void measure(String benchmark, int tags, Operation operation) {
+        long frame = 0;
+        long warmupEnd = System.nanoTime() + config.warmupMs * 1_000_000L;
+        while (System.nanoTime() < warmupEnd && !Thread.currentThread().isInterrupted()) {
+            frame = runBatch(operation, frame);
+        }
+        long ops = 0;
+        long start = System.nanoTime();
+        long end = start + config.measureMs * 1_000_000L;
+        long now = start;
+        while (now < end && !Thread.currentThread().isInterrupted()) {
+            frame = runBatch(operation, frame);
+            ops += BATCH;
+            now = System.nanoTime();
+        }
+        if (ops > 0) {
+            results.add(new Result(benchmark, tags, (double) (now - start) / ops));
+        }
+    }
+
+    private long runBatch(Operation operation, long frame) {
+        int folded = 0;
+        for (int i = 0; i < BATCH; i++) {
+            folded += operation.run(++frame);
+        }
+        sink += folded;
+        return frame;
+    }
+
+    /** Detections spread across a 1280x720 image and a range of poses, like {@code SyntheticDetections}. */
+    private static List<AprilTagDetection> syntheticDetections(int tags) {
+        List<AprilTagDetection> detections = new ArrayList<>(tags);
+        for (int t = 0; t < tags; t++) {
+            double cx = 80 + (t % 4) * 300;
+            double cy = 90 + (t / 4) * 160;
+            double half = 20 + t;
+            Point[] corners = {
+                    new Point(cx - half, cy + half), new Point(cx + half, cy + half),
+                    new Point(cx + half, cy - half), new Point(cx - half, cy - half)};
+            double x = (t - tags / 2.0) * 0.1;
+            double z = 0.5 + t * 0.15;
+            AprilTagPoseFtc pose = new AprilTagPoseFtc(x, z, -0.05, 0.01 * t, -0.02, 0.005 * t,
+                    Math.hypot(x, z), Math.atan2(-x, z), 0.02);
+            detections.add(new AprilTagDetection(t + 1, 0, 50, new Point(cx, cy), corners, null, pose, null, 0));
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,273 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Sweeps a grid of exposure and gain settings while tags are in view, usually during init, and keeps the
+ * setting that detects best. Each candidate is applied through the {@link CameraControlScheduler}; after
+ * {@link Config#settleFrames} frames captured under the new setting, {@link Config#measureFrames} processed
+ * frames are scored:
+ *
+ * <pre>score = (frames with a detection) / frames - (tags lost from one frame to the next) / sightings</pre>
+ *
+ * <p>Tags that drop out between consecutive frames while the scene is static are mostly blur or noise
+ * misses. Scores within {@link Config#tieTolerance} count as equal; the shorter exposure then wins because
+ * it blurs less once the robot moves, and then the lower gain because it is less noisy. When the sweep ends,
+ * the best setting is requested; if no candidate saw a tag, the fallback setting is restored.</p>
+ *
+ * <p>Frames are counted per camera. The snapshots every processor publishes for one camera frame share its
+ * capture time and are folded into one frame, and settling counts the frames the camera delivered
+ * ({@link FramePolicy#getDeliveredFrames()}), including those the frame policy or budget dropped before
+ * detection. Only processed frames can be scored.</p>
+ *
+ * <p>Runs as a {@link DetectionListener} on the vision thread and never blocks it; progress can be polled
+ * from any thread.</p>
+ */
+public class ExposureAutoTuner implements DetectionListener {
+
+    public static class Config {
+        /** Exposure candidates in milliseconds. */
+        public int[] exposuresMs = {5, 8, 12, 20};
+        /** Gain candidates, in the camera's gain units. */
+        public int[] gains = {20, 60};
+        /** Camera frames, processed or not, skipped after each change while the camera adjusts. */
+        public int settleFrames = 3;
+        /** Processed frames scored per candidate. */
+        public int measureFrames = 15;
+        /** Score difference below which candidates are treated as equally good. */
+        public double tieTolerance = 0.05;
+    }
+
+    public enum State {
+        RUNNING,
+        /** The best candidate has been requested. */
+        DONE,
+        /** No candidate produced a detection; the fallback setting was requested. */
+        NO_TAGS,
+        /** The camera rejected a setting, e.g. because it has no manual exposure control. */
+        FAILED
+    }
+
+    private static final int MAX_TRACKED_TAGS = 64;
+
+    private final Config config;
+    private final CameraControlScheduler scheduler;
+    private final FramePolicy framePolicy;
+    private final int fallbackExposureMs;
+    private final int fallbackGain;
+    private final int[] exposures;
+    private final int[] gains;
+    private final double[] scores;
+
+    private volatile State state = State.RUNNING;
+    private volatile int candidate;
+    private volatile int bestCandidate = -1;
+
+    // Vision-thread state.
+    private long request;
+    /** Delivered-frame count at the first frame under the current candidate, -1 before it. */
+    private long settleStartDelivered = -1;
+    private boolean collecting;
+    private long frameCaptureNanos;
+    private boolean frameMeasured;
+    private int framesMeasured;
+    private int framesWithTags;
+    private int sightings;
+    private int losses;
+    private final int[] previousTags = new int[MAX_TRACKED_TAGS];
+    private int previousCount;
+    private boolean previousMeasured;
+    private final int[] currentTags = new int[MAX_TRACKED_TAGS];
+    private int currentCount;
+
+    /**
+     * Starts the sweep by requesting the first candidate.
+     *
+     * @param framePolicy        the camera's frame policy, whose delivered-frame count paces settling
+     * @param fallbackExposureMs exposure restored when no candidate sees a tag
+     * @param fallbackGain       gain restored when no candidate sees a tag
+     */
+    public ExposureAutoTuner(@NonNull Config config, @NonNull CameraControlScheduler scheduler,
+                             @NonNull FramePolicy framePolicy, int fallbackExposureMs, int fallbackGain) {
+        if (config.exposuresMs.length == 0 || config.gains.length == 0 || config.measureFrames <= 0) {
+            throw new IllegalArgumentException("The sweep needs exposures, gains and measured frames");
+        }
+        this.config = config;
+        this.scheduler = scheduler;
+        this.framePolicy = framePolicy;
+        this.fallbackExposureMs = fallbackExposureMs;
+        this.fallbackGain = fallbackGain;
+        this.exposures = config.exposuresMs.clone();
+        this.gains = config.gains.clone();
+        // Ascending order lets the first of several tied candidates be the shortest exposure and lowest gain.
+        Arrays.sort(exposures);
+        Arrays.sort(gains);
+        this.scores = new double[exposures.length * gains.length];
+        Arrays.fill(scores, Double.NaN);
+        request = scheduler.requestExposure(exposureOf(0), gainOf(0));
+    }
+
+    @Override
+    public void onDetections(@NonNull DetectionSnapshot snapshot) {
+        if (state != State.RUNNING) {
+            return;
+        }
+        if (!scheduler.isComplete(request)) {
+            return;
+        }
+        if (!scheduler.didLastRequestSucceed()) {
+            state = State.FAILED;
+            return;
+        }
+        if (snapshot.getCaptureTimeNanos() <= scheduler.getAppliedAtNanos()) {
+            // Captured before the candidate took effect.
+            return;
+        }
+
+        // Every processor of the camera publishes a snapshot of the same capture; fold them into one frame.
+        long captureTimeNanos = snapshot.getCaptureTimeNanos();
+        if (!collecting || captureTimeNanos != frameCaptureNanos) {
+            if (collecting && finishFrame()) {
+                // This frame was captured under the previous candidate.
+                return;
+            }
+            collecting = true;
+            frameCaptureNanos = captureTimeNanos;
+            currentCount = 0;
+            // Admitted before any processor published, so the count already includes this frame.
+            long delivered = framePolicy.getDeliveredFrames();
+            if (settleStartDelivered < 0) {
+                settleStartDelivered = delivered;
+            }
+            frameMeasured = delivered - settleStartDelivered >= config.settleFrames;
+        }
+        for (int slot = 0; slot < snapshot.size() && currentCount < MAX_TRACKED_TAGS; slot++) {
+            currentTags[currentCount++] = snapshot.getFamilyIndex(slot) << 16 | snapshot.getId(slot);
+        }
+    }
+
+    /**
+     * @return whether this frame completed the current candidate
+     */
+    private boolean finishFrame() {
+        if (frameMeasured) {
+            framesMeasured++;
+            if (currentCount > 0) {
+                framesWithTags++;
+            }
+            sightings += currentCount;
+            // Only count losses against a previous frame that was itself measured.
+            if (previousMeasured) {
+                for (int i = 0; i < previousCount; i++) {
+                    if (!contains(currentTags, currentCount, previousTags[i])) {
+                        losses++;
+                    }
+                }
+            }
+        }
+        System.arraycopy(currentTags, 0, previousTags, 0, currentCount);
+        previousCount = currentCount;
+        previousMeasured = frameMeasured;
+
+        if (framesMeasured >= config.measureFrames) {
+            finishCandidate();
+            return true;
+        }
+        return false;
+    }
+
+    private void finishCandidate() {
+        int current = candidate;
+        double detectionRate = (double) framesWithTags / framesMeasured;
+        double lossRate = sightings > 0 ? (double) losses / sightings : 0;
+        scores[current] = framesWithTags > 0 ? detectionRate - lossRate : Double.NaN;
+        if (!Double.isNaN(scores[current])
+                && (bestCandidate < 0 || scores[current] > scores[bestCandidate] + config.tieTolerance)) {
+            bestCandidate = current;
+        }
+
+        settleStartDelivered = -1;
+        collecting = false;
+        framesMeasured = 0;
+        framesWithTags = 0;
+        sightings = 0;
+        losses = 0;
+        previousCount = 0;
+        previousMeasured = false;
+
+        int next = current + 1;
+        if (next < scores.length) {
+            candidate = next;
+            request = scheduler.requestExposure(exposureOf(next), gainOf(next));
+        } else if (bestCandidate >= 0) {
+            scheduler.requestExposure(exposureOf(bestCandidate), gainOf(bestCandidate));
+            state = State.DONE;
+        } else {
+            scheduler.requestExposure(fallbackExposureMs, fallbackGain);
+            state = State.NO_TAGS;
+        }
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int exposureOf(int candidateIndex) {
+        return exposures[candidateIndex / gains.length];
+    }
+
+    private int gainOf(int candidateIndex) {
+        return gains[candidateIndex % gains.length];
+    }
+
+    @NonNull
+    public State getState() {
+        return state;
+    }
+
+    public boolean isDone() {
+        return state != State.RUNNING;
+    }
+
+    /**
+     * @return the number of candidates finished so far, out of {@link #getCandidateCount()}
+     */
+    public int getProgress() {
+        return state == State.RUNNING ? candidate : scores.length;
+    }
+
+    public int getCandidateCount() {
+        return scores.length;
+    }
+
+    /**
+     * @return the best exposure so far in milliseconds, or -1 while no candidate has seen a tag
+     */
+    public int getBestExposureMs() {
+        int best = bestCandidate;
+        return best >= 0 ? exposureOf(best) : -1;
+    }
+
+    /**
+     * @return the best gain so far, or -1 while no candidate has seen a tag
+     */
+    public int getBestGain() {
+        int best = bestCandidate;
+        return best >= 0 ? gainOf(best) : -1;
+    }
+
+    /**
+     * @return the best score so far, between -1 and 1, or {@link Double#NaN} while no candidate has seen a tag
+     */
+    public double getBestScore() {
+        int best = bestCandidate;
+        return best >= 0 ? scores[best] : Double.NaN;
+    }
+}
@@ -0,0 +1,313 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatOfPoint3f;
+
+/**
+ * Solves one robot pose on the field per frame from the corners of every visible tag that appears in a
+ * {@link FieldTagLayout}. All corners go into a single PnP solve, which is cheaper and steadier than
+ * solving each tag and averaging the results, and the reprojection error of that solve is reported as a
+ * quality score.
+ *
+ * <p>Frames: the field frame is whatever the layout uses (normally FTC's: z up). The robot frame has
+ * x forward, y left and z up. Poses are reported in meters and radians.</p>
+ *
+ * <p>Point sets are allocated once per visible-tag count and reused, so steady-state solves do not
+ * allocate. Instances are not thread-safe.</p>
+ */
+public class FieldLocalizer {
+
+    /**
+     * Where the camera sits on the robot. At zero yaw, pitch and roll the camera looks along the robot's
+     * +x axis with the image upright.
+     */
+    public static class CameraExtrinsics {
+        /** Lens position in the robot frame, meters. */
+        public final double x;
+        public final double y;
+        public final double z;
+        /** Rotation about robot z, positive turns the camera left. */
+        public final double yaw;
+        /** Positive tilts the camera up. */
+        public final double pitch;
+        /** Rotation about the optical axis, positive rolls the camera clockwise as seen from behind it. */
+        public final double roll;
+
+        public CameraExtrinsics(double x, double y, double z, double yaw, double pitch, double roll) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.roll = roll;
+        }
+    }
+
+    public static class Config {
+        public FieldTagLayout layout = new FieldTagLayout();
+        public CameraExtrinsics extrinsics = new CameraExtrinsics(0, 0, 0, 0, 0, 0);
+        /** Tags used per solve; further tags in the same frame are ignored. */
+        public int maxTags = 8;
+        /** Start the solve from the previous frame's pose when the previous frame solved. */
+        public boolean usePreviousPose = true;
+    }
+
+    /** Mutable result holder, reused across solves. */
+    public static class RobotPose {
+        public boolean valid;
+        /** Robot origin in the field frame, meters. */
+        public double x;
+        public double y;
+        public double z;
+        /** Robot yaw about field z; 0 means the robot faces field +x. Pitch and roll follow Z-Y-X order. */
+        public double heading;
+        public double pitch;
+        public double roll;
+        /** Root-mean-square reprojection error of all used corners, pixels. */
+        public double rmsErrorPx;
+        public int tagCount;
+        public long captureTimeNanos;
+        public long frameSequence;
+    }
+
+    private static final class PointSet {
+        final MatOfPoint3f object = new MatOfPoint3f();
+        final MatOfPoint2f image = new MatOfPoint2f();
+        final float[] objectBuffer;
+        final float[] imageBuffer;
+
+        PointSet(int tags) {
+            object.alloc(tags * 4);
+            image.alloc(tags * 4);
+            objectBuffer = new float[tags * 12];
+            imageBuffer = new float[tags * 8];
+        }
+
+        void release() {
+            object.release();
+            image.release();
+        }
+    }
+
+    private final Config config;
+    private final double fx;
+    private final double fy;
+    private final double cx;
+    private final double cy;
+    private final PointSet[] pointSets;
+    private final Mat cameraMatrix = new Mat(3, 3, CvType.CV_64FC1);
+    private final MatOfDouble distortion = new MatOfDouble(0, 0, 0, 0, 0);
+    private final Mat rvec = new Mat(3, 1, CvType.CV_64FC1);
+    private final Mat tvec = new Mat(3, 1, CvType.CV_64FC1);
+    private final Mat rotation = new Mat(3, 3, CvType.CV_64FC1);
+    private final double[] r = new double[9];
+    private final double[] t = new double[3];
+    /** Rotation from the camera's optical frame (x right, y down, z forward) into the robot frame. */
+    private final double[] robotFromCamera = new double[9];
+
+    private final @Nullable UndistortionTable undistortion;
+    private final double[] tagCorners = new double[8];
+    private boolean previousSolved;
+
+    public FieldLocalizer(@NonNull Config config, @NonNull AprilTagVisionProcessor.LensIntrinsics intrinsics) {
+        this(config, intrinsics, null);
+    }
+
+    /**
+     * @param undistortion undistorts the detected corners before the solve when non-null; the reprojection
+     *                     error is then measured in undistorted pixels
+     */
+    public FieldLocalizer(@NonNull Config config, @NonNull AprilTagVisionProcessor.LensIntrinsics intrinsics,
+                          @Nullable UndistortionTable undistortion) {
+        if (config.maxTags <= 0) {
+            throw new IllegalArgumentException("maxTags must be positive");
+        }
+        this.config = config;
+        this.fx = intrinsics.fx;
+        this.fy = intrinsics.fy;
+        this.cx = intrinsics.cx;
+        this.cy = intrinsics.cy;
+        this.pointSets = new PointSet[config.maxTags + 1];
+        this.undistortion = undistortion;
+        cameraMatrix.put(0, 0,
+                fx, 0, cx,
+                0, fy, cy,
+                0, 0, 1);
+        computeRobotFromCamera(config.extrinsics);
+    }
+
+    /**
+     * Solves the robot pose from every detection in {@code detections} whose tag is in the layout.
+     *
+     * @return {@code out.valid}; {@code false} when no layout tag is visible or the solve fails
+     */
+    public boolean solve(@NonNull DetectionView detections, @NonNull RobotPose out) {
+        out.valid = false;
+        out.captureTimeNanos = detections.getCaptureTimeNanos();
+        out.frameSequence = detections.getFrameSequence();
+
+        FieldTagLayout layout = config.layout;
+        int tags = 0;
+        for (int i = 0; i < detections.size() && tags < config.maxTags; i++) {
+            if (layout.contains(detections.getTagFamily(i), detections.getId(i))) {
+                tags++;
+            }
+        }
+        out.tagCount = tags;
+        if (tags == 0) {
+            previousSolved = false;
+            return false;
+        }
+
+        PointSet points = pointSets[tags];
+        if (points == null) {
+            points = new PointSet(tags);
+            pointSets[tags] = points;
+        }
+        int used = 0;
+        for (int i = 0; i < detections.size() && used < tags; i++) {
+            int id = detections.getId(i);
+            if (!layout.contains(detections.getTagFamily(i), id)) {
+                continue;
+            }
+            for (int c = 0; c < 4; c++) {
+                tagCorners[c * 2] = detections.getCornerX(i, c);
+                tagCorners[c * 2 + 1] = detections.getCornerY(i, c);
+            }
+            if (undistortion != null) {
+                undistortion.undistort(tagCorners, 0, tagCorners, 0, 4);
+            }
+            for (int c = 0; c < 4; c++) {
+                int corner = used * 4 + c;
+                points.objectBuffer[corner * 3] = (float) layout.getCorner(id, c, 0);
+                points.objectBuffer[corner * 3 + 1] = (float) layout.getCorner(id, c, 1);
+                points.objectBuffer[corner * 3 + 2] = (float) layout.getCorner(id, c, 2);
+                points.imageBuffer[corner * 2] = (float) tagCorners[c * 2];
+                points.imageBuffer[corner * 2 + 1] = (float) tagCorners[c * 2 + 1];
+            }
+            used++;
+        }
+        points.object.put(0, 0, points.objectBuffer);
+        points.image.put(0, 0, points.imageBuffer);
+
+        // A single tag is planar with a two-fold ambiguity that IPPE resolves; more tags refine iteratively.
+        boolean solved;
+        if (tags == 1) {
+            solved = Calib3d.solvePnP(points.object, points.image, cameraMatrix, distortion, rvec, tvec,
+                    false, Calib3d.SOLVEPNP_IPPE);
+        } else {
+            solved = Calib3d.solvePnP(points.object, points.image, cameraMatrix, distortion, rvec, tvec,
+                    config.usePreviousPose && previousSolved, Calib3d.SOLVEPNP_ITERATIVE);
+        }
+        previousSolved = solved;
+        if (!solved) {
+            return false;
+        }
+
+        Calib3d.Rodrigues(rvec, rotation);
+        rotation.get(0, 0, r);
+        tvec.get(0, 0, t);
+        out.rmsErrorPx = reprojectionRms(points, tags * 4);
+
+        // Camera pose in the field: rotation R^T, position -R^T t.
+        double camX = -(r[0] * t[0] + r[3] * t[1] + r[6] * t[2]);
+        double camY = -(r[1] * t[0] + r[4] * t[1] + r[7] * t[2]);
+        double camZ = -(r[2] * t[0] + r[5] * t[1] + r[8] * t[2]);
+
+        // fieldFromRobot = R^T * robotFromCamera^T; only the entries needed below are formed.
+        double[] m = robotFromCamera;
+        double f00 = r[0] * m[0] + r[3] * m[1] + r[6] * m[2];
+        double f01 = r[0] * m[3] + r[3] * m[4] + r[6] * m[5];
+        double f02 = r[0] * m[6] + r[3] * m[7] + r[6] * m[8];
+        double f10 = r[1] * m[0] + r[4] * m[1] + r[7] * m[2];
+        double f11 = r[1] * m[3] + r[4] * m[4] + r[7] * m[5];
+        double f12 = r[1] * m[6] + r[4] * m[7] + r[7] * m[8];
+        double f20 = r[2] * m[0] + r[5] * m[1] + r[8] * m[2];
+        double f21 = r[2] * m[3] + r[5] * m[4] + r[8] * m[5];
+        double f22 = r[2] * m[6] + r[5] * m[7] + r[8] * m[8];
+
+        CameraExtrinsics mount = config.extrinsics;
+        out.x = camX - (f00 * mount.x + f01 * mount.y + f02 * mount.z);
+        out.y = camY - (f10 * mount.x + f11 * mount.y + f12 * mount.z);
+        out.z = camZ - (f20 * mount.x + f21 * mount.y + f22 * mount.z);
+        out.heading = Math.atan2(f10, f00);
+        out.pitch = Math.asin(Math.max(-1.0, Math.min(1.0, -f20)));
+        out.roll = Math.atan2(f21, f22);
+        out.valid = true;
+        return true;
+    }
+
+    private double reprojectionRms(PointSet points, int cornerCount) {
+        float[] object = points.objectBuffer;
+        float[] image = points.imageBuffer;
+        double sum = 0;
+        for (int i = 0; i < cornerCount; i++) {
+            double X = object[i * 3];
+            double Y = object[i * 3 + 1];
+            double Z = object[i * 3 + 2];
+            double xc = r[0] * X + r[1] * Y + r[2] * Z + t[0];
+            double yc = r[3] * X + r[4] * Y + r[5] * Z + t[1];
+            double zc = r[6] * X + r[7] * Y + r[8] * Z + t[2];
+            double du = fx * xc / zc + cx - image[i * 2];
+            double dv = fy * yc / zc + cy - image[i * 2 + 1];
+            sum += du * du + dv * dv;
+        }
+        return Math.sqrt(sum / cornerCount);
+    }
+
+    /**
+     * robotFromCamera = Rz(yaw) * Ry(-pitch) * Rx(roll) * base, where base maps the optical axes onto the
+     * robot axes of an unrotated camera: z (forward) to x, x (right) to -y and y (down) to -z.
+     */
+    private void computeRobotFromCamera(CameraExtrinsics mount) {
+        double cyaw = Math.cos(mount.yaw);
+        double syaw = Math.sin(mount.yaw);
+        double cp = Math.cos(-mount.pitch);
+        double sp = Math.sin(-mount.pitch);
+        double cr = Math.cos(mount.roll);
+        double sr = Math.sin(mount.roll);
+
+        // Rz * Ry * Rx, row-major.
+        double a00 = cyaw * cp;
+        double a01 = cyaw * sp * sr - syaw * cr;
+        double a02 = cyaw * sp * cr + syaw * sr;
+        double a10 = syaw * cp;
+        double a11 = syaw * sp * sr + cyaw * cr;
+        double a12 = syaw * sp * cr - cyaw * sr;
+        double a20 = -sp;
+        double a21 = cp * sr;
+        double a22 = cp * cr;
+
+        // Columns of base are (0, -1, 0), (0, 0, -1) and (1, 0, 0).
+        double[] m = robotFromCamera;
+        m[0] = -a01;
+        m[1] = -a02;
+        m[2] = a00;
+        m[3] = -a11;
+        m[4] = -a12;
+        m[5] = a10;
+        m[6] = -a21;
+        m[7] = -a22;
+        m[8] = a20;
+    }
+
+    public void release() {
+        for (PointSet points : pointSets) {
+            if (points != null) {
+                points.release();
+            }
+        }
+        cameraMatrix.release();
+        distortion.release();
+        rvec.release();
+        tvec.release();
+        rotation.release();
+    }
+}
@@ -0,0 +1,237 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Field-frame poses of the AprilTags on a field, with the field-frame position of every tag corner
+ * precomputed so localization only does array reads.
+ *
+ * <p>Each tag has its own frame: looking at the printed face, x points right, y points up and z points out
+ * of the face towards the viewer. A tag's pose is its center position in the field frame plus the unit
+ * quaternion {@code (w, x, y, z)} that rotates tag-frame vectors into the field frame. All lengths are in
+ * meters once loaded.</p>
+ *
+ * <p>Two file formats are accepted:</p>
+ * <ul>
+ *     <li>JSON: {@code {"unit": "in", "tags": [{"id": 1, "size": 4.0, "family": "TAG_36h11",
+ *     "position": [x, y, z], "orientation": [w, x, y, z]}, ...]}}. {@code unit} ({@code m}, {@code cm},
+ *     {@code mm} or {@code in}) defaults to meters and {@code family} is optional.</li>
+ *     <li>CSV, one tag per line: {@code id,size,x,y,z,qw,qx,qy,qz} in meters. Blank lines and lines starting
+ *     with {@code #} or a non-numeric header are skipped.</li>
+ * </ul>
+ */
+public final class FieldTagLayout {
+
+    private static final int INITIAL_ID_SPACE = 64;
+
+    private boolean[] present = new boolean[INITIAL_ID_SPACE];
+    private String[] families = new String[INITIAL_ID_SPACE];
+    private double[] sizes = new double[INITIAL_ID_SPACE];
+    /** Twelve values per ID: corners 0-3 as {@code x, y, z} in the field frame. */
+    private double[] corners = new double[INITIAL_ID_SPACE * 12];
+    private int tagCount;
+
+    /**
+     * Loads a {@code .json} or {@code .csv} layout, chosen by file extension.
+     */
+    @NonNull
+    public static FieldTagLayout load(@NonNull File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.US);
+        if (name.endsWith(".json")) {
+            return fromJson(readAll(file));
+        }
+        if (name.endsWith(".csv")) {
+            return fromCsv(readAll(file));
+        }
+        throw new IOException("Unknown layout format: " + file);
+    }
+
+    @NonNull
+    public static FieldTagLayout fromJson(@NonNull String json) throws IOException {
+        FieldTagLayout layout = new FieldTagLayout();
+        try {
+            JSONObject root = new JSONObject(json);
+            double scale = metersPerUnit(root.optString("unit", "m"));
+            JSONArray tags = root.getJSONArray("tags");
+            for (int i = 0; i < tags.length(); i++) {
+                JSONObject tag = tags.getJSONObject(i);
+                JSONArray position = tag.getJSONArray("position");
+                JSONArray orientation = tag.getJSONArray("orientation");
+                layout.add(tag.getInt("id"),
+                        tag.has("family") ? tag.getString("family") : null,
+                        tag.getDouble("size") * scale,
+                        position.getDouble(0) * scale,
+                        position.getDouble(1) * scale,
+                        position.getDouble(2) * scale,
+                        orientation.getDouble(0),
+                        orientation.getDouble(1),
+                        orientation.getDouble(2),
+                        orientation.getDouble(3));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid layout JSON: " + e.getMessage(), e);
+        }
+        return layout;
+    }
+
+    @NonNull
+    public static FieldTagLayout fromCsv(@NonNull String csv) throws IOException {
+        FieldTagLayout layout = new FieldTagLayout();
+        String[] lines = csv.split("\r?\n");
+        for (int lineNumber = 0; lineNumber < lines.length; lineNumber++) {
+            String line = lines[lineNumber].trim();
+            if (line.isEmpty() || line.startsWith("#") || !startsWithDigit(line)) {
+                continue;
+            }
+            String[] fields = line.split("\\s*,\\s*");
+            if (fields.length != 9) {
+                throw new IOException("Line " + (lineNumber + 1) + ": expected 9 fields, found " + fields.length);
+            }
+            try {
+                layout.add(Integer.parseInt(fields[0]), null,
+                        Double.parseDouble(fields[1]),
+                        Double.parseDouble(fields[2]),
+                        Double.parseDouble(fields[3]),
+                        Double.parseDouble(fields[4]),
+                        Double.parseDouble(fields[5]),
+                        Double.parseDouble(fields[6]),
+                        Double.parseDouble(fields[7]),
+                        Double.parseDouble(fields[8]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + (lineNumber + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Adds or replaces a tag.
+     *
+     * @param family      tag family name such as {@code "TAG_36h11"}, or {@code null} to match any family
+     * @param sizeMeters  black-border edge length
+     */
+    public void add(int id, @Nullable String family, double sizeMeters,
+                    double x, double y, double z,
+                    double qw, double qx, double qy, double qz) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative tag id " + id);
+        }
+        double norm = Math.sqrt(qw * qw + qx * qx + qy * qy + qz * qz);
+        if (!(norm > 0) || !(sizeMeters > 0)) {
+            throw new IllegalArgumentException("Tag " + id + " needs a positive size and a non-zero quaternion");
+        }
+        ensureCapacity(id + 1);
+        qw /= norm;
+        qx /= norm;
+        qy /= norm;
+        qz /= norm;
+
+        // Rotation matrix of the quaternion; only the first two columns are needed because corners have z = 0.
+        double r00 = 1 - 2 * (qy * qy + qz * qz);
+        double r10 = 2 * (qx * qy + qw * qz);
+        double r20 = 2 * (qx * qz - qw * qy);
+        double r01 = 2 * (qx * qy - qw * qz);
+        double r11 = 1 - 2 * (qx * qx + qz * qz);
+        double r21 = 2 * (qy * qz + qw * qx);
+
+        double half = sizeMeters / 2;
+        int base = id * 12;
+        for (int c = 0; c < 4; c++) {
+            // Same corner order as TagPoseSolver and AprilTagDetection.corners: bottom-left, bottom-right,
+            // top-right, top-left as seen facing the tag. Their tag frame has y down, so v is negated here.
+            double u = (c == 0 || c == 3) ? -half : half;
+            double v = (c < 2) ? -half : half;
+            corners[base + c * 3] = x + r00 * u + r01 * v;
+            corners[base + c * 3 + 1] = y + r10 * u + r11 * v;
+            corners[base + c * 3 + 2] = z + r20 * u + r21 * v;
+        }
+        if (!present[id]) {
+            tagCount++;
+        }
+        present[id] = true;
+        families[id] = family;
+        sizes[id] = sizeMeters;
+    }
+
+    /**
+     * @return whether the layout places tag {@code id} of {@code tagFamily}
+     */
+    public boolean contains(@NonNull String tagFamily, int id) {
+        return id >= 0 && id < present.length && present[id]
+                && (families[id] == null || families[id].equals(tagFamily));
+    }
+
+    public int size() {
+        return tagCount;
+    }
+
+    public double getSizeMeters(int id) {
+        return sizes[id];
+    }
+
+    /**
+     * @param axis 0, 1 or 2 for the field x, y or z coordinate
+     */
+    public double getCorner(int id, int corner, int axis) {
+        return corners[id * 12 + corner * 3 + axis];
+    }
+
+    private void ensureCapacity(int ids) {
+        if (ids <= present.length) {
+            return;
+        }
+        int capacity = Math.max(ids, present.length * 2);
+        present = Arrays.copyOf(present, capacity);
+        families = Arrays.copyOf(families, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        corners = Arrays.copyOf(corners, capacity * 12);
+    }
+
+    private static double metersPerUnit(String unit) throws IOException {
+        switch (unit) {
+            case "m":
+                return 1.0;
+            case "cm":
+                return 0.01;
+            case "mm":
+                return 0.001;
+            case "in":
+                return 0.0254;
+            default:
+                throw new IOException("Unknown layout unit: " + unit);
+        }
+    }
+
+    private static boolean startsWithDigit(String line) {
+        char first = line.charAt(0);
+        return Character.isDigit(first);
+    }
+
+    private static String readAll(File file) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,274 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.CameraCalibration;
+import org.firstinspires.ftc.vision.VisionProcessor;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.CLAHE;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Contrast enhancement and downscaling stage registered ahead of the tag processors so it runs once per
+ * frame, however many processors follow. Work goes into pooled {@link Mat}s that are reused for every frame,
+ * and only outputs that are read are computed.
+ *
+ * <p>With {@link Config#feedDetectors} the attached {@link AprilTagVisionProcessor}s detect on a pooled
+ * frame prepared here instead of the camera frame. {@link Config#downscale} shrinks the colour frame first,
+ * and everything after runs at the smaller size; the processors map corners back to full-frame pixels and
+ * solve poses there. The SDK detectors only accept colour frames and convert to grey themselves, so an
+ * enhanced grey image cannot be handed to them as is: it is converted back to colour once. The camera frame,
+ * and with it the live view and recordings, is left untouched. Custom processors registered after this stage
+ * can read {@link #getGrey()} from their {@code processFrame}; it is computed on first read, at full
+ * resolution, and only valid on the vision thread until the next frame.</p>
+ *
+ * <p>Given the camera's {@link FramePolicy} and {@link FrameBudget}, the stage asks them about each frame
+ * before doing any work. They decide once per capture timestamp, so the stage and the tag processors skip
+ * the same frames, and the stage's time is charged to the budget like theirs.</p>
+ */
+public class FramePreprocessor implements VisionProcessor {
+
+    public enum Contrast {
+        NONE,
+        /** Stretch the grey levels to the full 0-255 range. Cheap; helps evenly dim frames. */
+        NORMALIZE,
+        /** Global histogram equalisation. */
+        EQUALIZE,
+        /** Contrast-limited adaptive equalisation; best for uneven low light, and the most expensive. */
+        CLAHE
+    }
+
+    public static class Config {
+        public Contrast contrast = Contrast.NONE;
+        /** CLAHE contrast limit; higher values amplify noise more. */
+        public double claheClipLimit = 2.0;
+        /** CLAHE tiles per image edge. */
+        public int claheTileGrid = 8;
+        /**
+         * Factor by which the frame the tag processors detect on is shrunk; 1 keeps full resolution. Poses are
+         * then solved from the rescaled corners, which needs lens intrinsics.
+         */
+        public double downscale = 1.0;
+        /** Have the tag processors detect on the enhanced and downscaled frame. */
+        public boolean feedDetectors = true;
+    }
+
+    private final Config config;
+    private final @Nullable PipelineMetrics metrics;
+    private final @Nullable FramePolicy framePolicy;
+    private final @Nullable FrameBudget frameBudget;
+    private final Mat grey = new Mat();
+    private final Mat enhanced = new Mat();
+    private final Mat scaled = new Mat();
+    private final Mat scaledGrey = new Mat();
+    private final Mat scaledEnhanced = new Mat();
+    private final Mat detectorFrame = new Mat();
+    private final Size scaledSize = new Size();
+    private @Nullable CLAHE clahe;
+
+    // Vision-thread state for the current frame.
+    private @Nullable Mat frame;
+    private long frameSequence;
+    private long captureTimeNanos;
+    private long greySequence;
+    private long detectorFrameSequence;
+
+    /**
+     * @param metrics receives the stage's processing time per frame when non-null
+     */
+    public FramePreprocessor(@NonNull Config config, @Nullable PipelineMetrics metrics) {
+        this(config, metrics, null, null);
+    }
+
+    /**
+     * @param framePolicy the policy shared with the camera's tag processors, or {@code null} to run on every
+     *                    frame
+     * @param frameBudget the budget shared with the camera's tag processors, or {@code null} for no budget
+     */
+    public FramePreprocessor(@NonNull Config config,
+                             @Nullable PipelineMetrics metrics,
+                             @Nullable FramePolicy framePolicy,
+                             @Nullable FrameBudget frameBudget) {
+        if (!(config.downscale >= 1)) {
+            throw new IllegalArgumentException("downscale must be at least 1");
+        }
+        this.config = config;
+        this.metrics = metrics;
+        this.framePolicy = framePolicy;
+        this.frameBudget = frameBudget;
+    }
+
+    /**
+     * @return whether a stage with {@code config} would change what the tag processors or custom processors
+     *         see; a stage that would not is not worth registering
+     */
+    static boolean hasWork(@NonNull Config config) {
+        return config.contrast != Contrast.NONE || (config.feedDetectors && config.downscale > 1);
+    }
+
+    @Override
+    public void init(int width, int height, CameraCalibration calibration) {
+        scaledSize.width = Math.max(1, Math.round(width / config.downscale));
+        scaledSize.height = Math.max(1, Math.round(height / config.downscale));
+        if (config.contrast == Contrast.CLAHE && clahe == null) {
+            clahe = Imgproc.createCLAHE(config.claheClipLimit,
+                    new Size(config.claheTileGrid, config.claheTileGrid));
+        }
+    }
+
+    @Override
+    public Object processFrame(Mat frame, long captureTimeNanos) {
+        this.frame = frame;
+        this.captureTimeNanos = captureTimeNanos;
+        frameSequence++;
+        if (config.feedDetectors && hasWork(config) && admit(captureTimeNanos)) {
+            prepareDetectorFrame();
+        }
+        return null;
+    }
+
+    /** Same checks, in the same order, as the tag processors make for this frame. */
+    private boolean admit(long captureTimeNanos) {
+        long nowNanos = System.nanoTime();
+        if (framePolicy != null && !framePolicy.admit(captureTimeNanos, nowNanos)) {
+            return false;
+        }
+        return frameBudget == null || frameBudget.admit(captureTimeNanos, nowNanos);
+    }
+
+    /**
+     * @return the frame the tag processors should detect on for the frame captured at
+     *         {@code captureTimeNanos}: the one this stage prepared, otherwise {@code frame}. A prepared frame
+     *         may be smaller than {@code frame}; callers scale its coordinates by the size ratio.
+     */
+    @NonNull
+    Mat detectorInput(@NonNull Mat frame, long captureTimeNanos) {
+        boolean prepared = detectorFrameSequence == frameSequence && frameSequence != 0
+                && this.captureTimeNanos == captureTimeNanos;
+        if (!prepared) {
+            return frame;
+        }
+        return isScaling() && config.contrast == Contrast.NONE ? scaled : detectorFrame;
+    }
+
+    /**
+     * @return whether the tag processors are handed frames smaller than the camera's
+     */
+    boolean isScaling() {
+        return config.feedDetectors && config.downscale > 1;
+    }
+
+    private void prepareDetectorFrame() {
+        long startNanos = System.nanoTime();
+        if (isScaling()) {
+            // Shrink first so the grey conversion and enhancement only touch the smaller frame.
+            Imgproc.resize(frame, scaled, scaledSize, 0, 0, Imgproc.INTER_AREA);
+            if (config.contrast != Contrast.NONE) {
+                Imgproc.cvtColor(scaled, scaledGrey, Imgproc.COLOR_RGBA2GRAY);
+                enhance(scaledGrey, scaledEnhanced);
+                Imgproc.cvtColor(scaledEnhanced, detectorFrame, Imgproc.COLOR_GRAY2RGBA);
+            }
+        } else {
+            prepareGrey();
+            Imgproc.cvtColor(enhanced, detectorFrame, Imgproc.COLOR_GRAY2RGBA);
+        }
+        detectorFrameSequence = frameSequence;
+        long endNanos = System.nanoTime();
+        if (metrics != null) {
+            metrics.recordPreprocess(startNanos, endNanos);
+        }
+        if (frameBudget != null) {
+            frameBudget.record(startNanos, endNanos);
+        }
+    }
+
+    /** Converts and enhances the current frame into {@link #enhanced} unless already done. */
+    private void prepareGrey() {
+        if (greySequence == frameSequence) {
+            return;
+        }
+        greySequence = frameSequence;
+        Mat target = config.contrast == Contrast.NONE ? enhanced : grey;
+        Imgproc.cvtColor(frame, target, Imgproc.COLOR_RGBA2GRAY);
+        enhance(grey, enhanced);
+    }
+
+    /** Applies the configured enhancement; with {@link Contrast#NONE} {@code dst} is left as it is. */
+    private void enhance(Mat src, Mat dst) {
+        switch (config.contrast) {
+            case NORMALIZE:
+                Core.normalize(src, dst, 0, 255, Core.NORM_MINMAX);
+                break;
+            case EQUALIZE:
+                Imgproc.equalizeHist(src, dst);
+                break;
+            case CLAHE:
+                if (clahe != null) {
+                    clahe.apply(src, dst);
+                } else {
+                    src.copyTo(dst);
+                }
+                break;
+            case NONE:
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void onDrawFrame(Canvas canvas,
+                            int onscreenWidth,
+                            int onscreenHeight,
+                            float scaleBmpPxToCanvasPx,
+                            float scaleCanvasDensity,
+                            Object userContext) {
+        // Nothing to draw.
+    }
+
+    /**
+     * Must be called from a processor's {@code processFrame} on the vision thread, after this stage has seen
+     * the frame.
+     *
+     * @return the grey image of the current frame, after contrast enhancement
+     */
+    @NonNull
+    public Mat getGrey() {
+        if (frame == null) {
+            throw new IllegalStateException("No frame has been processed yet");
+        }
+        if (greySequence != frameSequence) {
+            long startNanos = System.nanoTime();
+            prepareGrey();
+            if (metrics != null) {
+                metrics.recordPreprocess(startNanos, System.nanoTime());
+            }
+        }
+        return enhanced;
+    }
+
+    public long getFrameSequence() {
+        return frameSequence;
+    }
+
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    /**
+     * Releases the pooled Mats. The stage must not receive further frames afterwards.
+     */
+    public void release() {
+        frame = null;
+        grey.release();
+        enhanced.release();
+        scaled.release();
+        scaledGrey.release();
+        scaledEnhanced.release();
+        detectorFrame.release();
+    }
+}
@@ -0,0 +1,144 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+
+/**
+ * Drives an {@link AprilTagVisionProcessor} from a {@link FrameSource} instead of a camera, so decimation,
+ * family and ROI settings can be tuned against recorded footage. Frames are passed to
+ * {@code processFrame} with their original capture times, except in {@link Mode#REALTIME}: there each
+ * capture time is moved onto the wall clock at the frame's due time, so a {@link FramePolicy.Mode#SKIP_STALE}
+ * policy sees how far the replay lags behind its schedule. The other modes have no schedule, so that
+ * policy is rejected for them; every recorded capture time lies in the past and it would drop every frame.
+ *
+ * <p>The replayer initialises the processor with the source's frame size and no camera calibration (set
+ * {@link AprilTagVisionProcessor.Config#lensIntrinsics} for accurate poses), and installs itself as the
+ * processor's publish listener to count detections. Not thread-safe; call it from one thread.</p>
+ */
+public class FrameReplayer {
+
+    public enum Mode {
+        /** Frames are paced by their recorded capture times, scaled by {@link Config#speed}. */
+        REALTIME,
+        /** Frames are processed back to back. */
+        AS_FAST_AS_POSSIBLE,
+        /** One frame per {@link #step()} call; {@link #run()} is not available. */
+        STEP
+    }
+
+    public static class Config {
+        public Mode mode = Mode.AS_FAST_AS_POSSIBLE;
+        /** Playback speed multiplier for {@link Mode#REALTIME}. */
+        public double speed = 1.0;
+    }
+
+    private final FrameSource source;
+    private final AprilTagVisionProcessor processor;
+    private final Config config;
+    private final Mat frame = new Mat();
+    private final ReplayReport report;
+
+    private boolean started;
+    private long firstCaptureNanos;
+    private long wallStartNanos;
+
+    public FrameReplayer(@NonNull FrameSource source,
+                         @NonNull AprilTagVisionProcessor processor,
+                         @NonNull Config config) {
+        if (config.mode == Mode.REALTIME && !(config.speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        if (config.mode != Mode.REALTIME && processor.getFramePolicy().getMode() == FramePolicy.Mode.SKIP_STALE) {
+            throw new IllegalArgumentException("SKIP_STALE needs REALTIME replay");
+        }
+        this.source = source;
+        this.processor = processor;
+        this.config = config;
+        this.report = new ReplayReport(processor.getMetrics());
+        processor.init(source.getWidth(), source.getHeight(), null);
+        processor.setPublishListener(report::onDetections);
+    }
+
+    /**
+     * Processes the next frame, first waiting for its due time in {@link Mode#REALTIME}.
+     *
+     * @return {@code false} once the source is exhausted
+     */
+    public boolean step() throws IOException, InterruptedException {
+        if (!source.read(frame)) {
+            report.finish(System.nanoTime());
+            return false;
+        }
+        long captureNanos = source.getCaptureTimeNanos();
+        if (!started) {
+            started = true;
+            firstCaptureNanos = captureNanos;
+            wallStartNanos = System.nanoTime();
+            report.start(wallStartNanos);
+        }
+        if (config.mode == Mode.REALTIME) {
+            long due = wallStartNanos + (long) ((captureNanos - firstCaptureNanos) / config.speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000L, (int) (wait % 1_000_000L));
+            }
+            captureNanos = due;
+        }
+
+        long published = report.getFrames();
+        long startNanos = System.nanoTime();
+        processor.processFrame(frame, captureNanos);
+        report.recordFrame(startNanos, System.nanoTime(), report.getFrames() != published);
+        return true;
+    }
+
+    /**
+     * Replays every remaining frame.
+     *
+     * @throws IllegalStateException in {@link Mode#STEP}
+     */
+    @NonNull
+    public ReplayReport run() throws IOException, InterruptedException {
+        if (config.mode == Mode.STEP) {
+            throw new IllegalStateException("Call step() in STEP mode");
+        }
+        while (step()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * @return the report so far; it is final once {@link #step()} has returned {@code false}
+     */
+    @NonNull
+    public ReplayReport getReport() {
+        return report;
+    }
+
+    /**
+     * Starts the source over and clears the report and the processor's latency metrics.
+     */
+    public void rewind() throws IOException {
+        source.rewind();
+        started = false;
+        report.reset();
+        PipelineMetrics metrics = processor.getMetrics();
+        if (metrics != null) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Releases the frame buffer and detaches from the processor. The source and processor stay open.
+     */
+    public void close() {
+        processor.setPublishListener(null);
+        frame.release();
+    }
+}
@@ -0,0 +1,39 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.Mat;
+
+import java.io.IOException;
+
+/**
+ * Sequence of recorded frames that can be fed to a {@code VisionProcessor} without a camera. Frames are
+ * delivered as RGBA, like the frames {@code VisionPortal} hands to processors.
+ */
+public interface FrameSource extends AutoCloseable {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Reads the next frame into {@code frame}, reallocating it only if its size or type differs.
+     *
+     * @return {@code false} when the source is exhausted; {@code frame} is then left unchanged
+     */
+    boolean read(@NonNull Mat frame) throws IOException;
+
+    /**
+     * @return {@link System#nanoTime()} at which the frame last returned by {@link #read} was originally
+     *         captured
+     */
+    long getCaptureTimeNanos();
+
+    /**
+     * Starts again from the first frame.
+     */
+    void rewind() throws IOException;
+
+    @Override
+    void close();
+}
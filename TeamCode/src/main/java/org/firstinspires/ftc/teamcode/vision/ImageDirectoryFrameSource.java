@@ -0,0 +1,129 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Replays the PNG/JPEG images of a directory in file-name order.
+ *
+ * <p>Capture times are taken from the file names when every base name ends in an increasing
+ * {@link System#nanoTime()} value of at least ten digits, e.g. {@code frame_000042_183920558120311.png};
+ * otherwise frames are spaced {@code frameIntervalNanos} apart starting at zero.</p>
+ */
+public class ImageDirectoryFrameSource implements FrameSource {
+
+    private final File[] files;
+    private final long[] captureTimes;
+    private final int width;
+    private final int height;
+
+    private int next;
+    private long captureTimeNanos;
+
+    public ImageDirectoryFrameSource(@NonNull File directory, long frameIntervalNanos) throws IOException {
+        File[] listed = directory.listFiles((dir, name) -> isImage(name));
+        if (listed == null || listed.length == 0) {
+            throw new IOException("No images in " + directory);
+        }
+        Arrays.sort(listed);
+        files = listed;
+        captureTimes = new long[files.length];
+        boolean named = true;
+        for (int i = 0; i < files.length && named; i++) {
+            captureTimes[i] = trailingNumber(files[i].getName());
+            named = captureTimes[i] >= 0 && (i == 0 || captureTimes[i] > captureTimes[i - 1]);
+        }
+        if (!named) {
+            for (int i = 0; i < files.length; i++) {
+                captureTimes[i] = i * frameIntervalNanos;
+            }
+        }
+
+        Mat first = decode(files[0]);
+        width = first.cols();
+        height = first.rows();
+        first.release();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean read(@NonNull Mat frame) throws IOException {
+        if (next == files.length) {
+            return false;
+        }
+        File file = files[next];
+        Mat bgr = decode(file);
+        try {
+            if (bgr.cols() != width || bgr.rows() != height) {
+                throw new IOException(file + " is " + bgr.cols() + "x" + bgr.rows()
+                        + ", expected " + width + "x" + height);
+            }
+            Imgproc.cvtColor(bgr, frame, Imgproc.COLOR_BGR2RGBA);
+        } finally {
+            bgr.release();
+        }
+        captureTimeNanos = captureTimes[next];
+        next++;
+        return true;
+    }
+
+    @Override
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    @Override
+    public void rewind() {
+        next = 0;
+    }
+
+    @Override
+    public void close() {
+        next = files.length;
+    }
+
+    private static Mat decode(File file) throws IOException {
+        Mat image = Imgcodecs.imread(file.getAbsolutePath());
+        if (image == null || image.empty()) {
+            throw new IOException("Cannot decode " + file);
+        }
+        return image;
+    }
+
+    private static boolean isImage(String name) {
+        String lower = name.toLowerCase(Locale.US);
+        return lower.endsWith(".png") || lower.endsWith(".jpg") || lower.endsWith(".jpeg");
+    }
+
+    /**
+     * @return the timestamp-sized decimal number at the end of the base name, or -1 if there is none
+     */
+    private static long trailingNumber(String name) {
+        int end = name.lastIndexOf('.');
+        int start = end;
+        while (start > 0 && Character.isDigit(name.charAt(start - 1))) {
+            start--;
+        }
+        if (end - start < 10 || end - start > 18) {
+            return -1;
+        }
+        return Long.parseLong(name.substring(start, end));
+    }
+}
@@ -0,0 +1,164 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.vision.VisionPortal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several cameras at once, each through its own {@link AprilTagVisionManager} with its own portal,
+ * processors, decimation, intrinsics and {@link FrameBudget}. The SDK drives every portal on its own
+ * thread, so the pipelines run concurrently; {@link #getMergedView()} combines their latest detections.
+ */
+public class MultiCameraVisionManager {
+
+    public static class Config {
+        /** One entry per camera; the list order is the camera index reported by the merged view. */
+        public List<AprilTagVisionManager.Config> cameras = new ArrayList<>();
+        /** Frames more than this far behind the newest camera's frame are left out of the merge. */
+        public double maxSkewMs = 100.0;
+        /** Keep only the closest sighting of a tag seen by several cameras. */
+        public boolean deduplicate = true;
+        /**
+         * Split of the live view between cameras that enable it. Cameras with a non-zero
+         * {@code liveViewContainerId} keep their own container.
+         */
+        public VisionPortal.MultiPortalLayout liveViewLayout = VisionPortal.MultiPortalLayout.VERTICAL;
+    }
+
+    private final Config config;
+    private final AprilTagVisionManager[] cameras;
+    private final DetectionView[] cameraViews;
+    private final MergedDetectionView mergedView;
+    private final long maxSkewNanos;
+
+    private final FrameSignal frames = new FrameSignal();
+
+    /**
+     * Opens every configured camera. When live view is enabled for more than one camera, the live view is
+     * split and the containers are written to each such camera's {@code liveViewContainerId}.
+     *
+     * @throws IllegalArgumentException when no camera is configured
+     */
+    public MultiCameraVisionManager(@NonNull HardwareMap hardwareMap,
+                                    @NonNull Telemetry telemetry,
+                                    @NonNull Config config) {
+        if (config.cameras.isEmpty()) {
+            throw new IllegalArgumentException("At least one camera must be configured");
+        }
+        this.config = config;
+        this.maxSkewNanos = (long) (config.maxSkewMs * 1e6);
+        assignLiveViewContainers(config);
+
+        int count = config.cameras.size();
+        cameras = new AprilTagVisionManager[count];
+        cameraViews = new DetectionView[count];
+        String[] names = new String[count];
+        int capacity = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                AprilTagVisionManager.Config cameraConfig = config.cameras.get(i);
+                cameras[i] = new AprilTagVisionManager(hardwareMap, telemetry, cameraConfig);
+                cameras[i].setFrameCompletedCallback(this::onCameraFrame);
+                names[i] = cameras[i].getCameraName();
+                capacity += cameraConfig.maxDetections;
+            }
+        } catch (RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+        mergedView = new MergedDetectionView(names, capacity);
+    }
+
+    private static void assignLiveViewContainers(Config config) {
+        int liveCameras = 0;
+        for (AprilTagVisionManager.Config camera : config.cameras) {
+            if (camera.enableLiveView && camera.liveViewContainerId == 0) {
+                liveCameras++;
+            }
+        }
+        if (liveCameras < 2) {
+            return;
+        }
+        int[] containers = VisionPortal.makeMultiPortalView(liveCameras, config.liveViewLayout);
+        int next = 0;
+        for (AprilTagVisionManager.Config camera : config.cameras) {
+            if (camera.enableLiveView && camera.liveViewContainerId == 0) {
+                camera.liveViewContainerId = containers[next++];
+            }
+        }
+    }
+
+    /** Runs on whichever camera's vision thread completed a frame. */
+    private void onCameraFrame() {
+        frames.signal();
+    }
+
+    /**
+     * Rebinds and returns the reusable merged view over every camera's newest frame. Does not allocate once
+     * the view has grown to the largest detection count seen. Valid until the next call; call from one thread.
+     */
+    @NonNull
+    public MergedDetectionView getMergedView() {
+        for (int i = 0; i < cameras.length; i++) {
+            cameraViews[i] = cameras[i].getDetectionView();
+        }
+        mergedView.merge(cameraViews, maxSkewNanos, config.deduplicate);
+        return mergedView;
+    }
+
+    /**
+     * @return frames completed so far across all cameras; increases by one per frame of any camera
+     */
+    public long getFrameSequence() {
+        return frames.get();
+    }
+
+    /**
+     * Blocks until any camera has completed a frame after {@code lastSequence} or the timeout expires.
+     *
+     * @return the current frame sequence; equal to {@code lastSequence} if the wait timed out
+     */
+    public long awaitNextFrame(long lastSequence, long timeoutMs) throws InterruptedException {
+        return frames.await(lastSequence, timeoutMs);
+    }
+
+    public int getCameraCount() {
+        return cameras.length;
+    }
+
+    /**
+     * @return the manager of camera {@code index}, for per-camera detections, metrics, FPS and budgets
+     */
+    @NonNull
+    public AprilTagVisionManager getCamera(int index) {
+        return cameras[index];
+    }
+
+    public void startStreaming() {
+        for (AprilTagVisionManager camera : cameras) {
+            camera.startStreaming();
+        }
+    }
+
+    public void stopStreaming() {
+        for (AprilTagVisionManager camera : cameras) {
+            camera.stopStreaming();
+        }
+    }
+
+    public void shutdown() {
+        for (AprilTagVisionManager camera : cameras) {
+            if (camera != null) {
+                camera.setFrameCompletedCallback(null);
+                camera.shutdown();
+            }
+        }
+        frames.wakeAll();
+    }
+}
@@ -0,0 +1,182 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves the poses of one frame's tags in parallel: the calling thread and a fixed set of worker threads
+ * each own a {@link TagPoseSolver} and take every n-th tag. With 4-8 tags in view near the backdrop this
+ * spreads the solves over the hub's idle cores instead of running them one after another on the vision
+ * thread.
+ *
+ * <p>Workers are handed the corners with semaphores, as the per-family detector threads are, so a frame
+ * allocates nothing. With no workers, or a single tag, everything is solved on the calling thread.
+ * {@link #solveAll} and {@link #release} are mutually exclusive, so the pool can be released from another
+ * thread while frames are still being solved; solves after that report every tag as unsolved.</p>
+ */
+final class PoseSolverPool {
+
+    /** How often a wait for a worker checks that the worker is still running. */
+    private static final long WORKER_POLL_MS = 100;
+
+    private final TagPoseSolver callerSolver;
+    private final Worker[] workers;
+    private final TagPoseSolver.Pose[] poses;
+    private final boolean[] solved;
+
+    // Inputs of the frame being solved, published to the workers by the semaphore release.
+    private double[] corners;
+    private double[] tagSizes;
+    private int count;
+    private int lanes;
+    private boolean released;
+
+    PoseSolverPool(@NonNull AprilTagVisionProcessor.LensIntrinsics intrinsics, int workerThreads, int capacity) {
+        callerSolver = newSolver(intrinsics);
+        poses = new TagPoseSolver.Pose[capacity];
+        for (int i = 0; i < capacity; i++) {
+            poses[i] = new TagPoseSolver.Pose();
+        }
+        solved = new boolean[capacity];
+        workers = new Worker[Math.max(0, workerThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(newSolver(intrinsics), i + 1);
+            workers[i].start();
+        }
+    }
+
+    private static TagPoseSolver newSolver(AprilTagVisionProcessor.LensIntrinsics intrinsics) {
+        return new TagPoseSolver(intrinsics.fx, intrinsics.fy, intrinsics.cx, intrinsics.cy);
+    }
+
+    /**
+     * Solves tags {@code 0..count-1} and returns once all are done; read the results with
+     * {@link #isSolved} and {@link #getPose}. After {@link #release} every tag is reported unsolved.
+     *
+     * @param corners  eight corner values per tag, as in {@link DetectionSnapshot}
+     * @param tagSizes edge length in meters per tag
+     */
+    synchronized void solveAll(@NonNull double[] corners, @NonNull double[] tagSizes, int count) {
+        if (released) {
+            for (int i = 0; i < count; i++) {
+                solved[i] = false;
+            }
+            return;
+        }
+        this.corners = corners;
+        this.tagSizes = tagSizes;
+        this.count = count;
+        lanes = Math.min(workers.length + 1, count);
+        for (int w = 0; w < lanes - 1; w++) {
+            workers[w].frameReady.release();
+        }
+        solveLane(callerSolver, 0);
+        for (int w = 0; w < lanes - 1; w++) {
+            workers[w].awaitResult();
+        }
+        this.corners = null;
+        this.tagSizes = null;
+    }
+
+    private void solveLane(TagPoseSolver solver, int lane) {
+        for (int i = lane; i < count; i += lanes) {
+            solved[i] = false;
+            try {
+                solved[i] = solver.solve(corners, i * 8, tagSizes[i], poses[i]);
+            } catch (RuntimeException e) {
+                // An OpenCV failure on one tag leaves it without a pose; the others still count.
+            }
+        }
+    }
+
+    boolean isSolved(int index) {
+        return solved[index];
+    }
+
+    @NonNull
+    TagPoseSolver.Pose getPose(int index) {
+        return poses[index];
+    }
+
+    /**
+     * Stops the workers and releases the solvers, waiting for a {@link #solveAll} in progress to finish first.
+     */
+    synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
+        callerSolver.release();
+    }
+
+    /** Runs one lane of every frame; releases its solver when interrupted. */
+    private final class Worker extends Thread {
+        private final TagPoseSolver solver;
+        private final int lane;
+        private final Semaphore frameReady = new Semaphore(0);
+        private final Semaphore resultReady = new Semaphore(0);
+
+        Worker(TagPoseSolver solver, int lane) {
+            super("AprilTag-pose-" + lane);
+            this.solver = solver;
+            this.lane = lane;
+            setDaemon(true);
+        }
+
+        /**
+         * Waits for the lane handed out by {@link #solveAll}. Returns early, leaving the lane's tags unsolved,
+         * if the worker died; waiting without a timeout would then block the vision thread forever.
+         */
+        void awaitResult() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        if (resultReady.tryAcquire(WORKER_POLL_MS, TimeUnit.MILLISECONDS)) {
+                            return;
+                        }
+                    } catch (InterruptedException e) {
+                        // Keep waiting: the worker may still be writing poses this frame reads.
+                        interrupted = true;
+                        continue;
+                    }
+                    if (!isAlive() && !resultReady.tryAcquire()) {
+                        for (int i = lane; i < count; i += lanes) {
+                            solved[i] = false;
+                        }
+                        return;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    try {
+                        frameReady.acquire();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    try {
+                        solveLane(solver, lane);
+                    } finally {
+                        resultReady.release();
+                    }
+                }
+            } finally {
+                solver.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Layout of the raw frame files written by {@link RawFrameWriter} and read by {@link RawFrameFileSource}.
+ * All values are big-endian.
+ *
+ * <pre>
+ * header: int magic, int version, int width, int height, int openCvType
+ * frame:  long captureTimeNanos, then width * height * elemSize bytes of pixel data
+ * </pre>
+ */
+final class RawFrameFile {
+
+    static final int MAGIC = 0x4146524D; // "AFRM"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    private RawFrameFile() {
+    }
+}
@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Replays a raw frame file (see {@link RawFrameFile}) with the capture times it was recorded with. Pixel
+ * data is read into one reused buffer, so replay does not allocate per frame.
+ */
+public class RawFrameFileSource implements FrameSource {
+
+    private final File file;
+    private final int width;
+    private final int height;
+    private final int type;
+    private final byte[] pixels;
+
+    private DataInputStream in;
+    private long captureTimeNanos;
+
+    public RawFrameFileSource(@NonNull File file) throws IOException {
+        this.file = file;
+        this.in = open(file);
+        try {
+            if (in.readInt() != RawFrameFile.MAGIC) {
+                throw new IOException(file + " is not a raw frame file");
+            }
+            int version = in.readInt();
+            if (version != RawFrameFile.VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+            width = in.readInt();
+            height = in.readInt();
+            type = in.readInt();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        if (type != CvType.CV_8UC4) {
+            in.close();
+            throw new IOException(file + " holds OpenCV type " + type + "; only RGBA frames can be replayed");
+        }
+        pixels = new byte[width * height * 4];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean read(@NonNull Mat frame) throws IOException {
+        if (in == null) {
+            return false;
+        }
+        long timestamp;
+        try {
+            timestamp = in.readLong();
+            in.readFully(pixels);
+        } catch (EOFException e) {
+            // A truncated last frame (recording cut off) is treated as the end of the file.
+            return false;
+        }
+        if (frame.rows() != height || frame.cols() != width || frame.type() != type) {
+            frame.create(height, width, type);
+        }
+        frame.put(0, 0, pixels);
+        captureTimeNanos = timestamp;
+        return true;
+    }
+
+    @Override
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    @Override
+    public void rewind() throws IOException {
+        close();
+        in = open(file);
+        in.skipBytes(RawFrameFile.HEADER_BYTES);
+    }
+
+    @Override
+    public void close() {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // Read-only stream; nothing to recover.
+        }
+        in = null;
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+    }
+}
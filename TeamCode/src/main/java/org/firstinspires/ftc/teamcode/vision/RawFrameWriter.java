@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Appends RGBA frames to a raw frame file (see {@link RawFrameFile}) on the calling thread. Useful for
+ * converting footage into replayable files; it is too slow to call from a live {@code processFrame}.
+ */
+public class RawFrameWriter implements AutoCloseable {
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final byte[] pixels;
+
+    public RawFrameWriter(@NonNull File file, int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.pixels = new byte[width * height * 4];
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        out.writeInt(RawFrameFile.MAGIC);
+        out.writeInt(RawFrameFile.VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(CvType.CV_8UC4);
+    }
+
+    public void write(@NonNull Mat rgbaFrame, long captureTimeNanos) throws IOException {
+        if (rgbaFrame.cols() != width || rgbaFrame.rows() != height || rgbaFrame.type() != CvType.CV_8UC4) {
+            throw new IllegalArgumentException("Expected a " + width + "x" + height + " RGBA frame");
+        }
+        rgbaFrame.get(0, 0, pixels);
+        out.writeLong(captureTimeNanos);
+        out.write(pixels);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
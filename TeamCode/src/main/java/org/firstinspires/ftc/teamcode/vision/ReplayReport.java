@@ -0,0 +1,174 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput and latency of a {@link FrameReplayer} run. Frames are counted when the processor publishes
+ * them, so frames its frame policy or budget drops are only counted as delivered. The {@code processFrame}
+ * histogram is measured by the replayer over published frames; the per-stage histograms come from the
+ * processor's {@link PipelineMetrics} when it has them. Capture-relative stages are omitted because recorded
+ * capture times lie in the past.
+ */
+public class ReplayReport {
+
+    private final LatencyHistogram processFrame = new LatencyHistogram("processFrame");
+    private final @Nullable PipelineMetrics stages;
+
+    private long deliveredFrames;
+    private long frames;
+    private long lastSequence = -1;
+    private long framesWithDetections;
+    private long detections;
+    private long overflow;
+    private long busyNanos;
+    private long startNanos;
+    private long endNanos;
+
+    ReplayReport(@Nullable PipelineMetrics stages) {
+        this.stages = stages;
+    }
+
+    void start(long nowNanos) {
+        startNanos = nowNanos;
+        endNanos = nowNanos;
+    }
+
+    /**
+     * Records one {@code processFrame} call; {@code published} when the processor published the frame.
+     */
+    void recordFrame(long startNanos, long endNanos, boolean published) {
+        deliveredFrames++;
+        busyNanos += endNanos - startNanos;
+        if (published) {
+            processFrame.recordNanos(endNanos - startNanos);
+        }
+        this.endNanos = endNanos;
+    }
+
+    void onDetections(@NonNull DetectionSnapshot snapshot) {
+        if (snapshot.getFrameSequence() == lastSequence) {
+            return;
+        }
+        lastSequence = snapshot.getFrameSequence();
+        frames++;
+        if (snapshot.size() > 0) {
+            framesWithDetections++;
+        }
+        detections += snapshot.size();
+        overflow += snapshot.getOverflow();
+    }
+
+    void finish(long nowNanos) {
+        if (deliveredFrames > 0) {
+            endNanos = Math.max(endNanos, nowNanos);
+        }
+    }
+
+    void reset() {
+        processFrame.reset();
+        deliveredFrames = 0;
+        frames = 0;
+        lastSequence = -1;
+        framesWithDetections = 0;
+        detections = 0;
+        overflow = 0;
+        busyNanos = 0;
+        startNanos = 0;
+        endNanos = 0;
+    }
+
+    /**
+     * @return frames the processor published
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return frames handed to {@code processFrame}, including those the processor dropped
+     */
+    public long getDeliveredFrames() {
+        return deliveredFrames;
+    }
+
+    public long getFramesWithDetections() {
+        return framesWithDetections;
+    }
+
+    public long getDetections() {
+        return detections;
+    }
+
+    /**
+     * @return detections dropped because a snapshot was full
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+    public double getElapsedSeconds() {
+        return (endNanos - startNanos) / 1e9;
+    }
+
+    /**
+     * @return frames per wall-clock second, including any real-time pacing
+     */
+    public double getFps() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? frames / seconds : 0.0;
+    }
+
+    /**
+     * @return frames per second of time spent inside {@code processFrame}, i.e. the pipeline's capacity
+     */
+    public double getProcessingFps() {
+        return busyNanos > 0 ? frames / (busyNanos / 1e9) : 0.0;
+    }
+
+    @NonNull
+    public LatencyHistogram getProcessFrameLatency() {
+        return processFrame;
+    }
+
+    /**
+     * @return one line per figure, formatted for telemetry or a log
+     */
+    @NonNull
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder(96);
+        line.append("frames=").append(frames).append('/').append(deliveredFrames)
+                .append(" withTags=").append(framesWithDetections)
+                .append(" tags=").append(detections)
+                .append(" overflow=").append(overflow);
+        lines.add(line.toString());
+
+        line.setLength(0);
+        line.append("fps=");
+        DetectionTextFormatter.appendFixed(line, getFps(), 1);
+        line.append(" capacity=");
+        DetectionTextFormatter.appendFixed(line, getProcessingFps(), 1);
+        line.append(" fps elapsed=");
+        DetectionTextFormatter.appendFixed(line, getElapsedSeconds(), 1);
+        line.append(" s");
+        lines.add(line.toString());
+
+        DetectionTextFormatter formatter = new DetectionTextFormatter(DetectionTextFormatter.Layout.COMPACT);
+        line.setLength(0);
+        formatter.appendLatency(processFrame, line);
+        lines.add(line.toString());
+        if (stages != null) {
+            line.setLength(0);
+            formatter.appendLatency(stages.getDetection(), line);
+            lines.add(line.toString());
+            line.setLength(0);
+            formatter.appendLatency(stages.getConversion(), line);
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,38 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Layout of the ring files written by {@link RingFileRecorder} and read by {@link RingFileReader}. All
+ * values are big-endian. The file is a fixed-size header followed by {@code slots} equally sized slots;
+ * record {@code n} (counting from 1) lives in slot {@code (n - 1) % slots}.
+ *
+ * <pre>
+ * header (HEADER_BYTES):
+ *   int magic, int version, int width, int height, int frameBytes (0 without frames), int slots,
+ *   int maxDetections, int slotBytes, long lastRecord, int familyCount,
+ *   familyCount x (short length, UTF-8 bytes)
+ * slot:
+ *   long record (0 while empty or being rewritten; written last), long captureTimeNanos,
+ *   long frameSequence, int detectionCount, int overflow,
+ *   maxDetections x detection, frameBytes of RGBA pixels
+ * detection (DETECTION_BYTES):
+ *   int id, int familyIndex, float centerX, float centerY, 8 x float corner,
+ *   float range, bearing, elevation, x, y, z, yaw, pitch, roll (meters and radians)
+ * </pre>
+ */
+final class RingFile {
+
+    static final int MAGIC = 0x41524E47; // "ARNG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4096;
+    static final int LAST_RECORD_OFFSET = 32;
+    static final int FAMILIES_OFFSET = 44;
+    static final int SLOT_HEADER_BYTES = 32;
+    static final int DETECTION_BYTES = 2 * Integer.BYTES + 19 * Float.BYTES;
+
+    private RingFile() {
+    }
+
+    static long slotBytes(int maxDetections, int frameBytes) {
+        return SLOT_HEADER_BYTES + (long) maxDetections * DETECTION_BYTES + frameBytes;
+    }
+}
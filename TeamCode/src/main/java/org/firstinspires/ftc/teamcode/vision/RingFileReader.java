@@ -0,0 +1,208 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a ring file written by {@link RingFileRecorder} back as a replayable stream, oldest record first.
+ * It is a {@link FrameSource}, so a recording can be fed straight into {@link FrameReplayer}, and it also
+ * exposes the detections recorded with each frame through {@link #getDetections()}.
+ */
+public class RingFileReader implements FrameSource {
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer mapped;
+    private final int width;
+    private final int height;
+    private final int frameBytes;
+    private final int maxDetections;
+    private final int slotBytes;
+    private final String[] familyNames;
+    /** Slot indices in record order. */
+    private final int[] order;
+    private final byte[] pixels;
+    private final DetectionSnapshot detections;
+
+    private int next;
+
+    public RingFileReader(@NonNull File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        try {
+            mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (file.length() < RingFile.HEADER_BYTES || mapped.getInt(0) != RingFile.MAGIC) {
+                throw new IOException(path + " is not a ring file");
+            }
+            int version = mapped.getInt(4);
+            if (version != RingFile.VERSION) {
+                throw new IOException(path + " has unsupported version " + version);
+            }
+            width = mapped.getInt(8);
+            height = mapped.getInt(12);
+            frameBytes = mapped.getInt(16);
+            int slots = mapped.getInt(20);
+            maxDetections = mapped.getInt(24);
+            slotBytes = mapped.getInt(28);
+            if (slotBytes != RingFile.slotBytes(maxDetections, frameBytes)
+                    || file.length() < RingFile.HEADER_BYTES + (long) slotBytes * slots) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+            familyNames = readFamilies(mapped.getInt(40));
+            order = sortSlotsByRecord(slots);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        pixels = new byte[frameBytes];
+        detections = new DetectionSnapshot(familyNames, Math.max(1, maxDetections));
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean hasFrames() {
+        return frameBytes > 0;
+    }
+
+    /**
+     * @return number of records in the file
+     */
+    public int getRecordCount() {
+        return order.length;
+    }
+
+    /**
+     * Advances to the next record and loads its detections without copying the frame.
+     *
+     * @return {@code false} once every record has been read
+     */
+    public boolean next() {
+        if (next == order.length) {
+            return false;
+        }
+        int base = RingFile.HEADER_BYTES + order[next++] * slotBytes;
+        detections.reset(mapped.getLong(base + 8), mapped.getLong(base + 16));
+        int count = mapped.getInt(base + 24);
+        detections.overflow = mapped.getInt(base + 28);
+        int p = base + RingFile.SLOT_HEADER_BYTES;
+        for (int i = 0; i < count; i++, p += RingFile.DETECTION_BYTES) {
+            int slot = detections.add(mapped.getInt(p), mapped.getInt(p + 4),
+                    mapped.getFloat(p + 8), mapped.getFloat(p + 12));
+            if (slot < 0) {
+                break;
+            }
+            for (int c = 0; c < 8; c++) {
+                detections.corners[slot * 8 + c] = mapped.getFloat(p + 16 + c * 4);
+            }
+            int pose = p + 48;
+            detections.setPose(slot,
+                    mapped.getFloat(pose), mapped.getFloat(pose + 4), mapped.getFloat(pose + 8),
+                    mapped.getFloat(pose + 12), mapped.getFloat(pose + 16), mapped.getFloat(pose + 20),
+                    mapped.getFloat(pose + 24), mapped.getFloat(pose + 28), mapped.getFloat(pose + 32));
+        }
+        return true;
+    }
+
+    /**
+     * Advances to the next record and copies its frame into {@code frame}.
+     *
+     * @throws IOException if the file was recorded without frames
+     */
+    @Override
+    public boolean read(@NonNull Mat frame) throws IOException {
+        if (frameBytes == 0) {
+            throw new IOException("Recording holds detections only");
+        }
+        if (!next()) {
+            return false;
+        }
+        int base = RingFile.HEADER_BYTES + order[next - 1] * slotBytes;
+        mapped.position(base + RingFile.SLOT_HEADER_BYTES + maxDetections * RingFile.DETECTION_BYTES);
+        mapped.get(pixels);
+        if (frame.rows() != height || frame.cols() != width || frame.type() != CvType.CV_8UC4) {
+            frame.create(height, width, CvType.CV_8UC4);
+        }
+        frame.put(0, 0, pixels);
+        return true;
+    }
+
+    @Override
+    public long getCaptureTimeNanos() {
+        return detections.getCaptureTimeNanos();
+    }
+
+    /**
+     * @return the detections recorded with the current record; overwritten by the next {@link #next()} or
+     *         {@link #read} call
+     */
+    @NonNull
+    public DetectionSnapshot getDetections() {
+        return detections;
+    }
+
+    @Override
+    public void rewind() {
+        next = 0;
+    }
+
+    @Override
+    public void close() {
+        next = order.length;
+        try {
+            file.close();
+        } catch (IOException ignored) {
+            // Read-only file; nothing to recover.
+        }
+    }
+
+    private String[] readFamilies(int count) throws IOException {
+        String[] names = new String[count];
+        int p = RingFile.FAMILIES_OFFSET;
+        for (int i = 0; i < count; i++) {
+            int length = mapped.getShort(p);
+            if (length < 0 || p + 2 + length > RingFile.HEADER_BYTES) {
+                throw new IOException("Corrupt family table");
+            }
+            byte[] bytes = new byte[length];
+            mapped.position(p + 2);
+            mapped.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+            p += 2 + length;
+        }
+        return names;
+    }
+
+    private int[] sortSlotsByRecord(int slots) {
+        long[] keyed = new long[slots];
+        int used = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long record = mapped.getLong(RingFile.HEADER_BYTES + slot * slotBytes);
+            if (record > 0) {
+                // Record numbers stay far below 2^40, leaving the low bits for the slot index.
+                keyed[used++] = (record << 20) | slot;
+            }
+        }
+        Arrays.sort(keyed, 0, used);
+        int[] sorted = new int[used];
+        for (int i = 0; i < used; i++) {
+            sorted[i] = (int) (keyed[i] & 0xFFFFF);
+        }
+        return sorted;
+    }
+}
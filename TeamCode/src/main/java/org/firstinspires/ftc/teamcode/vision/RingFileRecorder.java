@@ -0,0 +1,280 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Keeps the last {@link Config#slots} frames and their detections in a preallocated, memory-mapped ring
+ * file for post-match debugging (see {@link RingFile} for the layout and {@link RingFileReader} to read it
+ * back).
+ *
+ * <p>{@link #offer} runs on the vision thread and only copies the frame and snapshot into one of a few
+ * pooled buffers; a background thread writes them into the mapped file. When every pooled buffer is still
+ * waiting to be written the frame is dropped and counted instead of stalling detection.</p>
+ */
+public class RingFileRecorder {
+
+    public static class Config {
+        public String path = "/sdcard/FIRST/vision-recording.ring";
+        /** Frames kept; older ones are overwritten. Three seconds at 30 fps by default. */
+        public int slots = 90;
+        /** Record detections only when {@code false}, which keeps the file tiny. */
+        public boolean recordFrames = true;
+        /** Frames that may wait for the writer thread before new ones are dropped. */
+        public int queueDepth = 3;
+    }
+
+    private static final class Pending {
+        final byte[] pixels;
+        final byte[] detections;
+        long captureTimeNanos;
+        long frameSequence;
+        int detectionCount;
+        int overflow;
+
+        Pending(int frameBytes, int maxDetections) {
+            pixels = new byte[frameBytes];
+            detections = new byte[maxDetections * RingFile.DETECTION_BYTES];
+        }
+    }
+
+    /** Bound that lets {@link RingFileReader} pack slot indices into 20 bits. */
+    static final int MAX_SLOTS = 1 << 20;
+
+    private final int width;
+    private final int height;
+    private final int frameBytes;
+    private final int slots;
+    private final int maxDetections;
+    private final int slotBytes;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer mapped;
+    private final ArrayBlockingQueue<Pending> free;
+    private final ArrayBlockingQueue<Pending> filled;
+    private final Thread writer;
+
+    private volatile boolean closed;
+    private volatile long recorded;
+    private volatile long dropped;
+
+    public RingFileRecorder(@NonNull Config config, int width, int height,
+                            @NonNull String[] familyNames, int maxDetections) throws IOException {
+        if (config.slots <= 0 || config.slots > MAX_SLOTS || config.queueDepth <= 0) {
+            throw new IllegalArgumentException("slots must be 1.." + MAX_SLOTS + " and queueDepth positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.frameBytes = config.recordFrames ? width * height * 4 : 0;
+        this.slots = config.slots;
+        this.maxDetections = maxDetections;
+        long slotSize = RingFile.slotBytes(maxDetections, frameBytes);
+        long totalBytes = RingFile.HEADER_BYTES + slotSize * slots;
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Ring file of " + (totalBytes >> 20)
+                    + " MiB exceeds 2 GiB; lower slots or the camera resolution");
+        }
+        this.slotBytes = (int) slotSize;
+
+        File target = new File(config.path);
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        file = new RandomAccessFile(target, "rw");
+        try {
+            file.setLength(totalBytes);
+            mapped = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, totalBytes);
+            writeHeader(familyNames);
+            for (int slot = 0; slot < slots; slot++) {
+                mapped.putLong(slotOffset(slot), 0L);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+
+        free = new ArrayBlockingQueue<>(config.queueDepth);
+        filled = new ArrayBlockingQueue<>(config.queueDepth);
+        for (int i = 0; i < config.queueDepth; i++) {
+            free.add(new Pending(frameBytes, maxDetections));
+        }
+        writer = new Thread(this::drain, "apriltag-recorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues one frame and its detections. Called on the vision thread; never blocks.
+     *
+     * @return {@code false} if the frame was dropped because the writer is behind or the recorder is closed
+     */
+    public boolean offer(@NonNull Mat frame, @NonNull DetectionSnapshot snapshot) {
+        Pending pending = closed ? null : free.poll();
+        if (pending == null) {
+            dropped++;
+            return false;
+        }
+        if (frameBytes > 0) {
+            if (frame.cols() != width || frame.rows() != height || frame.type() != CvType.CV_8UC4) {
+                free.add(pending);
+                dropped++;
+                return false;
+            }
+            frame.get(0, 0, pending.pixels);
+        }
+        pending.captureTimeNanos = snapshot.getCaptureTimeNanos();
+        pending.frameSequence = snapshot.getFrameSequence();
+        pending.detectionCount = Math.min(snapshot.size(), maxDetections);
+        pending.overflow = snapshot.getOverflow() + snapshot.size() - pending.detectionCount;
+        encodeDetections(snapshot, pending);
+        filled.add(pending);
+        return true;
+    }
+
+    /**
+     * @return frames written to the ring file so far
+     */
+    public long getRecordedFrames() {
+        return recorded;
+    }
+
+    /**
+     * @return frames dropped because the writer thread was behind
+     */
+    public long getDroppedFrames() {
+        return dropped;
+    }
+
+    /**
+     * Writes out queued frames, flushes the mapping to disk and closes the file.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed) {
+                Pending pending;
+                try {
+                    pending = filled.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                write(pending);
+                free.add(pending);
+            }
+            Pending pending;
+            while ((pending = filled.poll()) != null) {
+                write(pending);
+            }
+            mapped.force();
+        } finally {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+                // The mapping has already been forced; nothing else to flush.
+            }
+        }
+    }
+
+    private void write(Pending pending) {
+        long record = recorded + 1;
+        int base = slotOffset((int) ((record - 1) % slots));
+        mapped.putLong(base, 0L);
+        mapped.putLong(base + 8, pending.captureTimeNanos);
+        mapped.putLong(base + 16, pending.frameSequence);
+        mapped.putInt(base + 24, pending.detectionCount);
+        mapped.putInt(base + 28, pending.overflow);
+        mapped.position(base + RingFile.SLOT_HEADER_BYTES);
+        mapped.put(pending.detections, 0, pending.detectionCount * RingFile.DETECTION_BYTES);
+        if (frameBytes > 0) {
+            mapped.position(base + RingFile.SLOT_HEADER_BYTES + maxDetections * RingFile.DETECTION_BYTES);
+            mapped.put(pending.pixels);
+        }
+        mapped.putLong(base, record);
+        mapped.putLong(RingFile.LAST_RECORD_OFFSET, record);
+        recorded = record;
+    }
+
+    private void writeHeader(String[] familyNames) throws IOException {
+        mapped.putInt(0, RingFile.MAGIC);
+        mapped.putInt(4, RingFile.VERSION);
+        mapped.putInt(8, width);
+        mapped.putInt(12, height);
+        mapped.putInt(16, frameBytes);
+        mapped.putInt(20, slots);
+        mapped.putInt(24, maxDetections);
+        mapped.putInt(28, slotBytes);
+        mapped.putLong(RingFile.LAST_RECORD_OFFSET, 0L);
+        mapped.putInt(40, familyNames.length);
+        mapped.position(RingFile.FAMILIES_OFFSET);
+        for (String name : familyNames) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (mapped.position() + 2 + bytes.length > RingFile.HEADER_BYTES) {
+                throw new IOException("Too many tag families for the ring file header");
+            }
+            mapped.putShort((short) bytes.length);
+            mapped.put(bytes);
+        }
+    }
+
+    private void encodeDetections(DetectionSnapshot snapshot, Pending pending) {
+        byte[] out = pending.detections;
+        int p = 0;
+        for (int slot = 0; slot < pending.detectionCount; slot++) {
+            p = putInt(out, p, snapshot.getId(slot));
+            p = putInt(out, p, snapshot.getFamilyIndex(slot));
+            p = putFloat(out, p, snapshot.getCenterX(slot));
+            p = putFloat(out, p, snapshot.getCenterY(slot));
+            for (int c = 0; c < 4; c++) {
+                p = putFloat(out, p, snapshot.getCornerX(slot, c));
+                p = putFloat(out, p, snapshot.getCornerY(slot, c));
+            }
+            p = putFloat(out, p, snapshot.getRangeMeters(slot));
+            p = putFloat(out, p, snapshot.getBearingRadians(slot));
+            p = putFloat(out, p, snapshot.getElevationRadians(slot));
+            p = putFloat(out, p, snapshot.getXMeters(slot));
+            p = putFloat(out, p, snapshot.getYMeters(slot));
+            p = putFloat(out, p, snapshot.getZMeters(slot));
+            p = putFloat(out, p, snapshot.getYawRadians(slot));
+            p = putFloat(out, p, snapshot.getPitchRadians(slot));
+            p = putFloat(out, p, snapshot.getRollRadians(slot));
+        }
+    }
+
+    private int slotOffset(int slot) {
+        return RingFile.HEADER_BYTES + slot * slotBytes;
+    }
+
+    private static int putFloat(byte[] out, int p, double value) {
+        return putInt(out, p, Float.floatToRawIntBits((float) value));
+    }
+
+    private static int putInt(byte[] out, int p, int value) {
+        out[p] = (byte) (value >>> 24);
+        out[p + 1] = (byte) (value >>> 16);
+        out[p + 2] = (byte) (value >>> 8);
+        out[p + 3] = (byte) value;
+        return p + 4;
+    }
+}
@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * {@link PoseUnits} backed by the SDK's unit enums, so converted values match {@code ftcPose} conversions.
+ */
+final class SdkPoseUnits implements PoseUnits {
+
+    private final DistanceUnit distanceUnit;
+    private final AngleUnit angleUnit;
+
+    SdkPoseUnits(@NonNull DistanceUnit distanceUnit, @NonNull AngleUnit angleUnit) {
+        this.distanceUnit = distanceUnit;
+        this.angleUnit = angleUnit;
+    }
+
+    @Override
+    public double fromMeters(double meters) {
+        return distanceUnit.fromMeters(meters);
+    }
+
+    @Override
+    public double fromRadians(double radians) {
+        return angleUnit.fromRadians(radians);
+    }
+
+    @NonNull
+    @Override
+    public String getDistanceLabel() {
+        return distanceUnit.toString();
+    }
+
+    @NonNull
+    @Override
+    public String getAngleLabel() {
+        return angleUnit.toString();
+    }
+}
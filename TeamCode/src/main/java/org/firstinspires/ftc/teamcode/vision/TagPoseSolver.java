@@ -0,0 +1,126 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import org.opencv.calib3d.Calib3d;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfDouble;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.MatOfPoint3f;
+
+/**
+ * Solves a single tag's camera-relative pose from its four image corners and reports it in the same
+ * conventions as the SDK's {@code AprilTagPoseFtc} (meters and radians). All OpenCV matrices are allocated
+ * once, so repeated solves do not create garbage.
+ *
+ * <p>Corners must be ordered like {@code AprilTagDetection.corners}; the object points below follow the
+ * order the SDK itself uses for its OpenCV pose solvers. Instances are not thread-safe.</p>
+ */
+public class TagPoseSolver {
+
+    /** Mutable pose holder, reused across solves. */
+    public static class Pose {
+        public double x;
+        public double y;
+        public double z;
+        public double yaw;
+        public double pitch;
+        public double roll;
+        public double range;
+        public double bearing;
+        public double elevation;
+    }
+
+    private final Mat cameraMatrix = new Mat(3, 3, CvType.CV_64FC1);
+    private final MatOfDouble distortion = new MatOfDouble(0, 0, 0, 0, 0);
+    private final MatOfPoint3f objectPoints = new MatOfPoint3f();
+    private final MatOfPoint2f imagePoints = new MatOfPoint2f();
+    private final Mat rvec = new Mat(3, 1, CvType.CV_64FC1);
+    private final Mat tvec = new Mat(3, 1, CvType.CV_64FC1);
+    private final Mat rotation = new Mat(3, 3, CvType.CV_64FC1);
+
+    private final float[] objectBuffer = new float[12];
+    private final float[] imageBuffer = new float[8];
+    private final double[] vectorBuffer = new double[3];
+    private final double[] rotationBuffer = new double[9];
+
+    private double objectTagSize = Double.NaN;
+
+    public TagPoseSolver(double fx, double fy, double cx, double cy) {
+        cameraMatrix.put(0, 0,
+                fx, 0, cx,
+                0, fy, cy,
+                0, 0, 1);
+        objectPoints.alloc(4);
+        imagePoints.alloc(4);
+    }
+
+    /**
+     * @param corners        holds eight values {@code x0, y0, ... x3, y3} in full-frame pixel coordinates
+     * @param offset         index of {@code x0} within {@code corners}
+     * @param tagSizeMeters  black-border edge length of the tag
+     * @param out            receives the pose when the solve succeeds
+     * @return {@code false} if OpenCV could not find a solution
+     */
+    public boolean solve(@NonNull double[] corners, int offset, double tagSizeMeters, @NonNull Pose out) {
+        if (tagSizeMeters != objectTagSize) {
+            setObjectPoints(tagSizeMeters);
+        }
+        for (int i = 0; i < 8; i++) {
+            imageBuffer[i] = (float) corners[offset + i];
+        }
+        imagePoints.put(0, 0, imageBuffer);
+
+        if (!Calib3d.solvePnP(objectPoints, imagePoints, cameraMatrix, distortion, rvec, tvec,
+                false, Calib3d.SOLVEPNP_IPPE_SQUARE)) {
+            return false;
+        }
+        Calib3d.Rodrigues(rvec, rotation);
+        rotation.get(0, 0, rotationBuffer);
+        tvec.get(0, 0, vectorBuffer);
+
+        double rawX = vectorBuffer[0];
+        double rawY = vectorBuffer[1];
+        double rawZ = vectorBuffer[2];
+
+        // Intrinsic Y-X-Z decomposition of R = Ry(a) * Rx(b) * Rz(c), matching the SDK's ftcPose angles.
+        double[] r = rotationBuffer;
+        double a = Math.atan2(r[2], r[8]);
+        double b = Math.asin(Math.max(-1.0, Math.min(1.0, -r[5])));
+        double c = Math.atan2(r[3], r[4]);
+
+        // The camera frame (x right, y down, z forward) maps onto the FTC frame (x right, y forward, z up).
+        out.x = rawX;
+        out.y = rawZ;
+        out.z = -rawY;
+        out.yaw = -a;
+        out.pitch = b;
+        out.roll = c;
+        out.range = Math.hypot(rawX, rawZ);
+        out.bearing = Math.atan2(-rawX, rawZ);
+        out.elevation = Math.atan2(-rawY, rawZ);
+        return true;
+    }
+
+    private void setObjectPoints(double tagSizeMeters) {
+        float half = (float) (tagSizeMeters / 2.0);
+        float[] p = objectBuffer;
+        p[0] = -half; p[1] = half;   p[2] = 0;
+        p[3] = half;  p[4] = half;   p[5] = 0;
+        p[6] = half;  p[7] = -half;  p[8] = 0;
+        p[9] = -half; p[10] = -half; p[11] = 0;
+        objectPoints.put(0, 0, p);
+        objectTagSize = tagSizeMeters;
+    }
+
+    public void release() {
+        cameraMatrix.release();
+        distortion.release();
+        objectPoints.release();
+        imagePoints.release();
+        rvec.release();
+        tvec.release();
+        rotation.release();
+    }
+}
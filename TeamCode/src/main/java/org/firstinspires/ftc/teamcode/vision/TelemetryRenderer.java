@@ -0,0 +1,95 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Renders detections to telemetry at a bounded rate and only when a new frame has been published since
+ * the last render. Lines are built by a {@link TelemetryFormatter} in one reusable {@link StringBuilder},
+ * so rendering avoids {@code String.format}'s varargs boxing and parsing; the only allocation is the line
+ * string the telemetry API requires.
+ */
+public class TelemetryRenderer {
+
+    public static class Config {
+        /** Upper bound on renders per second; telemetry itself transmits at most every 250 ms by default. */
+        public double maxRateHz = 10.0;
+        public DetectionTextFormatter.Layout layout = DetectionTextFormatter.Layout.VERBOSE;
+        /** Custom line formatter; overrides {@link #layout} when set. */
+        public @Nullable TelemetryFormatter formatter = null;
+    }
+
+    private final TelemetryFormatter formatter;
+    private final StringBuilder line = new StringBuilder(128);
+    private final long minIntervalNanos;
+
+    private long lastRenderNanos;
+    private long lastRenderedSequence = -1;
+    private boolean rendered;
+
+    public TelemetryRenderer(@NonNull Config config) {
+        this.formatter = config.formatter != null ? config.formatter : new DetectionTextFormatter(config.layout);
+        this.minIntervalNanos = config.maxRateHz > 0 ? (long) (1e9 / config.maxRateHz) : 0;
+    }
+
+    /**
+     * Adds the detection lines (and the latency page when {@code metrics} is non-null) and calls
+     * {@code telemetry.update()}, unless the rate limit has not elapsed or no new frame has arrived.
+     *
+     * @return whether telemetry was updated
+     */
+    public boolean render(@NonNull Telemetry telemetry,
+                          @NonNull DetectionView detections,
+                          @Nullable PipelineMetrics metrics,
+                          long nowNanos) {
+        long sequence = detections.getFrameSequence();
+        if (rendered && (sequence == lastRenderedSequence || nowNanos - lastRenderNanos < minIntervalNanos)) {
+            return false;
+        }
+        rendered = true;
+        lastRenderedSequence = sequence;
+        lastRenderNanos = nowNanos;
+
+        line.setLength(0);
+        formatter.appendSummary(detections, line);
+        telemetry.addLine(line.toString());
+        for (int i = 0; i < detections.size(); i++) {
+            line.setLength(0);
+            formatter.appendDetection(detections, i, line);
+            telemetry.addLine(line.toString());
+        }
+        if (metrics != null) {
+            addLatency(telemetry, metrics);
+        }
+        telemetry.update();
+        return true;
+    }
+
+    /**
+     * Forces the next {@link #render} call to publish regardless of rate limit and sequence.
+     */
+    public void invalidate() {
+        rendered = false;
+    }
+
+    /**
+     * Adds one line per recorded pipeline stage with p50/p95/p99/max in milliseconds, without rate limiting and
+     * without calling {@code telemetry.update()}.
+     */
+    public void addLatency(@NonNull Telemetry telemetry, @NonNull PipelineMetrics metrics) {
+        line.setLength(0);
+        formatter.appendLatencySummary(metrics, line);
+        telemetry.addLine(line.toString());
+        for (LatencyHistogram histogram : metrics.getHistograms()) {
+            if (histogram.getCount() == 0) {
+                // Stages that never ran, such as preprocessing without a preprocessor, are left out.
+                continue;
+            }
+            line.setLength(0);
+            formatter.appendLatency(histogram, line);
+            telemetry.addLine(line.toString());
+        }
+    }
+}
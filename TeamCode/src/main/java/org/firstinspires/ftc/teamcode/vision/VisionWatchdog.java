@@ -0,0 +1,210 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Background thread that samples an {@link AprilTagVisionManager} every {@link Config#periodMs}: frame
+ * rate, average processing time, and whether frames are still completing. A {@link HealthMonitor} judges
+ * the samples. Under sustained load the watchdog steps down through {@link Config#tiers} one at a time. It
+ * restores them in reverse once there is headroom again. When the camera delivers no frame for
+ * {@link HealthMonitor.Config#stallMs} while streaming is wanted, or leaves the {@code STREAMING} state
+ * for that long, it restarts the portal. A camera can otherwise stall silently and cost a whole autonomous
+ * run.
+ *
+ * <p>Tiers that cannot apply are left out: {@link Tier#SINGLE_FAMILY} with one family, and
+ * {@link Tier#LOWER_RESOLUTION} with configured {@code lensIntrinsics}, which only hold for the configured
+ * resolution. Lower-resolution intrinsics then come from the SDK calibration.</p>
+ */
+public class VisionWatchdog {
+
+    public enum Tier {
+        /** Stop drawing live-view overlays. */
+        HEADLESS_OVERLAY,
+        /** Raise decimation to {@link Config#degradedDecimation} and pause adaptive decimation. */
+        RAISE_DECIMATION,
+        /** Detect only the first configured family. */
+        SINGLE_FAMILY,
+        /** Reopen the camera at {@link Config#degradedResolution}. Briefly interrupts frames. */
+        LOWER_RESOLUTION
+    }
+
+    public static class Config {
+        public HealthMonitor.Config health = new HealthMonitor.Config();
+        /** Tiers entered in this order under load and left in reverse; the cheapest to lose come first. */
+        public List<Tier> tiers = new ArrayList<>(Arrays.asList(
+                Tier.HEADLESS_OVERLAY, Tier.RAISE_DECIMATION, Tier.SINGLE_FAMILY, Tier.LOWER_RESOLUTION));
+        /** Time between samples. */
+        public long periodMs = 250;
+        /**
+         * Decimation used by {@link Tier#RAISE_DECIMATION}; never lowers a higher current value. The SDK
+         * detector default is 3, so lower values only help when decimation was set lower explicitly.
+         */
+        public float degradedDecimation = 4;
+        /** Resolution used by {@link Tier#LOWER_RESOLUTION}; keep the aspect ratio of the normal resolution. */
+        public Size degradedResolution = new Size(640, 360);
+    }
+
+    private final AprilTagVisionManager manager;
+    private final Config config;
+    private final Tier[] tiers;
+    private final HealthMonitor monitor;
+    private final Thread thread;
+
+    // Watchdog-thread state: what a tier replaced, to restore it.
+    private @Nullable OverlayPolicy.Mode savedOverlayMode;
+    private final DecimationOverride decimationOverride;
+    private boolean resolutionLowered;
+
+    private volatile @Nullable RuntimeException lastError;
+
+    VisionWatchdog(@NonNull AprilTagVisionManager manager, @NonNull Config config) {
+        if (config.periodMs <= 0) {
+            throw new IllegalArgumentException("periodMs must be positive");
+        }
+        this.manager = manager;
+        this.config = config;
+        List<Tier> usable = new ArrayList<>();
+        for (Tier tier : config.tiers) {
+            boolean applies = tier != null && !usable.contains(tier)
+                    && !(tier == Tier.SINGLE_FAMILY && manager.getFamilyCount() < 2)
+                    && !(tier == Tier.LOWER_RESOLUTION && manager.hasConfiguredIntrinsics());
+            if (applies) {
+                usable.add(tier);
+            }
+        }
+        this.tiers = usable.toArray(new Tier[0]);
+        this.monitor = new HealthMonitor(config.health, tiers.length);
+        this.decimationOverride = new DecimationOverride(manager);
+        this.thread = new Thread(this::run, "VisionWatchdog");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops sampling. Tiers in effect stay in effect.
+     */
+    void close() {
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(config.periodMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                tick(System.nanoTime());
+            } catch (RuntimeException e) {
+                // Keep watching; a failed action is retried when the monitor asks again.
+                lastError = e;
+            }
+        }
+    }
+
+    private void tick(long nowNanos) {
+        double frameMs = manager.getAverageFrameMs();
+        HealthMonitor.Action action = monitor.sample(nowNanos, manager.isStreamingRequested(),
+                manager.isCameraStreaming(), manager.getFps(), Double.isNaN(frameMs) ? 0 : frameMs,
+                manager.getDeliveredFrameCount());
+        switch (action) {
+            case DEGRADE:
+                apply(tiers[monitor.getTier() - 1], true, nowNanos);
+                break;
+            case RECOVER:
+                apply(tiers[monitor.getTier()], false, nowNanos);
+                break;
+            case RESTART:
+                // The processors keep their family and decimation settings; only the resolution is re-chosen.
+                manager.restartPortal(resolutionLowered ? config.degradedResolution : null);
+                break;
+            case NONE:
+            default:
+                break;
+        }
+    }
+
+    private void apply(Tier tier, boolean degrade, long nowNanos) {
+        switch (tier) {
+            case HEADLESS_OVERLAY:
+                OverlayPolicy overlay = manager.getOverlayPolicy();
+                if (degrade) {
+                    savedOverlayMode = overlay.getMode();
+                    overlay.setMode(OverlayPolicy.Mode.HEADLESS);
+                } else if (savedOverlayMode != null) {
+                    overlay.setMode(savedOverlayMode);
+                }
+                break;
+            case RAISE_DECIMATION:
+                if (degrade) {
+                    decimationOverride.apply(config.degradedDecimation);
+                } else {
+                    decimationOverride.restore();
+                }
+                break;
+            case SINGLE_FAMILY:
+                manager.setPrimaryFamilyOnly(degrade);
+                break;
+            case LOWER_RESOLUTION:
+                resolutionLowered = degrade;
+                manager.restartPortal(degrade ? config.degradedResolution : null);
+                monitor.onCameraRestarted(nowNanos);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return how many tiers are in effect, from 0 to {@link #getTierCount()}
+     */
+    public int getTier() {
+        return monitor.getTier();
+    }
+
+    public int getTierCount() {
+        return tiers.length;
+    }
+
+    /**
+     * @return the deepest tier in effect, or {@code null} at full quality
+     */
+    @Nullable
+    public Tier getActiveTier() {
+        int tier = monitor.getTier();
+        return tier > 0 ? tiers[tier - 1] : null;
+    }
+
+    /**
+     * @return restarts caused by a stalled camera
+     */
+    public long getStallRestartCount() {
+        return monitor.getRestartCount();
+    }
+
+    /**
+     * @return time since the last completed frame at the latest sample, in milliseconds
+     */
+    public double getLastFrameAgeMs() {
+        return monitor.getLastFrameAgeMs();
+    }
+
+    /**
+     * @return the last exception thrown while sampling or applying a tier, or {@code null}
+     */
+    @Nullable
+    public RuntimeException getLastError() {
+        return lastError;
+    }
+}
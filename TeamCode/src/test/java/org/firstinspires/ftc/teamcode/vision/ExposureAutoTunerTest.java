@@ -0,0 +1,118 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Drives {@link ExposureAutoTuner} the way a two-family manager does: each camera frame goes through a shared
+ * {@link FramePolicy} that drops every other frame, and each processed frame is published once per family
+ * processor, with per-processor frame sequences that do not match.
+ */
+public class ExposureAutoTunerTest {
+
+    private static final String[] FAMILIES = {"TAG_36h11", "TAG_16h5"};
+
+    /** Applies every request at once, at the capture time of the frame being processed. */
+    private static final class InstantScheduler extends CameraControlScheduler {
+        long nowNanos;
+        long appliedAtNanos;
+        int requests;
+        int lastExposureMs;
+
+        InstantScheduler() {
+            super(null);
+        }
+
+        @Override
+        public long requestExposure(int exposureMs, int gain) {
+            appliedAtNanos = nowNanos;
+            lastExposureMs = exposureMs;
+            return ++requests;
+        }
+
+        @Override
+        public boolean isComplete(long request) {
+            return true;
+        }
+
+        @Override
+        public boolean didLastRequestSucceed() {
+            return true;
+        }
+
+        @Override
+        public long getAppliedAtNanos() {
+            return appliedAtNanos;
+        }
+    }
+
+    private final InstantScheduler scheduler = new InstantScheduler();
+    private final FramePolicy policy;
+    private final ExposureAutoTuner tuner;
+    private final DetectionSnapshot first = new DetectionSnapshot(FAMILIES, 8);
+    private final DetectionSnapshot second = new DetectionSnapshot(FAMILIES, 8);
+
+    public ExposureAutoTunerTest() {
+        FramePolicy.Config policyConfig = new FramePolicy.Config();
+        policyConfig.mode = FramePolicy.Mode.EVERY_NTH;
+        policyConfig.everyNth = 2;
+        policy = new FramePolicy(policyConfig);
+
+        ExposureAutoTuner.Config config = new ExposureAutoTuner.Config();
+        config.exposuresMs = new int[]{5, 8};
+        config.gains = new int[]{20};
+        config.settleFrames = 2;
+        config.measureFrames = 4;
+        tuner = new ExposureAutoTuner(config, scheduler, policy, 10, 30);
+    }
+
+    /** Delivers camera frame {@code frame}; when processed, both families publish and the first sees a tag. */
+    private void deliver(int frame, boolean tagInView) {
+        long captureNanos = frame * 1_000_000L;
+        scheduler.nowNanos = captureNanos;
+        if (!policy.admit(captureNanos, captureNanos)) {
+            return;
+        }
+        first.reset(captureNanos, frame);
+        if (tagInView) {
+            first.add(7, 0, 100, 100);
+        }
+        tuner.onDetections(first);
+        second.reset(captureNanos, frame + 1000);
+        tuner.onDetections(second);
+    }
+
+    @Test
+    public void scoresOneWindowOfProcessedFramesAfterSettlingOnDeliveredFrames() {
+        // Every other frame is processed: 1, 3, 5, ... The window starts at frame 1; two delivered frames
+        // settle it, so frames 3, 5, 7 and 9 are scored. Settling frame 1 sees a tag that must not count.
+        deliver(1, true);
+        deliver(2, false);
+        deliver(3, true);
+        deliver(4, false);
+        deliver(5, true);
+        deliver(6, false);
+        deliver(7, false);
+        deliver(8, false);
+        deliver(9, true);
+        deliver(10, false);
+        assertEquals(0, tuner.getProgress());
+
+        // Frame 11 closes frame 9, which completes the window and requests the next candidate.
+        deliver(11, true);
+        assertEquals(1, tuner.getProgress());
+        assertEquals(8, scheduler.lastExposureMs);
+        // Three of four frames saw the tag, and it was lost once in three sightings.
+        assertEquals(3.0 / 4 - 1.0 / 3, tuner.getBestScore(), 1e-9);
+        assertEquals(5, tuner.getBestExposureMs());
+
+        // The second candidate never sees a tag, so the first one wins.
+        for (int frame = 12; frame <= 23; frame++) {
+            deliver(frame, false);
+        }
+        assertEquals(ExposureAutoTuner.State.DONE, tuner.getState());
+        assertEquals(5, scheduler.lastExposureMs);
+        assertEquals(3, scheduler.requests);
+    }
+}
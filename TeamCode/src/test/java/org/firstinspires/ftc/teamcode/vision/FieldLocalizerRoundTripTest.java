@@ -0,0 +1,124 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Projects the corners of tags placed in a {@link FieldTagLayout} into a camera at a known robot pose, the way
+ * the detector reports them, and checks that {@link FieldLocalizer} solves back to that pose. The corners are
+ * computed here from the documented tag frame, not read from the layout, so a layout that places corners in
+ * the wrong order fails the round trip.
+ */
+public class FieldLocalizerRoundTripTest {
+
+    private static final String[] FAMILIES = {"TAG_36h11"};
+    private static final double TAG_SIZE = 0.1016;
+    private static final double FX = 820;
+    private static final double FY = 820;
+    private static final double CX = 640;
+    private static final double CY = 360;
+
+    /** Tag centers on a wall at field x = 1.8, facing -x: tag x (right) is field -y, tag y (up) is field +z. */
+    private static final double[][] TAG_CENTERS = {{1.8, 0.3, 0.25}, {1.8, -0.4, 0.25}};
+
+    private static final double ROBOT_X = 0.3;
+    private static final double ROBOT_Y = 0.1;
+    private static final double HEADING = 0.15;
+    private static final FieldLocalizer.CameraExtrinsics MOUNT =
+            new FieldLocalizer.CameraExtrinsics(0.12, -0.05, 0.22, 0, 0, 0);
+
+    @BeforeClass
+    public static void loadOpenCv() {
+        nu.pattern.OpenCV.loadLocally();
+    }
+
+    private static FieldTagLayout wallLayout() {
+        FieldTagLayout layout = new FieldTagLayout();
+        for (int i = 0; i < TAG_CENTERS.length; i++) {
+            double[] c = TAG_CENTERS[i];
+            layout.add(i + 1, null, TAG_SIZE, c[0], c[1], c[2], 0.5, 0.5, -0.5, -0.5);
+        }
+        return layout;
+    }
+
+    @Test
+    public void bottomCornersOfAnUprightTagAreLowest() {
+        FieldTagLayout layout = wallLayout();
+        double half = TAG_SIZE / 2;
+        assertEquals(0.25 - half, layout.getCorner(1, 0, 2), 1e-12);
+        assertEquals(0.25 - half, layout.getCorner(1, 1, 2), 1e-12);
+        assertEquals(0.25 + half, layout.getCorner(1, 2, 2), 1e-12);
+        assertEquals(0.25 + half, layout.getCorner(1, 3, 2), 1e-12);
+        // Corner 0 is on the viewer's left, which is field +y for a tag facing -x.
+        assertEquals(0.3 + half, layout.getCorner(1, 0, 1), 1e-12);
+    }
+
+    @Test
+    public void singleTagSolvesBackToTheRobotPose() {
+        assertRoundTrip(1);
+    }
+
+    @Test
+    public void twoTagsSolveBackToTheRobotPose() {
+        assertRoundTrip(2);
+    }
+
+    private static void assertRoundTrip(int tags) {
+        FieldLocalizer.Config config = new FieldLocalizer.Config();
+        config.layout = wallLayout();
+        config.extrinsics = MOUNT;
+        FieldLocalizer localizer = new FieldLocalizer(config,
+                new AprilTagVisionProcessor.LensIntrinsics(FX, FY, CX, CY));
+        try {
+            FieldLocalizer.RobotPose pose = new FieldLocalizer.RobotPose();
+            assertTrue(localizer.solve(project(tags), pose));
+            assertEquals(tags, pose.tagCount);
+            assertEquals(ROBOT_X, pose.x, 5e-3);
+            assertEquals(ROBOT_Y, pose.y, 5e-3);
+            assertEquals(0, pose.z, 5e-3);
+            assertEquals(HEADING, pose.heading, 5e-3);
+            assertEquals(0, pose.pitch, 5e-3);
+            assertEquals(0, pose.roll, 5e-3);
+            assertTrue("rms " + pose.rmsErrorPx, pose.rmsErrorPx < 0.01);
+        } finally {
+            localizer.release();
+        }
+    }
+
+    /** Detections of the first {@code tags} wall tags as seen from the robot pose above. */
+    private static DetectionView project(int tags) {
+        double cos = Math.cos(HEADING);
+        double sin = Math.sin(HEADING);
+        double camX = ROBOT_X + cos * MOUNT.x - sin * MOUNT.y;
+        double camY = ROBOT_Y + sin * MOUNT.x + cos * MOUNT.y;
+        double camZ = MOUNT.z;
+
+        DetectionSnapshot snapshot = new DetectionSnapshot(FAMILIES, 4);
+        snapshot.reset(1, 1);
+        double half = TAG_SIZE / 2;
+        for (int t = 0; t < tags; t++) {
+            double[] center = TAG_CENTERS[t];
+            int slot = snapshot.add(t + 1, 0, 0, 0);
+            for (int c = 0; c < 4; c++) {
+                // Detector order: bottom-left, bottom-right, top-right, top-left as seen facing the tag.
+                double u = (c == 0 || c == 3) ? -half : half;
+                double v = (c < 2) ? -half : half;
+                double dx = center[0] - camX;
+                double dy = center[1] - u - camY;
+                double dz = center[2] + v - camZ;
+                // Optical frame of an unrotated mount: x right (robot -y), y down (-z), z forward (robot x).
+                double xc = sin * dx - cos * dy;
+                double yc = -dz;
+                double zc = cos * dx + sin * dy;
+                snapshot.corners[slot * 8 + c * 2] = FX * xc / zc + CX;
+                snapshot.corners[slot * 8 + c * 2 + 1] = FY * yc / zc + CY;
+            }
+        }
+        DetectionView view = new DetectionView(1, ScaledPoseUnits.METERS_RADIANS);
+        view.addSource(snapshot);
+        return view;
+    }
+}
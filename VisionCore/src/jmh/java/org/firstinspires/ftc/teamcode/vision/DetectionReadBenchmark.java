@@ -0,0 +1,67 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Op-mode side of a frame through the manager's {@link DetectionReader}: acquiring the latest snapshot into
+ * a unit-converting {@link DetectionView}, reading every pose field, and answering ID lookups from the same
+ * frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DetectionReadBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int tags;
+
+    private DetectionSnapshotBuffer buffer;
+    private DetectionReader reader;
+    private long frame = 1;
+    private final int[] wanted = {1, 4, 9};
+    private final TagIdIndex.Entry[] found = new TagIdIndex.Entry[3];
+
+    @Setup
+    public void setUp() {
+        buffer = SyntheticDetections.publishedBuffer(tags);
+        reader = new DetectionReader(new SnapshotSource[] {buffer}, SyntheticDetections.FAMILIES,
+                ScaledPoseUnits.INCHES_DEGREES);
+    }
+
+    @Benchmark
+    public void acquireViewAndReadPoses(Blackhole blackhole) {
+        DetectionView view = reader.acquireView();
+        for (int i = 0; i < view.size(); i++) {
+            blackhole.consume(view.getId(i));
+            blackhole.consume(view.getRange(i));
+            blackhole.consume(view.getBearing(i));
+            blackhole.consume(view.getElevation(i));
+            blackhole.consume(view.getTranslationX(i));
+            blackhole.consume(view.getTranslationY(i));
+            blackhole.consume(view.getTranslationZ(i));
+            blackhole.consume(view.getYaw(i));
+            blackhole.consume(view.getPitch(i));
+            blackhole.consume(view.getRoll(i));
+        }
+    }
+
+    /** A new frame per call, as when the op mode loop keeps pace with the camera, so the index is updated. */
+    @Benchmark
+    public int latestDetectionsAndLookup() {
+        frame++;
+        SyntheticDetections.fill(buffer.beginWrite(frame, frame), tags, frame);
+        buffer.publish();
+        DetectionView view = reader.acquireView();
+        return reader.lookup().getFresh(wanted, view.getCaptureTimeNanos(), Long.MAX_VALUE / 2_000_000L, found);
+    }
+}
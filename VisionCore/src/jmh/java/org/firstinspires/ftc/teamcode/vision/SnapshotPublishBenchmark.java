@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vision-thread side of a frame: filling a snapshot and publishing it. The input is plain numbers rather than
+ * SDK detection objects, so this is a lower bound of the processor's {@code convert} stage; the stage itself
+ * is timed on the robot by {@code DetectionConversionBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotPublishBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int tags;
+
+    private DetectionSnapshotBuffer buffer;
+    private long frame;
+
+    @Setup
+    public void setUp() {
+        buffer = new DetectionSnapshotBuffer(SyntheticDetections.FAMILIES, SyntheticDetections.CAPACITY);
+    }
+
+    @Benchmark
+    public DetectionSnapshot convertAndPublish() {
+        frame++;
+        DetectionSnapshot snapshot = buffer.beginWrite(frame, frame);
+        SyntheticDetections.fill(snapshot, tags, frame);
+        return buffer.publish();
+    }
+}
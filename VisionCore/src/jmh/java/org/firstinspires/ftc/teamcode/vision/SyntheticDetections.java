@@ -0,0 +1,47 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Deterministic fake detector output for benchmarks: {@code tags} detections per frame spread across the
+ * image and a range of poses, written into snapshots the same way the processor does.
+ */
+final class SyntheticDetections {
+
+    static final String[] FAMILIES = {"TAG_36h11", "TAG_16h5"};
+    static final int CAPACITY = 32;
+
+    private SyntheticDetections() {
+    }
+
+    static void fill(DetectionSnapshot snapshot, int tags, long frame) {
+        for (int t = 0; t < tags; t++) {
+            double cx = 80 + (t % 4) * 300 + (frame & 7);
+            double cy = 90 + (t / 4) * 160;
+            int slot = snapshot.add(t + 1, t & 1, cx, cy);
+            if (slot < 0) {
+                return;
+            }
+            int base = slot * 8;
+            double half = 20 + t;
+            snapshot.corners[base] = cx - half;
+            snapshot.corners[base + 1] = cy + half;
+            snapshot.corners[base + 2] = cx + half;
+            snapshot.corners[base + 3] = cy + half;
+            snapshot.corners[base + 4] = cx + half;
+            snapshot.corners[base + 5] = cy - half;
+            snapshot.corners[base + 6] = cx - half;
+            snapshot.corners[base + 7] = cy - half;
+            double x = (t - tags / 2.0) * 0.1;
+            double z = 0.5 + t * 0.15;
+            snapshot.setPose(slot, Math.hypot(x, z), Math.atan2(-x, z), 0.02,
+                    x, z, -0.05, 0.01 * t, -0.02, 0.005 * t);
+        }
+    }
+
+    /** A buffer whose reader side already holds a published frame with {@code tags} detections. */
+    static DetectionSnapshotBuffer publishedBuffer(int tags) {
+        DetectionSnapshotBuffer buffer = new DetectionSnapshotBuffer(FAMILIES, CAPACITY);
+        fill(buffer.beginWrite(System.nanoTime(), 1), tags, 1);
+        buffer.publish();
+        return buffer;
+    }
+}
@@ -0,0 +1,66 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting one {@code pushTelemetry} page: the allocation-free formatter against the
+ * {@code String.format} lines it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryFormatBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int tags;
+
+    private DetectionView view;
+    private final StringBuilder line = new StringBuilder(128);
+    private final TelemetryFormatter formatter = new DetectionTextFormatter(DetectionTextFormatter.Layout.VERBOSE);
+
+    @Setup
+    public void setUp() {
+        view = new DetectionView(1, ScaledPoseUnits.METERS_DEGREES);
+        view.addSource(SyntheticDetections.publishedBuffer(tags).acquire());
+    }
+
+    @Benchmark
+    public void formatter(Blackhole blackhole) {
+        line.setLength(0);
+        formatter.appendSummary(view, line);
+        blackhole.consume(line.length());
+        for (int i = 0; i < view.size(); i++) {
+            line.setLength(0);
+            formatter.appendDetection(view, i, line);
+            blackhole.consume(line.length());
+        }
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole blackhole) {
+        PoseUnits units = view.getUnits();
+        blackhole.consume("Detections: " + view.size());
+        for (int i = 0; i < view.size(); i++) {
+            blackhole.consume(String.format(Locale.US,
+                    "#%d | id=%d fam=%s range=%.2f %s yaw=%.1f %s pitch=%.1f %s roll=%.1f %s",
+                    i + 1,
+                    view.getId(i),
+                    view.getTagFamily(i),
+                    view.getRange(i), units.getDistanceLabel(),
+                    view.getYaw(i), units.getAngleLabel(),
+                    view.getPitch(i), units.getAngleLabel(),
+                    view.getRoll(i), units.getAngleLabel()));
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Kalman filter over the planar robot pose with a constant-velocity motion model. x, y and heading are
+ * filtered as three independent position/velocity pairs.
+ *
+ * <p>The filter state is kept at the capture time of the newest vision measurement, not at the time the
+ * measurement arrived. Odometry deltas are kept in a ring buffer; when a measurement arrives, the odometry up
+ * to its capture time is folded into the state before the update, so a frame that took 80 ms to process
+ * corrects the pose as it was 80 ms ago. {@link #predictAt} replays the remaining odometry on a scratch copy
+ * of the state and extrapolates with the velocity estimate past the newest sample. While odometry is fed,
+ * it drives the motion and the velocity comes from it; without odometry the velocity is estimated from the
+ * vision measurements alone.</p>
+ *
+ * <p>All state lives in arrays sized at construction; no method allocates. Not thread-safe.</p>
+ */
+public class ConstantVelocityPosePredictor implements PosePredictor {
+
+    public static class Config {
+        /** Standard deviation of the unmodelled acceleration, m/s^2; larger values trust new measurements more. */
+        public double accelerationStdDev = 3.0;
+        /** Same as {@link #accelerationStdDev} for heading, rad/s^2. */
+        public double angularAccelerationStdDev = 6.0;
+        /** Vision position noise, meters, at a noise scale of 1. */
+        public double measurementStdDevMeters = 0.05;
+        /** Vision heading noise, radians, at a noise scale of 1. */
+        public double measurementStdDevRadians = 0.05;
+        /** Odometry position error per meter travelled. */
+        public double odometryStdDevPerMeter = 0.02;
+        /** Odometry heading error per radian turned. */
+        public double odometryStdDevPerRadian = 0.02;
+        /** Velocity uncertainty of a freshly initialized filter, m/s and rad/s. */
+        public double initialVelocityStdDev = 1.0;
+        /** Longest span the velocity estimate is extrapolated past the newest measurement or odometry. */
+        public double maxExtrapolationMs = 250.0;
+        /** Odometry samples kept while waiting for the vision measurement that covers them. */
+        public int odometryHistory = 128;
+    }
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int HEADING = 2;
+    private static final int AXES = 3;
+
+    private final Config config;
+    private final double[] processNoise = new double[AXES];
+    private final double[] measurementVariance = new double[AXES];
+    private final long maxExtrapolationNanos;
+
+    // Committed state at filterTimeNanos: per axis position, velocity and the covariance [pp pv; pv vv].
+    private final double[] position = new double[AXES];
+    private final double[] velocity = new double[AXES];
+    private final double[] covPP = new double[AXES];
+    private final double[] covPV = new double[AXES];
+    private final double[] covVV = new double[AXES];
+
+    // Scratch copy advanced by predictAt.
+    private final double[] scratchPosition = new double[AXES];
+    private final double[] scratchVelocity = new double[AXES];
+    private final double[] scratchPP = new double[AXES];
+    private final double[] scratchPV = new double[AXES];
+    private final double[] scratchVV = new double[AXES];
+
+    // Odometry ring buffer; each sample covers (start, end].
+    private final long[] odometryStart;
+    private final long[] odometryEnd;
+    private final double[] odometryForward;
+    private final double[] odometryLeft;
+    private final double[] odometryTurn;
+    private int odometryHead;
+    private int odometryCount;
+    private boolean hasOdometry;
+    private long lastOdometryNanos;
+
+    private boolean initialized;
+    private long filterTimeNanos;
+    private long lastMeasurementNanos;
+    private long rejectedMeasurements;
+
+    public ConstantVelocityPosePredictor(@NonNull Config config) {
+        if (config.odometryHistory <= 0) {
+            throw new IllegalArgumentException("odometryHistory must be positive");
+        }
+        this.config = config;
+        processNoise[X] = config.accelerationStdDev * config.accelerationStdDev;
+        processNoise[Y] = processNoise[X];
+        processNoise[HEADING] = config.angularAccelerationStdDev * config.angularAccelerationStdDev;
+        measurementVariance[X] = config.measurementStdDevMeters * config.measurementStdDevMeters;
+        measurementVariance[Y] = measurementVariance[X];
+        measurementVariance[HEADING] = config.measurementStdDevRadians * config.measurementStdDevRadians;
+        maxExtrapolationNanos = (long) (config.maxExtrapolationMs * 1e6);
+
+        int n = config.odometryHistory;
+        odometryStart = new long[n];
+        odometryEnd = new long[n];
+        odometryForward = new double[n];
+        odometryLeft = new double[n];
+        odometryTurn = new double[n];
+    }
+
+    @Override
+    public boolean addMeasurement(long captureTimeNanos, double x, double y, double heading, double noiseScale) {
+        if (!initialized) {
+            discardOdometryUntil(captureTimeNanos);
+            position[X] = x;
+            position[Y] = y;
+            position[HEADING] = wrapAngle(heading);
+            double scale2 = noiseScale * noiseScale;
+            double velocityVariance = config.initialVelocityStdDev * config.initialVelocityStdDev;
+            for (int axis = 0; axis < AXES; axis++) {
+                velocity[axis] = 0;
+                covPP[axis] = measurementVariance[axis] * scale2;
+                covPV[axis] = 0;
+                covVV[axis] = velocityVariance;
+            }
+            filterTimeNanos = captureTimeNanos;
+            lastMeasurementNanos = captureTimeNanos;
+            initialized = true;
+            return true;
+        }
+        if (captureTimeNanos < filterTimeNanos) {
+            rejectedMeasurements++;
+            return false;
+        }
+
+        advance(position, velocity, covPP, covPV, covVV, filterTimeNanos, captureTimeNanos, true);
+        filterTimeNanos = captureTimeNanos;
+        lastMeasurementNanos = captureTimeNanos;
+
+        double scale2 = noiseScale * noiseScale;
+        update(X, x - position[X], scale2);
+        update(Y, y - position[Y], scale2);
+        update(HEADING, wrapAngle(heading - position[HEADING]), scale2);
+        position[HEADING] = wrapAngle(position[HEADING]);
+        return true;
+    }
+
+    private void update(int axis, double innovation, double noiseScale2) {
+        double s = covPP[axis] + measurementVariance[axis] * noiseScale2;
+        double gainP = covPP[axis] / s;
+        double gainV = covPV[axis] / s;
+        position[axis] += gainP * innovation;
+        velocity[axis] += gainV * innovation;
+        covVV[axis] -= gainV * covPV[axis];
+        covPV[axis] *= 1 - gainP;
+        covPP[axis] *= 1 - gainP;
+    }
+
+    @Override
+    public void addOdometry(long nanoTime, double forward, double left, double turn) {
+        long start = hasOdometry && lastOdometryNanos < nanoTime ? lastOdometryNanos : nanoTime;
+        hasOdometry = true;
+        lastOdometryNanos = nanoTime;
+
+        if (odometryCount == odometryStart.length) {
+            // Full: fold the oldest sample into the committed state (or drop it before the first fix).
+            if (initialized) {
+                long end = odometryEnd[odometryHead];
+                advance(position, velocity, covPP, covPV, covVV, filterTimeNanos, end, true);
+                filterTimeNanos = Math.max(filterTimeNanos, end);
+            } else {
+                popOdometry();
+            }
+        }
+        int slot = (odometryHead + odometryCount) % odometryStart.length;
+        odometryStart[slot] = start;
+        odometryEnd[slot] = nanoTime;
+        odometryForward[slot] = forward;
+        odometryLeft[slot] = left;
+        odometryTurn[slot] = turn;
+        odometryCount++;
+    }
+
+    @Override
+    public boolean predictAt(long nanoTime, @NonNull PredictedPose out) {
+        out.timeNanos = nanoTime;
+        if (!initialized) {
+            out.valid = false;
+            return false;
+        }
+        System.arraycopy(position, 0, scratchPosition, 0, AXES);
+        System.arraycopy(velocity, 0, scratchVelocity, 0, AXES);
+        System.arraycopy(covPP, 0, scratchPP, 0, AXES);
+        System.arraycopy(covPV, 0, scratchPV, 0, AXES);
+        System.arraycopy(covVV, 0, scratchVV, 0, AXES);
+        advance(scratchPosition, scratchVelocity, scratchPP, scratchPV, scratchVV, filterTimeNanos, nanoTime, false);
+
+        out.x = scratchPosition[X];
+        out.y = scratchPosition[Y];
+        out.heading = wrapAngle(scratchPosition[HEADING]);
+        out.velocityX = scratchVelocity[X];
+        out.velocityY = scratchVelocity[Y];
+        out.angularVelocity = scratchVelocity[HEADING];
+        out.positionStdDev = Math.sqrt(Math.max(scratchPP[X], scratchPP[Y]));
+        out.headingStdDev = Math.sqrt(scratchPP[HEADING]);
+        out.ageNanos = nanoTime - lastMeasurementNanos;
+        out.valid = true;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+        hasOdometry = false;
+        odometryHead = 0;
+        odometryCount = 0;
+        rejectedMeasurements = 0;
+    }
+
+    /**
+     * @return measurements dropped because they were captured before the filter's current time
+     */
+    public long getRejectedMeasurements() {
+        return rejectedMeasurements;
+    }
+
+    /**
+     * Moves a state from {@code from} to {@code to}: applies the buffered odometry inside that span, then
+     * extrapolates with the velocity. With {@code commit} the applied odometry is consumed from the buffer.
+     */
+    private void advance(double[] p, double[] v, double[] pp, double[] pv, double[] vv,
+                         long from, long to, boolean commit) {
+        long t = from;
+        int index = 0;
+        while (index < odometryCount) {
+            int slot = (odometryHead + index) % odometryStart.length;
+            long start = Math.max(odometryStart[slot], from);
+            long end = odometryEnd[slot];
+            if (end > to) {
+                if (start >= to) {
+                    break;
+                }
+                // The span ends inside this sample: apply the elapsed share, keep the rest for later.
+                double fraction = (double) (to - start) / (end - start);
+                applyOdometry(p, v, pp, pv, vv,
+                        odometryForward[slot] * fraction,
+                        odometryLeft[slot] * fraction,
+                        odometryTurn[slot] * fraction,
+                        to - start);
+                if (commit) {
+                    odometryForward[slot] *= 1 - fraction;
+                    odometryLeft[slot] *= 1 - fraction;
+                    odometryTurn[slot] *= 1 - fraction;
+                    odometryStart[slot] = to;
+                }
+                t = to;
+                break;
+            }
+            if (end > from) {
+                applyOdometry(p, v, pp, pv, vv,
+                        odometryForward[slot], odometryLeft[slot], odometryTurn[slot], end - start);
+                t = end;
+            }
+            if (commit) {
+                popOdometry();
+            } else {
+                index++;
+            }
+        }
+
+        if (to > t) {
+            long newestInformation = Math.max(from, hasOdometry ? lastOdometryNanos : from);
+            long motionEnd = Math.max(t, Math.min(to, newestInformation + maxExtrapolationNanos));
+            extrapolate(p, v, pp, pv, vv, (motionEnd - t) * 1e-9, (to - t) * 1e-9);
+        } else if (to < t) {
+            // Predicting before the filter time: move back along the velocity, uncertainty unchanged.
+            double dt = (to - t) * 1e-9;
+            for (int axis = 0; axis < AXES; axis++) {
+                p[axis] += v[axis] * dt;
+            }
+        }
+    }
+
+    /**
+     * Constant-velocity step: the position moves for {@code motionDt} seconds and the covariance grows for
+     * {@code noiseDt} seconds, so the uncertainty keeps rising once extrapolation is capped.
+     */
+    private void extrapolate(double[] p, double[] v, double[] pp, double[] pv, double[] vv,
+                             double motionDt, double noiseDt) {
+        double dt = noiseDt;
+        double dt2 = dt * dt;
+        for (int axis = 0; axis < AXES; axis++) {
+            double q = processNoise[axis];
+            p[axis] += v[axis] * motionDt;
+            pp[axis] += 2 * dt * pv[axis] + dt2 * vv[axis] + q * dt2 * dt / 3;
+            pv[axis] += dt * vv[axis] + q * dt2 / 2;
+            vv[axis] += q * dt;
+        }
+    }
+
+    /**
+     * Applies one robot-frame odometry delta at the mid-sample heading. The velocity is replaced by the
+     * odometry rate and decoupled from the position, so vision corrects the position without fighting the
+     * wheel-measured velocity.
+     */
+    private void applyOdometry(double[] p, double[] v, double[] pp, double[] pv, double[] vv,
+                               double forward, double left, double turn, long durationNanos) {
+        double midHeading = p[HEADING] + turn / 2;
+        double cos = Math.cos(midHeading);
+        double sin = Math.sin(midHeading);
+        double dx = cos * forward - sin * left;
+        double dy = sin * forward + cos * left;
+        p[X] += dx;
+        p[Y] += dy;
+        p[HEADING] += turn;
+
+        double distance = Math.hypot(forward, left);
+        double positionStd = config.odometryStdDevPerMeter * distance;
+        double headingStd = config.odometryStdDevPerRadian * Math.abs(turn);
+        pp[X] += positionStd * positionStd;
+        pp[Y] += positionStd * positionStd;
+        pp[HEADING] += headingStd * headingStd;
+
+        if (durationNanos > 0) {
+            double dt = durationNanos * 1e-9;
+            v[X] = dx / dt;
+            v[Y] = dy / dt;
+            v[HEADING] = turn / dt;
+            vv[X] = positionStd * positionStd / (dt * dt);
+            vv[Y] = vv[X];
+            vv[HEADING] = headingStd * headingStd / (dt * dt);
+        }
+        pv[X] = 0;
+        pv[Y] = 0;
+        pv[HEADING] = 0;
+    }
+
+    private void discardOdometryUntil(long nanoTime) {
+        while (odometryCount > 0) {
+            int slot = odometryHead;
+            long start = odometryStart[slot];
+            long end = odometryEnd[slot];
+            if (end <= nanoTime) {
+                popOdometry();
+                continue;
+            }
+            if (start < nanoTime) {
+                double remaining = (double) (end - nanoTime) / (end - start);
+                odometryForward[slot] *= remaining;
+                odometryLeft[slot] *= remaining;
+                odometryTurn[slot] *= remaining;
+                odometryStart[slot] = nanoTime;
+            }
+            return;
+        }
+    }
+
+    private void popOdometry() {
+        odometryHead = (odometryHead + 1) % odometryStart.length;
+        odometryCount--;
+    }
+
+    private static double wrapAngle(double radians) {
+        double wrapped = Math.IEEEremainder(radians, 2 * Math.PI);
+        return wrapped <= -Math.PI ? wrapped + 2 * Math.PI : wrapped;
+    }
+}
@@ -0,0 +1,109 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Closed-loop decimation controller. Decimation is raised when the nearest tag is close (plenty of pixels
+ * to spare) or the smoothed frame time exceeds the latency target, and lowered again when tags are far away
+ * or missing and the frame budget has headroom. Both the latency and range thresholds have a dead band, and
+ * every change is followed by a settle period so the loop does not oscillate between neighbouring steps.
+ *
+ * <p>Instances are not thread-safe; {@code AprilTagVisionProcessor} only drives them from the vision
+ * thread.</p>
+ */
+public class DecimationController implements DecimationPolicy {
+
+    public static class Config {
+        public float minDecimation = 1f;
+        public float maxDecimation = 4f;
+        public float step = 0.5f;
+        public float initialDecimation = 2f;
+        /** Per-frame processing time the controller tries to stay under. */
+        public double targetFrameMs = 30.0;
+        /** Dead band around {@link #targetFrameMs}; no latency-driven change happens inside it. */
+        public double latencyHysteresisMs = 5.0;
+        /** Nearest tag closer than this raises decimation. */
+        public double nearRangeMeters = 0.75;
+        /** Nearest tag farther than this (or no tag at all) allows decimation to drop. */
+        public double farRangeMeters = 1.5;
+        /** Frames to wait after a change before the controller may change decimation again. */
+        public int settleFrames = 10;
+        /** Weight of the newest sample in the exponentially smoothed frame time. */
+        public double smoothing = 0.2;
+    }
+
+    private final Config config;
+
+    private float decimation;
+    private double smoothedFrameMs = Double.NaN;
+    private int framesUntilNextChange;
+
+    public DecimationController(@NonNull Config config) {
+        if (config.minDecimation <= 0 || config.maxDecimation < config.minDecimation) {
+            throw new IllegalArgumentException("Invalid decimation range");
+        }
+        if (config.farRangeMeters < config.nearRangeMeters) {
+            throw new IllegalArgumentException("farRangeMeters must not be below nearRangeMeters");
+        }
+        this.config = config;
+        this.decimation = clamp(config.initialDecimation);
+    }
+
+    /**
+     * Feeds one frame's measurements into the controller.
+     *
+     * @param frameMs             time spent processing the frame
+     * @param nearestRangeMeters  range of the nearest detection, or {@link Double#NaN} when nothing was seen
+     * @return the decimation to use for the next frame
+     */
+    @Override
+    public float update(double frameMs, double nearestRangeMeters) {
+        smoothedFrameMs = Double.isNaN(smoothedFrameMs)
+                ? frameMs
+                : smoothedFrameMs + config.smoothing * (frameMs - smoothedFrameMs);
+
+        if (framesUntilNextChange > 0) {
+            framesUntilNextChange--;
+            return decimation;
+        }
+
+        boolean overBudget = smoothedFrameMs > config.targetFrameMs + config.latencyHysteresisMs;
+        boolean underBudget = smoothedFrameMs < config.targetFrameMs - config.latencyHysteresisMs;
+        boolean tagsClose = !Double.isNaN(nearestRangeMeters) && nearestRangeMeters < config.nearRangeMeters;
+        boolean tagsFarOrMissing = Double.isNaN(nearestRangeMeters) || nearestRangeMeters > config.farRangeMeters;
+
+        float next = decimation;
+        if (overBudget || tagsClose) {
+            next = clamp(decimation + config.step);
+        } else if (underBudget && tagsFarOrMissing) {
+            next = clamp(decimation - config.step);
+        }
+        if (next != decimation) {
+            decimation = next;
+            framesUntilNextChange = config.settleFrames;
+        }
+        return decimation;
+    }
+
+    /**
+     * Overrides the current decimation, e.g. after a manual change, and restarts the settle period.
+     */
+    @Override
+    public void reset(float decimation) {
+        this.decimation = clamp(decimation);
+        this.framesUntilNextChange = config.settleFrames;
+    }
+
+    @Override
+    public float getDecimation() {
+        return decimation;
+    }
+
+    public double getSmoothedFrameMs() {
+        return smoothedFrameMs;
+    }
+
+    private float clamp(float value) {
+        return Math.max(config.minDecimation, Math.min(config.maxDecimation, value));
+    }
+}
@@ -0,0 +1,59 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Temporarily raises a {@link DecimationTarget}'s decimation and later puts back exactly what was there:
+ * the explicit value, or no value at all when the detector default was in effect. Adaptive decimation is
+ * paused while the override is active, so it cannot undo the raise. Not thread-safe.
+ */
+final class DecimationOverride {
+
+    /** What the SDK detector uses until decimation is set explicitly. */
+    static final float SDK_DEFAULT_DECIMATION = 3;
+
+    private final DecimationTarget target;
+    private boolean active;
+    /** Explicit decimation before the override, NaN when none was set. */
+    private float saved = Float.NaN;
+
+    DecimationOverride(@NonNull DecimationTarget target) {
+        this.target = target;
+    }
+
+    /**
+     * Raises decimation to {@code decimation} unless the value in effect is already at least that high.
+     * Repeated calls while active keep the state saved by the first.
+     */
+    void apply(float decimation) {
+        if (!active) {
+            saved = target.getDecimation();
+            active = true;
+        }
+        target.setAdaptiveDecimationPaused(true);
+        float current = Float.isNaN(saved) ? SDK_DEFAULT_DECIMATION : saved;
+        if (current < decimation) {
+            target.setDecimation(decimation);
+        }
+    }
+
+    /**
+     * Puts back the decimation saved by {@link #apply} and resumes adaptive decimation; no-op when inactive.
+     */
+    void restore() {
+        if (!active) {
+            return;
+        }
+        active = false;
+        if (Float.isNaN(saved)) {
+            target.clearDecimation();
+        } else {
+            target.setDecimation(saved);
+        }
+        target.setAdaptiveDecimationPaused(false);
+    }
+
+    boolean isActive() {
+        return active;
+    }
+}
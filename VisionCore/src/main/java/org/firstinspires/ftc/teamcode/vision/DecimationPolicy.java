@@ -0,0 +1,22 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Chooses the detector decimation for the next frame from the measurements of the current one.
+ * Implementations are driven from the vision thread only.
+ */
+public interface DecimationPolicy {
+
+    /**
+     * @param frameMs             time spent processing the frame
+     * @param nearestRangeMeters  range of the nearest detection, or {@link Double#NaN} when nothing was seen
+     * @return the decimation to use for the next frame
+     */
+    float update(double frameMs, double nearestRangeMeters);
+
+    /**
+     * Restarts the policy from {@code decimation}, e.g. after a manual override.
+     */
+    void reset(float decimation);
+
+    float getDecimation();
+}
@@ -0,0 +1,24 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Decimation settings of one camera's detectors, as changed by a {@link DecimationOverride}.
+ */
+public interface DecimationTarget {
+
+    /**
+     * @return the decimation set explicitly, or {@link Float#NaN} while the detector default is in effect
+     */
+    float getDecimation();
+
+    void setDecimation(float decimation);
+
+    /**
+     * Returns the detectors to their default decimation, so {@link #getDecimation()} reports NaN again.
+     */
+    void clearDecimation();
+
+    /**
+     * Holds adaptive decimation at its current value while paused; no-op without adaptive decimation.
+     */
+    void setAdaptiveDecimationPaused(boolean paused);
+}
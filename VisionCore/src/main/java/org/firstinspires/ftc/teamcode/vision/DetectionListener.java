@@ -0,0 +1,13 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Receives every published detection snapshot on the vision thread, immediately after it becomes visible
+ * to readers. Implementations must return quickly and must not keep a reference to the snapshot after
+ * returning; copy out anything that is needed later.
+ */
+public interface DetectionListener {
+
+    void onDetections(@NonNull DetectionSnapshot snapshot);
+}
@@ -0,0 +1,79 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Op mode side of one camera's detections: a {@link DetectionView} and a {@link TagIdIndex} that always read
+ * the same acquired snapshots.
+ *
+ * <p>Acquiring from a {@link SnapshotSource} recycles the snapshot acquired before, which the writer then
+ * fills with a new frame. So once {@link #acquireView()} has handed the view out, ID lookups and
+ * {@link #currentView()} read the snapshots that view holds instead of acquiring again, and only the next
+ * {@link #acquireView()} moves to a newer frame. Until a view has been handed out, they acquire the newest
+ * frame themselves.</p>
+ *
+ * <p>Not thread-safe: every call must come from the one reader thread, normally the op mode thread.</p>
+ */
+public final class DetectionReader {
+
+    private final SnapshotSource[] sources;
+    private final DetectionView view;
+    private final TagIdIndex index;
+    private final long[] indexedSequences;
+    private boolean viewLent;
+
+    /**
+     * @param families every family name the sources may report
+     */
+    DetectionReader(@NonNull SnapshotSource[] sources, @NonNull String[] families, @NonNull PoseUnits units) {
+        this.sources = sources.clone();
+        this.view = new DetectionView(sources.length, units);
+        this.index = new TagIdIndex(families, units);
+        this.indexedSequences = new long[sources.length];
+    }
+
+    /**
+     * Rebinds the view to the newest snapshot of every source and folds new frames into the index. The view
+     * stays valid until the next call, and lookups read the same frames until then.
+     */
+    @NonNull
+    DetectionView acquireView() {
+        acquire();
+        viewLent = true;
+        return view;
+    }
+
+    /**
+     * @return the view handed out by {@link #acquireView()}, or the newest frames if none was handed out
+     */
+    @NonNull
+    DetectionView currentView() {
+        if (!viewLent) {
+            acquire();
+        }
+        return view;
+    }
+
+    /**
+     * @return the ID index, up to date with {@link #currentView()}
+     */
+    @NonNull
+    TagLookup lookup() {
+        currentView();
+        return index;
+    }
+
+    private void acquire() {
+        view.clear();
+        for (int i = 0; i < sources.length; i++) {
+            DetectionSnapshot snapshot = sources[i].acquire();
+            view.addSource(snapshot);
+            // One sequence check per source when nothing changed, so lookups can be repeated freely. A pending
+            // snapshot is left out: the index keeps poses, and the complete one follows with the same sequence.
+            if (snapshot.getFrameSequence() != indexedSequences[i] && !snapshot.isPending()) {
+                indexedSequences[i] = snapshot.getFrameSequence();
+                index.update(snapshot);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * One frame's detections stored as primitive arrays indexed by detection slot. Poses are kept in the raw
+ * units produced by the detector (meters and radians); {@link DetectionView} converts lazily on access.
+ * Snapshots are preallocated for a fixed number of detections and recycled by
+ * {@link DetectionSnapshotBuffer}, so filling one never allocates.
+ */
+public final class DetectionSnapshot {
+
+    private final String[] familyNames;
+    private final int capacity;
+
+    final int[] id;
+    final int[] familyIndex;
+    final double[] centerX;
+    final double[] centerY;
+    /** Eight values per slot: {@code x0, y0, ... x3, y3} in full-frame pixels. */
+    final double[] corners;
+    final double[] range;
+    final double[] bearing;
+    final double[] elevation;
+    final double[] x;
+    final double[] y;
+    final double[] z;
+    final double[] yaw;
+    final double[] pitch;
+    final double[] roll;
+
+    int count;
+    int overflow;
+    long captureTimeNanos;
+    long frameSequence;
+    boolean pending;
+
+    /**
+     * @param familyNames names indexed by {@link #getFamilyIndex(int)}; the array is shared, not copied
+     */
+    public DetectionSnapshot(@NonNull String[] familyNames, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.familyNames = familyNames;
+        this.capacity = capacity;
+        id = new int[capacity];
+        familyIndex = new int[capacity];
+        centerX = new double[capacity];
+        centerY = new double[capacity];
+        corners = new double[capacity * 8];
+        range = new double[capacity];
+        bearing = new double[capacity];
+        elevation = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        z = new double[capacity];
+        yaw = new double[capacity];
+        pitch = new double[capacity];
+        roll = new double[capacity];
+    }
+
+    void reset(long captureTimeNanos, long frameSequence) {
+        this.count = 0;
+        this.overflow = 0;
+        this.captureTimeNanos = captureTimeNanos;
+        this.frameSequence = frameSequence;
+        this.pending = false;
+    }
+
+    /**
+     * Copies every slot and the frame stamps of {@code other}, which must have the same capacity.
+     */
+    void copyFrom(@NonNull DetectionSnapshot other) {
+        int n = other.count;
+        System.arraycopy(other.id, 0, id, 0, n);
+        System.arraycopy(other.familyIndex, 0, familyIndex, 0, n);
+        System.arraycopy(other.centerX, 0, centerX, 0, n);
+        System.arraycopy(other.centerY, 0, centerY, 0, n);
+        System.arraycopy(other.corners, 0, corners, 0, n * 8);
+        System.arraycopy(other.range, 0, range, 0, n);
+        System.arraycopy(other.bearing, 0, bearing, 0, n);
+        System.arraycopy(other.elevation, 0, elevation, 0, n);
+        System.arraycopy(other.x, 0, x, 0, n);
+        System.arraycopy(other.y, 0, y, 0, n);
+        System.arraycopy(other.z, 0, z, 0, n);
+        System.arraycopy(other.yaw, 0, yaw, 0, n);
+        System.arraycopy(other.pitch, 0, pitch, 0, n);
+        System.arraycopy(other.roll, 0, roll, 0, n);
+        count = n;
+        overflow = other.overflow;
+        captureTimeNanos = other.captureTimeNanos;
+        frameSequence = other.frameSequence;
+        pending = other.pending;
+    }
+
+    void setPending(boolean pending) {
+        this.pending = pending;
+    }
+
+    /**
+     * Claims the next slot with its pose marked as unknown.
+     *
+     * @return the slot index, or -1 if the snapshot is full (the detection is counted as overflow)
+     */
+    int add(int tagId, int family, double cx, double cy) {
+        if (count == capacity) {
+            overflow++;
+            return -1;
+        }
+        int slot = count++;
+        id[slot] = tagId;
+        familyIndex[slot] = family;
+        centerX[slot] = cx;
+        centerY[slot] = cy;
+        clearPose(slot);
+        return slot;
+    }
+
+    /**
+     * Moves a slot to a lower slot, e.g. to close the gap left by a detection a filter rejected after its
+     * pose was solved.
+     */
+    void moveSlot(int from, int to) {
+        id[to] = id[from];
+        familyIndex[to] = familyIndex[from];
+        centerX[to] = centerX[from];
+        centerY[to] = centerY[from];
+        System.arraycopy(corners, from * 8, corners, to * 8, 8);
+        setPose(to, range[from], bearing[from], elevation[from], x[from], y[from], z[from],
+                yaw[from], pitch[from], roll[from]);
+    }
+
+    /**
+     * Keeps only the first {@code newCount} slots.
+     */
+    void truncate(int newCount) {
+        count = newCount;
+    }
+
+    void setPose(int slot, double rangeM, double bearingRad, double elevationRad,
+                 double xM, double yM, double zM, double yawRad, double pitchRad, double rollRad) {
+        range[slot] = rangeM;
+        bearing[slot] = bearingRad;
+        elevation[slot] = elevationRad;
+        x[slot] = xM;
+        y[slot] = yM;
+        z[slot] = zM;
+        yaw[slot] = yawRad;
+        pitch[slot] = pitchRad;
+        roll[slot] = rollRad;
+    }
+
+    void clearPose(int slot) {
+        setPose(slot, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return detections that did not fit into this snapshot
+     */
+    public int getOverflow() {
+        return overflow;
+    }
+
+    public long getCaptureTimeNanos() {
+        return captureTimeNanos;
+    }
+
+    public long getFrameSequence() {
+        return frameSequence;
+    }
+
+    /**
+     * @return whether this is an early copy of the frame published before its poses were solved: IDs and
+     *         corners are final, poses are unknown, and a complete snapshot with the same frame sequence
+     *         follows. Its tags have not been range-filtered yet, so the complete one may hold fewer.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    public int getId(int slot) {
+        return id[slot];
+    }
+
+    public int getFamilyIndex(int slot) {
+        return familyIndex[slot];
+    }
+
+    @NonNull
+    public String getTagFamily(int slot) {
+        int index = familyIndex[slot];
+        return index >= 0 && index < familyNames.length ? familyNames[index] : "unknown";
+    }
+
+    public double getCenterX(int slot) {
+        return centerX[slot];
+    }
+
+    public double getCenterY(int slot) {
+        return centerY[slot];
+    }
+
+    public double getCornerX(int slot, int corner) {
+        return corners[slot * 8 + corner * 2];
+    }
+
+    public double getCornerY(int slot, int corner) {
+        return corners[slot * 8 + corner * 2 + 1];
+    }
+
+    public double getRangeMeters(int slot) {
+        return range[slot];
+    }
+
+    public double getBearingRadians(int slot) {
+        return bearing[slot];
+    }
+
+    public double getElevationRadians(int slot) {
+        return elevation[slot];
+    }
+
+    public double getXMeters(int slot) {
+        return x[slot];
+    }
+
+    public double getYMeters(int slot) {
+        return y[slot];
+    }
+
+    public double getZMeters(int slot) {
+        return z[slot];
+    }
+
+    public double getYawRadians(int slot) {
+        return yaw[slot];
+    }
+
+    public double getPitchRadians(int slot) {
+        return pitch[slot];
+    }
+
+    public double getRollRadians(int slot) {
+        return roll[slot];
+    }
+}
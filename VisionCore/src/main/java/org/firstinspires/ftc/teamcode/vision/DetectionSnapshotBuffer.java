@@ -0,0 +1,69 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer of {@link DetectionSnapshot}s between the vision thread (single writer) and one
+ * reader thread. The writer fills its private back buffer and publishes it with a single atomic swap; the
+ * reader swaps the newest published buffer in when it asks for one. Neither side ever touches a buffer the
+ * other is using, and nothing is allocated after construction.
+ *
+ * <p>Only one thread may call {@link #acquire()}; in this package that is the op mode thread via
+ * {@code AprilTagVisionManager}. Writer-side callbacks may read the snapshot returned by {@link #publish()}
+ * until they return.</p>
+ */
+public final class DetectionSnapshotBuffer implements SnapshotSource {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    private final DetectionSnapshot[] snapshots = new DetectionSnapshot[3];
+    /** Index of the middle buffer, plus {@link #FRESH} if it was published since the reader last swapped. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    private int writeIndex = 0;
+    private int readIndex = 2;
+
+    public DetectionSnapshotBuffer(@NonNull String[] familyNames, int capacity) {
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = new DetectionSnapshot(familyNames, capacity);
+        }
+    }
+
+    /**
+     * Writer side: returns the private back buffer, cleared and stamped for a new frame.
+     */
+    @NonNull
+    DetectionSnapshot beginWrite(long captureTimeNanos, long frameSequence) {
+        DetectionSnapshot snapshot = snapshots[writeIndex];
+        snapshot.reset(captureTimeNanos, frameSequence);
+        return snapshot;
+    }
+
+    /**
+     * Writer side: makes the back buffer visible to the reader and takes over the previous middle buffer.
+     *
+     * @return the snapshot just published
+     */
+    @NonNull
+    DetectionSnapshot publish() {
+        int published = writeIndex;
+        writeIndex = middle.getAndSet(published | FRESH) & INDEX_MASK;
+        return snapshots[published];
+    }
+
+    /**
+     * Reader side: returns the newest published snapshot. The returned instance stays stable until the next
+     * call to this method.
+     */
+    @NonNull
+    @Override
+    public DetectionSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+        }
+        return snapshots[readIndex];
+    }
+}
@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Default {@link TelemetryFormatter}. Numbers are written by {@link #appendFixed} rather than
+ * {@code String.format}, so formatting neither boxes arguments nor allocates.
+ */
+public class DetectionTextFormatter implements TelemetryFormatter {
+
+    public enum Layout {
+        /** One short line per tag: id, range and bearing. */
+        COMPACT,
+        /** One line per tag with family, range and full orientation. */
+        VERBOSE
+    }
+
+    private final Layout layout;
+
+    public DetectionTextFormatter(@NonNull Layout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public void appendSummary(@NonNull DetectionView detections, @NonNull StringBuilder out) {
+        out.append("Detections: ").append(detections.size());
+    }
+
+    @Override
+    public void appendDetection(@NonNull DetectionView detections, int i, @NonNull StringBuilder out) {
+        String distanceLabel = detections.getUnits().getDistanceLabel();
+        String angleLabel = detections.getUnits().getAngleLabel();
+        if (layout == Layout.COMPACT) {
+            out.append(detections.getId(i)).append(": ");
+            appendFixed(out, detections.getRange(i), 2);
+            out.append(distanceLabel).append(" brg ");
+            appendFixed(out, detections.getBearing(i), 1);
+            out.append(angleLabel);
+            return;
+        }
+        out.append('#').append(i + 1)
+                .append(" | id=").append(detections.getId(i))
+                .append(" fam=").append(detections.getTagFamily(i))
+                .append(" range=");
+        appendFixed(out, detections.getRange(i), 2);
+        out.append(' ').append(distanceLabel).append(" yaw=");
+        appendFixed(out, detections.getYaw(i), 1);
+        out.append(' ').append(angleLabel).append(" pitch=");
+        appendFixed(out, detections.getPitch(i), 1);
+        out.append(' ').append(angleLabel).append(" roll=");
+        appendFixed(out, detections.getRoll(i), 1);
+        out.append(' ').append(angleLabel);
+    }
+
+    @Override
+    public void appendLatencySummary(@NonNull PipelineMetrics metrics, @NonNull StringBuilder out) {
+        out.append("Latency frames: ").append(metrics.getCaptureToPublish().getCount());
+    }
+
+    @Override
+    public void appendLatency(@NonNull LatencyHistogram histogram, @NonNull StringBuilder out) {
+        out.append(histogram.getName()).append(" p50=");
+        appendFixed(out, histogram.getP50Ms(), 1);
+        out.append(" p95=");
+        appendFixed(out, histogram.getP95Ms(), 1);
+        out.append(" p99=");
+        appendFixed(out, histogram.getP99Ms(), 1);
+        out.append(" max=");
+        appendFixed(out, histogram.getMaxMs(), 1);
+        out.append(" ms");
+    }
+
+    /**
+     * Appends {@code value} rounded half-up to {@code decimals} places (0-6), without allocating.
+     * Non-finite values are written as {@code NaN}, {@code Inf} or {@code -Inf}.
+     */
+    public static StringBuilder appendFixed(@NonNull StringBuilder out, double value, int decimals) {
+        if (Double.isNaN(value)) {
+            return out.append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return out.append(value > 0 ? "Inf" : "-Inf");
+        }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / scale);
+        if (decimals > 0) {
+            out.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > 1 && fraction < digit; digit /= 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+        }
+        return out;
+    }
+}
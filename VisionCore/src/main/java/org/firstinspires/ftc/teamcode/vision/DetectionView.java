@@ -0,0 +1,189 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reusable, allocation-free read view over the latest snapshot of one or more processors. Detections are
+ * addressed by index {@code 0 .. size() - 1}; pose values are converted to the configured units only when
+ * they are read, through the view's {@link PoseUnits}.
+ *
+ * <p>A view is rebound on every {@code AprilTagVisionManager#getDetectionView()} call and must only be read
+ * from the thread that obtained it.</p>
+ */
+public final class DetectionView {
+
+    private final PoseUnits units;
+    private final DetectionSnapshot[] sources;
+    private int sourceCount;
+    private int size;
+
+    // Cache of the last index resolution; consecutive reads of one detection hit it every time.
+    private int resolvedIndex = -1;
+    private DetectionSnapshot resolvedSnapshot;
+    private int resolvedSlot;
+
+    DetectionView(int maxSources, @NonNull PoseUnits units) {
+        this.sources = new DetectionSnapshot[maxSources];
+        this.units = units;
+    }
+
+    void clear() {
+        for (int i = 0; i < sourceCount; i++) {
+            sources[i] = null;
+        }
+        sourceCount = 0;
+        size = 0;
+        resolvedIndex = -1;
+        resolvedSnapshot = null;
+    }
+
+    void addSource(@NonNull DetectionSnapshot snapshot) {
+        sources[sourceCount++] = snapshot;
+        size += snapshot.size();
+        resolvedIndex = -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the newest capture timestamp among the bound snapshots, or 0 before the first frame
+     */
+    public long getCaptureTimeNanos() {
+        long newest = 0;
+        for (int i = 0; i < sourceCount; i++) {
+            newest = Math.max(newest, sources[i].getCaptureTimeNanos());
+        }
+        return newest;
+    }
+
+    /**
+     * @return whether any bound snapshot is still waiting for its poses; see {@link DetectionSnapshot#isPending()}
+     */
+    public boolean isPending() {
+        for (int i = 0; i < sourceCount; i++) {
+            if (sources[i].isPending()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the newest frame sequence among the bound snapshots, or 0 before the first frame
+     */
+    public long getFrameSequence() {
+        long newest = 0;
+        for (int i = 0; i < sourceCount; i++) {
+            newest = Math.max(newest, sources[i].getFrameSequence());
+        }
+        return newest;
+    }
+
+    public int getId(int index) {
+        return resolve(index).getId(resolvedSlot);
+    }
+
+    @NonNull
+    public String getTagFamily(int index) {
+        return resolve(index).getTagFamily(resolvedSlot);
+    }
+
+    public double getCenterX(int index) {
+        return resolve(index).getCenterX(resolvedSlot);
+    }
+
+    public double getCenterY(int index) {
+        return resolve(index).getCenterY(resolvedSlot);
+    }
+
+    public double getCornerX(int index, int corner) {
+        return resolve(index).getCornerX(resolvedSlot, corner);
+    }
+
+    public double getCornerY(int index, int corner) {
+        return resolve(index).getCornerY(resolvedSlot, corner);
+    }
+
+    public double getRange(int index) {
+        return units.fromMeters(resolve(index).getRangeMeters(resolvedSlot));
+    }
+
+    /**
+     * Unconverted range, for comparisons across views with different units.
+     */
+    double getRangeMeters(int index) {
+        return resolve(index).getRangeMeters(resolvedSlot);
+    }
+
+    public double getBearing(int index) {
+        return units.fromRadians(resolve(index).getBearingRadians(resolvedSlot));
+    }
+
+    public double getElevation(int index) {
+        return units.fromRadians(resolve(index).getElevationRadians(resolvedSlot));
+    }
+
+    public double getTranslationX(int index) {
+        return units.fromMeters(resolve(index).getXMeters(resolvedSlot));
+    }
+
+    public double getTranslationY(int index) {
+        return units.fromMeters(resolve(index).getYMeters(resolvedSlot));
+    }
+
+    public double getTranslationZ(int index) {
+        return units.fromMeters(resolve(index).getZMeters(resolvedSlot));
+    }
+
+    public double getYaw(int index) {
+        return units.fromRadians(resolve(index).getYawRadians(resolvedSlot));
+    }
+
+    public double getPitch(int index) {
+        return units.fromRadians(resolve(index).getPitchRadians(resolvedSlot));
+    }
+
+    public double getRoll(int index) {
+        return units.fromRadians(resolve(index).getRollRadians(resolvedSlot));
+    }
+
+    public long getCaptureTimeNanos(int index) {
+        return resolve(index).getCaptureTimeNanos();
+    }
+
+    public long getFrameSequence(int index) {
+        return resolve(index).getFrameSequence();
+    }
+
+    @NonNull
+    public PoseUnits getUnits() {
+        return units;
+    }
+
+    private DetectionSnapshot resolve(int index) {
+        if (index == resolvedIndex) {
+            return resolvedSnapshot;
+        }
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        int slot = index;
+        for (int i = 0; i < sourceCount; i++) {
+            DetectionSnapshot snapshot = sources[i];
+            if (slot < snapshot.size()) {
+                resolvedIndex = index;
+                resolvedSnapshot = snapshot;
+                resolvedSlot = slot;
+                return snapshot;
+            }
+            slot -= snapshot.size();
+        }
+        throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+    }
+}
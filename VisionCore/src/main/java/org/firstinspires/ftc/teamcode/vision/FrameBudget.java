@@ -0,0 +1,109 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Caps how many frames per second, and how much CPU time, one camera's pipeline may use, so that several
+ * cameras sharing the hub cannot starve each other. Frames over budget are skipped before detection.
+ *
+ * <p>The frame rate is enforced against a schedule rather than the time since the last admitted frame, so
+ * camera jitter does not halve the effective rate. CPU time is a token bucket: it fills at
+ * {@link Config#maxCpuFraction} of wall time, up to one {@link Config#burstMs} window, and every processed
+ * frame drains its processing time. Frames are admitted while the bucket is not empty.</p>
+ *
+ * <p>One instance may be shared by all processors of a camera. The decision is made once per capture
+ * timestamp, so every processor skips or runs the same frames. Calls come from the camera's vision
+ * thread only.</p>
+ */
+public class FrameBudget {
+
+    public static class Config {
+        /** Frames processed per second at most; 0 for no limit. */
+        public double maxFps = 0;
+        /** Share of one core the pipeline may use on average, e.g. 0.5; 0 for no limit. */
+        public double maxCpuFraction = 0;
+        /** Processing time that may be spent in a burst after an idle period, at full budget. */
+        public double burstMs = 250;
+    }
+
+    private final long frameIntervalNanos;
+    private final double cpuFraction;
+    private final double maxTokensNanos;
+
+    private long nextDueNanos = Long.MIN_VALUE;
+    private double tokensNanos;
+    private long lastRefillNanos = Long.MIN_VALUE;
+
+    private long decidedCaptureTimeNanos = Long.MIN_VALUE;
+    private boolean decision;
+    private volatile long admittedFrames;
+    private volatile long skippedFrames;
+
+    public FrameBudget(@NonNull Config config) {
+        if (config.maxFps < 0 || config.maxCpuFraction < 0 || config.burstMs < 0) {
+            throw new IllegalArgumentException("Frame budget limits must not be negative");
+        }
+        this.frameIntervalNanos = config.maxFps > 0 ? (long) (1e9 / config.maxFps) : 0;
+        this.cpuFraction = config.maxCpuFraction;
+        this.maxTokensNanos = config.burstMs * 1e6 * config.maxCpuFraction;
+        this.tokensNanos = maxTokensNanos;
+    }
+
+    /**
+     * Decides whether the frame captured at {@code captureTimeNanos} may be processed. Repeated calls for the
+     * same capture time return the first decision.
+     */
+    public boolean admit(long captureTimeNanos, long nowNanos) {
+        if (captureTimeNanos == decidedCaptureTimeNanos) {
+            return decision;
+        }
+        decidedCaptureTimeNanos = captureTimeNanos;
+        decision = decide(nowNanos);
+        if (decision) {
+            admittedFrames++;
+        } else {
+            skippedFrames++;
+        }
+        return decision;
+    }
+
+    private boolean decide(long nowNanos) {
+        if (cpuFraction > 0) {
+            if (lastRefillNanos != Long.MIN_VALUE) {
+                tokensNanos = Math.min(maxTokensNanos, tokensNanos + (nowNanos - lastRefillNanos) * cpuFraction);
+            }
+            lastRefillNanos = nowNanos;
+            if (tokensNanos <= 0) {
+                return false;
+            }
+        }
+        if (frameIntervalNanos > 0) {
+            // A quarter-interval tolerance absorbs capture jitter; catching up after idle never bursts.
+            if (nextDueNanos != Long.MIN_VALUE && nowNanos < nextDueNanos - frameIntervalNanos / 4) {
+                return false;
+            }
+            long base = nextDueNanos == Long.MIN_VALUE
+                    ? nowNanos
+                    : Math.max(nextDueNanos, nowNanos - frameIntervalNanos);
+            nextDueNanos = base + frameIntervalNanos;
+        }
+        return true;
+    }
+
+    /**
+     * Charges one processor's time on an admitted frame against the CPU budget.
+     */
+    public void record(long startNanos, long endNanos) {
+        if (cpuFraction > 0) {
+            tokensNanos -= endNanos - startNanos;
+        }
+    }
+
+    public long getAdmittedFrames() {
+        return admittedFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+}
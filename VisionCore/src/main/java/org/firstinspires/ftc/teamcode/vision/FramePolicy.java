@@ -0,0 +1,172 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides at the entry of {@code processFrame} which delivered frames are worth processing, and counts
+ * what happened to every frame the camera produced. For control, a fresh frame that arrives late is worse
+ * than a dropped one, so {@link Mode#SKIP_STALE} rejects frames that already waited too long.
+ *
+ * <p>The portal always hands over the newest frame it has and drops the rest while the pipeline is busy.
+ * Those upstream drops are estimated from gaps in the capture timestamps, measured against the shortest
+ * recent gap as the camera's frame interval.</p>
+ *
+ * <p>Like {@link FrameBudget}, one instance may be shared by all processors of a camera: the decision is made
+ * once per capture timestamp. Decisions are made on the vision thread; counters may be read from any
+ * thread.</p>
+ */
+public class FramePolicy {
+
+    public enum Mode {
+        /** Process every delivered frame; the portal already delivers the newest one available. */
+        NEWEST,
+        /** Process one of every {@link Config#everyNth} delivered frames. */
+        EVERY_NTH,
+        /** Skip frames that waited longer than {@link Config#maxAgeMs} between capture and processing. */
+        SKIP_STALE
+    }
+
+    public static class Config {
+        public Mode mode = Mode.NEWEST;
+        /** Frame stride for {@link Mode#EVERY_NTH}. */
+        public int everyNth = 2;
+        /** Oldest frame, from capture to processing, that {@link Mode#SKIP_STALE} still processes. */
+        public double maxAgeMs = 50.0;
+    }
+
+    /** Frames per window of the frame-interval estimate; it adapts to frame-rate changes at this pace. */
+    private static final int INTERVAL_WINDOW = 128;
+
+    private final Mode mode;
+    private final int everyNth;
+    private final long maxAgeNanos;
+
+    private long decidedCaptureTimeNanos = Long.MIN_VALUE;
+    private boolean decision;
+    private long lastCaptureTimeNanos = Long.MIN_VALUE;
+    private volatile long intervalEstimateNanos = Long.MAX_VALUE;
+    private long windowMinGapNanos = Long.MAX_VALUE;
+    private int windowFrames;
+    private int sinceProcessed;
+
+    private volatile long deliveredFrames;
+    private volatile long processedFrames;
+    private volatile long skippedFrames;
+    private volatile long staleFrames;
+    private volatile long droppedFrames;
+
+    public FramePolicy(@NonNull Config config) {
+        if (config.mode == Mode.EVERY_NTH && config.everyNth < 1) {
+            throw new IllegalArgumentException("everyNth must be at least 1");
+        }
+        this.mode = config.mode;
+        this.everyNth = Math.max(1, config.everyNth);
+        this.maxAgeNanos = (long) (config.maxAgeMs * 1e6);
+    }
+
+    /**
+     * Decides whether the frame captured at {@code captureTimeNanos} is processed. Repeated calls for the
+     * same capture time return the first decision.
+     */
+    public boolean admit(long captureTimeNanos, long nowNanos) {
+        if (captureTimeNanos == decidedCaptureTimeNanos) {
+            return decision;
+        }
+        decidedCaptureTimeNanos = captureTimeNanos;
+        deliveredFrames++;
+        countUpstreamDrops(captureTimeNanos);
+
+        switch (mode) {
+            case EVERY_NTH:
+                decision = sinceProcessed == 0;
+                sinceProcessed = (sinceProcessed + 1) % everyNth;
+                break;
+            case SKIP_STALE:
+                decision = nowNanos - captureTimeNanos <= maxAgeNanos;
+                if (!decision) {
+                    staleFrames++;
+                }
+                break;
+            case NEWEST:
+            default:
+                decision = true;
+                break;
+        }
+        if (decision) {
+            processedFrames++;
+        } else {
+            skippedFrames++;
+        }
+        return decision;
+    }
+
+    private void countUpstreamDrops(long captureTimeNanos) {
+        long previous = lastCaptureTimeNanos;
+        lastCaptureTimeNanos = captureTimeNanos;
+        if (previous == Long.MIN_VALUE || captureTimeNanos <= previous) {
+            return;
+        }
+        long gap = captureTimeNanos - previous;
+        windowMinGapNanos = Math.min(windowMinGapNanos, gap);
+        if (++windowFrames == INTERVAL_WINDOW) {
+            intervalEstimateNanos = windowMinGapNanos;
+            windowMinGapNanos = Long.MAX_VALUE;
+            windowFrames = 0;
+        } else if (intervalEstimateNanos == Long.MAX_VALUE || gap < intervalEstimateNanos) {
+            intervalEstimateNanos = gap;
+        }
+        // A gap of about k intervals means k - 1 frames never reached the processor.
+        long missing = (gap + intervalEstimateNanos / 2) / intervalEstimateNanos - 1;
+        if (missing > 0) {
+            droppedFrames += missing;
+        }
+    }
+
+    @NonNull
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return frames that reached {@code processFrame}
+     */
+    public long getDeliveredFrames() {
+        return deliveredFrames;
+    }
+
+    /**
+     * @return delivered frames the policy let through
+     */
+    public long getProcessedFrames() {
+        return processedFrames;
+    }
+
+    /**
+     * @return delivered frames the policy rejected, including stale ones
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * @return delivered frames rejected by {@link Mode#SKIP_STALE} for their age
+     */
+    public long getStaleFrames() {
+        return staleFrames;
+    }
+
+    /**
+     * @return estimated frames the camera produced that were dropped before reaching {@code processFrame}
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return the estimated camera frame interval in milliseconds, or {@link Double#NaN} before two frames
+     */
+    public double getFrameIntervalMs() {
+        long estimate = intervalEstimateNanos;
+        return estimate == Long.MAX_VALUE ? Double.NaN : estimate / 1e6;
+    }
+}
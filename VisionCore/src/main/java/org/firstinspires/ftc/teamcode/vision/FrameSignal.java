@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Counts completed frames and lets other threads block until the count moves past a value they have seen.
+ * {@link #signal()} is called from vision threads; {@link #get()} and {@link #await} from any thread.
+ */
+final class FrameSignal {
+
+    private volatile long sequence;
+
+    /**
+     * @return frames signalled so far
+     */
+    long get() {
+        return sequence;
+    }
+
+    /**
+     * Counts one frame and wakes every waiter.
+     */
+    synchronized void signal() {
+        sequence++;
+        notifyAll();
+    }
+
+    /**
+     * Wakes every waiter without counting a frame, e.g. on shutdown so they can notice it.
+     */
+    synchronized void wakeAll() {
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a frame after {@code lastSequence} has been signalled or the timeout expires.
+     *
+     * @return the current sequence; equal to {@code lastSequence} if the wait timed out
+     */
+    synchronized long await(long lastSequence, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (sequence <= lastSequence) {
+            long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            if (remainingMs <= 0) {
+                break;
+            }
+            wait(remainingMs);
+        }
+        return sequence;
+    }
+}
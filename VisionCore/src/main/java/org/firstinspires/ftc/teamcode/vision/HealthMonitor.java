@@ -0,0 +1,185 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Judges periodic health samples of a vision pipeline and decides when to step down a degradation tier,
+ * step back up, or restart the camera. Holds no reference to the pipeline, so the thresholds can be tuned
+ * offline against recorded samples.
+ *
+ * <ul>
+ *     <li>Overloaded: the frame rate is below {@link Config#minFps} or the average processing time above
+ *     {@link Config#maxFrameMs} for {@link Config#degradeAfterSamples} samples in a row.</li>
+ *     <li>Headroom: both are better than their limit by {@link Config#recoveryMargin} for
+ *     {@link Config#recoverAfterSamples} samples in a row. The margin and the longer wait keep the pipeline
+ *     from oscillating between two tiers.</li>
+ *     <li>Stalled: the camera delivered no frame while streaming for {@link Config#stallMs}, or for
+ *     {@link Config#startupTimeoutMs} before the first frame. A camera that has left its streaming state
+ *     delivers nothing, so it is restarted on the same timeouts. A restart is then requested at most every
+ *     {@link Config#restartCooldownMs}.</li>
+ * </ul>
+ *
+ * <p>Progress is measured on frames the camera delivered, not on frames processed or published, so frames
+ * a frame policy or budget drops on purpose never look like a stall.</p>
+ *
+ * <p>Samples come from one thread; the getters may be read from any thread.</p>
+ */
+public class HealthMonitor {
+
+    public static class Config {
+        /** Frame rate below which the pipeline counts as overloaded. */
+        public double minFps = 10;
+        /** Average processing time per frame above which the pipeline counts as overloaded. */
+        public double maxFrameMs = 60;
+        /** Fraction by which both measures must beat their limit before a tier is restored. */
+        public double recoveryMargin = 0.25;
+        /** Consecutive overloaded samples before stepping down a tier. */
+        public int degradeAfterSamples = 4;
+        /** Consecutive samples with headroom before stepping back up a tier. */
+        public int recoverAfterSamples = 20;
+        /** Time without a delivered frame after which the camera counts as stalled. */
+        public double stallMs = 1500;
+        /** Time allowed for the camera to deliver its first frame after start or restart. */
+        public double startupTimeoutMs = 6000;
+        /** Shortest time between two restarts. */
+        public double restartCooldownMs = 5000;
+    }
+
+    public enum Action {
+        NONE,
+        /** Step down to the next degradation tier. */
+        DEGRADE,
+        /** Restore the most recent degradation tier. */
+        RECOVER,
+        /** Restart the camera; the pipeline has stalled. */
+        RESTART
+    }
+
+    private final Config config;
+    private final int tierCount;
+    private final long stallNanos;
+    private final long startupTimeoutNanos;
+    private final long restartCooldownNanos;
+
+    private volatile int tier;
+    private volatile long restarts;
+    private volatile double lastFrameAgeMs;
+
+    private long lastDelivered = -1;
+    private long lastProgressNanos = Long.MIN_VALUE;
+    private boolean sawFrame;
+    private long lastRestartNanos = Long.MIN_VALUE;
+    private int overloadedSamples;
+    private int headroomSamples;
+
+    /**
+     * @param tierCount number of degradation tiers that can be stepped through
+     */
+    public HealthMonitor(@NonNull Config config, int tierCount) {
+        if (config.degradeAfterSamples <= 0 || config.recoverAfterSamples <= 0 || tierCount < 0) {
+            throw new IllegalArgumentException("Sample counts must be positive and tierCount not negative");
+        }
+        this.config = config;
+        this.tierCount = tierCount;
+        this.stallNanos = (long) (config.stallMs * 1e6);
+        this.startupTimeoutNanos = (long) (config.startupTimeoutMs * 1e6);
+        this.restartCooldownNanos = (long) (config.restartCooldownMs * 1e6);
+    }
+
+    /**
+     * Judges one sample.
+     *
+     * @param active          whether the pipeline is supposed to run; paused streaming is never a stall
+     * @param cameraStreaming whether the camera reports that it is streaming
+     * @param fps             measured frame rate
+     * @param frameMs         average processing time per frame
+     * @param deliveredFrames count of frames the camera delivered to the pipeline, processed or not
+     */
+    @NonNull
+    public Action sample(long nowNanos, boolean active, boolean cameraStreaming, double fps, double frameMs,
+                         long deliveredFrames) {
+        boolean progress = cameraStreaming && deliveredFrames != lastDelivered;
+        if (lastProgressNanos == Long.MIN_VALUE || !active || progress) {
+            if (active && lastDelivered != -1 && progress) {
+                sawFrame = true;
+            }
+            lastProgressNanos = nowNanos;
+        }
+        lastDelivered = deliveredFrames;
+        lastFrameAgeMs = (nowNanos - lastProgressNanos) / 1e6;
+        if (!active) {
+            overloadedSamples = 0;
+            headroomSamples = 0;
+            return Action.NONE;
+        }
+
+        long idleNanos = nowNanos - lastProgressNanos;
+        if (idleNanos > (sawFrame ? stallNanos : startupTimeoutNanos)) {
+            if (lastRestartNanos == Long.MIN_VALUE || nowNanos - lastRestartNanos >= restartCooldownNanos) {
+                lastRestartNanos = nowNanos;
+                restarts++;
+                onCameraRestarted(nowNanos);
+                return Action.RESTART;
+            }
+            return Action.NONE;
+        }
+        if (!sawFrame || !cameraStreaming) {
+            // The frame rate means nothing until frames flow; only the stall timeout applies.
+            overloadedSamples = 0;
+            headroomSamples = 0;
+            return Action.NONE;
+        }
+
+        boolean overloaded = fps < config.minFps || frameMs > config.maxFrameMs;
+        boolean headroom = fps >= config.minFps * (1 + config.recoveryMargin)
+                && frameMs <= config.maxFrameMs * (1 - config.recoveryMargin);
+        overloadedSamples = overloaded ? overloadedSamples + 1 : 0;
+        headroomSamples = headroom ? headroomSamples + 1 : 0;
+
+        if (overloadedSamples >= config.degradeAfterSamples && tier < tierCount) {
+            tier++;
+            overloadedSamples = 0;
+            headroomSamples = 0;
+            return Action.DEGRADE;
+        }
+        if (headroomSamples >= config.recoverAfterSamples && tier > 0) {
+            tier--;
+            overloadedSamples = 0;
+            headroomSamples = 0;
+            return Action.RECOVER;
+        }
+        return Action.NONE;
+    }
+
+    /**
+     * Restarts the stall and overload bookkeeping after the camera was restarted, e.g. by a tier that
+     * changes the resolution; the camera gets {@link Config#startupTimeoutMs} again.
+     */
+    public void onCameraRestarted(long nowNanos) {
+        sawFrame = false;
+        lastProgressNanos = nowNanos;
+        overloadedSamples = 0;
+        headroomSamples = 0;
+    }
+
+    /**
+     * @return the number of tiers currently stepped down, from 0 (full quality) to the tier count
+     */
+    public int getTier() {
+        return tier;
+    }
+
+    /**
+     * @return restarts requested because the pipeline stalled
+     */
+    public long getRestartCount() {
+        return restarts;
+    }
+
+    /**
+     * @return time since the last delivered frame at the latest sample, in milliseconds
+     */
+    public double getLastFrameAgeMs() {
+        return lastFrameAgeMs;
+    }
+}
@@ -0,0 +1,123 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory latency histogram with log-linear buckets: values are recorded in microseconds, the first
+ * 16 buckets are exact and every power of two above that is split into 16 linear sub-buckets, so reported
+ * percentiles are within about 6% of the true value. Recording and querying never allocate.
+ *
+ * <p>Counts are atomic, so a reader on another thread sees a consistent-enough view without locking; the
+ * maximum is tracked exactly.</p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Largest power of two tracked: 2^30 us is roughly 18 minutes; anything above lands in the last bucket. */
+    private static final int MAX_EXPONENT = 30;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            // Clock domains can disagree by a little; clamp rather than dropping the sample.
+            micros = 0;
+        }
+        counts.incrementAndGet(bucketIndex(micros));
+        total.incrementAndGet();
+
+        long currentMax = maxMicros.get();
+        while (micros > currentMax && !maxMicros.compareAndSet(currentMax, micros)) {
+            currentMax = maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public double getMaxMs() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    public double getP50Ms() {
+        return getPercentileMs(0.50);
+    }
+
+    public double getP95Ms() {
+        return getPercentileMs(0.95);
+    }
+
+    public double getP99Ms() {
+        return getPercentileMs(0.99);
+    }
+
+    /**
+     * @param quantile value in {@code (0, 1]}
+     * @return the upper edge of the bucket containing the quantile, capped at the recorded maximum, or
+     * {@link Double#NaN} when nothing has been recorded
+     */
+    public double getPercentileMs(double quantile) {
+        long count = total.get();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperMicros(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMs();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        maxMicros.set(0);
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperMicros(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,251 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Allocation-free merge of the detection views of several cameras. Each entry records which camera saw it.
+ * Entries are ordered newest capture first and reference the camera's own {@link DetectionView}, so pose
+ * values stay in that camera's frame and units.
+ *
+ * <p>Alignment: the newest capture time among the cameras is the merge's reference time. A camera whose
+ * latest frame is more than the skew limit older than that is left out, so the merge never mixes a current
+ * frame with a stalled camera's old one. De-duplication: when several cameras see the same tag, only the
+ * closest sighting is kept, because it has the most pixels on the tag and the most accurate pose;
+ * {@link #getSightings} reports how many cameras saw it.</p>
+ *
+ * <p>Rebound by every {@code MultiCameraVisionManager#getMergedView()} call; read it from that thread only,
+ * and only until the next call. Internal arrays grow only when more detections arrive than ever before.</p>
+ */
+public final class MergedDetectionView {
+
+    private final String[] cameraNames;
+    private final DetectionView[] views;
+    private int[] entryCamera;
+    private int[] entryIndex;
+    private int[] entrySightings;
+    private long[] entryCaptureTime;
+    private int size;
+    private long referenceTimeNanos;
+    private int staleCameras;
+
+    MergedDetectionView(@NonNull String[] cameraNames, int initialCapacity) {
+        this.cameraNames = cameraNames;
+        this.views = new DetectionView[cameraNames.length];
+        int capacity = Math.max(1, initialCapacity);
+        entryCamera = new int[capacity];
+        entryIndex = new int[capacity];
+        entrySightings = new int[capacity];
+        entryCaptureTime = new long[capacity];
+    }
+
+    /**
+     * Rebinds the merge to {@code cameraViews}, one per camera in construction order.
+     *
+     * @param maxSkewNanos how far behind the newest camera another camera's frame may be and still be merged
+     * @param deduplicate  keep only the closest sighting of a tag seen by several cameras
+     */
+    void merge(@NonNull DetectionView[] cameraViews, long maxSkewNanos, boolean deduplicate) {
+        size = 0;
+        staleCameras = 0;
+        referenceTimeNanos = 0;
+        for (int c = 0; c < cameraViews.length; c++) {
+            views[c] = cameraViews[c];
+            referenceTimeNanos = Math.max(referenceTimeNanos, cameraViews[c].getCaptureTimeNanos());
+        }
+
+        for (int c = 0; c < cameraViews.length; c++) {
+            DetectionView view = cameraViews[c];
+            if (referenceTimeNanos - view.getCaptureTimeNanos() > maxSkewNanos) {
+                staleCameras++;
+                continue;
+            }
+            for (int i = 0; i < view.size(); i++) {
+                int duplicate = deduplicate ? find(view.getTagFamily(i), view.getId(i)) : -1;
+                if (duplicate < 0) {
+                    insert(c, i, view.getCaptureTimeNanos(i));
+                    continue;
+                }
+                int sightings = entrySightings[duplicate] + 1;
+                double existingRange = views[entryCamera[duplicate]].getRangeMeters(entryIndex[duplicate]);
+                if (view.getRangeMeters(i) < existingRange) {
+                    remove(duplicate);
+                    insert(c, i, view.getCaptureTimeNanos(i));
+                    entrySightings[find(view.getTagFamily(i), view.getId(i))] = sightings;
+                } else {
+                    entrySightings[duplicate] = sightings;
+                }
+            }
+        }
+    }
+
+    private int find(String family, int id) {
+        for (int e = 0; e < size; e++) {
+            DetectionView view = views[entryCamera[e]];
+            if (view.getId(entryIndex[e]) == id && view.getTagFamily(entryIndex[e]).equals(family)) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /** Inserts keeping entries ordered newest capture first; equal times keep arrival order. */
+    private void insert(int camera, int index, long captureTimeNanos) {
+        if (size == entryCamera.length) {
+            int capacity = size * 2;
+            entryCamera = Arrays.copyOf(entryCamera, capacity);
+            entryIndex = Arrays.copyOf(entryIndex, capacity);
+            entrySightings = Arrays.copyOf(entrySightings, capacity);
+            entryCaptureTime = Arrays.copyOf(entryCaptureTime, capacity);
+        }
+        int position = size;
+        while (position > 0 && entryCaptureTime[position - 1] < captureTimeNanos) {
+            entryCamera[position] = entryCamera[position - 1];
+            entryIndex[position] = entryIndex[position - 1];
+            entrySightings[position] = entrySightings[position - 1];
+            entryCaptureTime[position] = entryCaptureTime[position - 1];
+            position--;
+        }
+        entryCamera[position] = camera;
+        entryIndex[position] = index;
+        entrySightings[position] = 1;
+        entryCaptureTime[position] = captureTimeNanos;
+        size++;
+    }
+
+    private void remove(int entry) {
+        int tail = size - entry - 1;
+        System.arraycopy(entryCamera, entry + 1, entryCamera, entry, tail);
+        System.arraycopy(entryIndex, entry + 1, entryIndex, entry, tail);
+        System.arraycopy(entrySightings, entry + 1, entrySightings, entry, tail);
+        System.arraycopy(entryCaptureTime, entry + 1, entryCaptureTime, entry, tail);
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the newest capture time among all cameras, or 0 before the first frame
+     */
+    public long getReferenceTimeNanos() {
+        return referenceTimeNanos;
+    }
+
+    /**
+     * @return cameras left out of this merge because their latest frame was too old
+     */
+    public int getStaleCameraCount() {
+        return staleCameras;
+    }
+
+    public int getCameraCount() {
+        return cameraNames.length;
+    }
+
+    /**
+     * @return the index of the camera that produced entry {@code index}, in manager configuration order
+     */
+    public int getCameraIndex(int index) {
+        checkIndex(index);
+        return entryCamera[index];
+    }
+
+    @NonNull
+    public String getCameraName(int index) {
+        return cameraNames[getCameraIndex(index)];
+    }
+
+    /**
+     * @return the view of the camera that produced entry {@code index}
+     */
+    @NonNull
+    public DetectionView getView(int index) {
+        return views[getCameraIndex(index)];
+    }
+
+    /**
+     * @return the position of entry {@code index} within {@link #getView(int)}
+     */
+    public int getViewIndex(int index) {
+        checkIndex(index);
+        return entryIndex[index];
+    }
+
+    /**
+     * @return how many cameras saw this tag in the merged frames; above 1 only with de-duplication
+     */
+    public int getSightings(int index) {
+        checkIndex(index);
+        return entrySightings[index];
+    }
+
+    public long getCaptureTimeNanos(int index) {
+        checkIndex(index);
+        return entryCaptureTime[index];
+    }
+
+    /**
+     * @return how much older this entry's frame is than {@link #getReferenceTimeNanos()}
+     */
+    public long getCaptureOffsetNanos(int index) {
+        return referenceTimeNanos - getCaptureTimeNanos(index);
+    }
+
+    public int getId(int index) {
+        return getView(index).getId(entryIndex[index]);
+    }
+
+    @NonNull
+    public String getTagFamily(int index) {
+        return getView(index).getTagFamily(entryIndex[index]);
+    }
+
+    public double getRange(int index) {
+        return getView(index).getRange(entryIndex[index]);
+    }
+
+    public double getBearing(int index) {
+        return getView(index).getBearing(entryIndex[index]);
+    }
+
+    public double getElevation(int index) {
+        return getView(index).getElevation(entryIndex[index]);
+    }
+
+    public double getTranslationX(int index) {
+        return getView(index).getTranslationX(entryIndex[index]);
+    }
+
+    public double getTranslationY(int index) {
+        return getView(index).getTranslationY(entryIndex[index]);
+    }
+
+    public double getTranslationZ(int index) {
+        return getView(index).getTranslationZ(entryIndex[index]);
+    }
+
+    public double getYaw(int index) {
+        return getView(index).getYaw(entryIndex[index]);
+    }
+
+    public double getPitch(int index) {
+        return getView(index).getPitch(entryIndex[index]);
+    }
+
+    public double getRoll(int index) {
+        return getView(index).getRoll(entryIndex[index]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Decides which frames get live-view overlays (outlines, IDs, axes, cubes). Drawing happens on the
+ * portal's render path for every displayed frame and competes with detection for the same cores, so
+ * matches usually run {@link Mode#HEADLESS} and practice sessions {@link Mode#THROTTLED}.
+ *
+ * <p>The mode and rate can be changed at any time from the op mode thread; the portal does not need to be
+ * rebuilt. Like {@link FramePolicy}, one instance is shared by all processors of a camera and decides once
+ * per capture timestamp, so every family's overlay appears on the same frames.</p>
+ */
+public class OverlayPolicy {
+
+    public enum Mode {
+        /** No overlay work at all. */
+        HEADLESS,
+        /** Overlays on at most {@link Config#maxFps} frames per second. */
+        THROTTLED,
+        /** Overlays on every displayed frame. */
+        FULL
+    }
+
+    public static class Config {
+        public Mode mode = Mode.FULL;
+        /** Overlay rate for {@link Mode#THROTTLED}. */
+        public double maxFps = 5.0;
+    }
+
+    private volatile Mode mode;
+    private volatile long intervalNanos;
+
+    // Render-thread state.
+    private long decidedCaptureTimeNanos = Long.MIN_VALUE;
+    private boolean decision;
+    private long nextDueNanos = Long.MIN_VALUE;
+
+    private volatile long drawnFrames;
+    private volatile long suppressedFrames;
+
+    public OverlayPolicy(@NonNull Config config) {
+        this.mode = config.mode;
+        setMaxFps(config.maxFps);
+    }
+
+    /**
+     * Decides whether the frame captured at {@code captureTimeNanos} gets overlays. Repeated calls for the
+     * same capture time return the first decision.
+     */
+    public boolean shouldDraw(long captureTimeNanos, long nowNanos) {
+        if (captureTimeNanos == decidedCaptureTimeNanos) {
+            return decision;
+        }
+        decidedCaptureTimeNanos = captureTimeNanos;
+        switch (mode) {
+            case HEADLESS:
+                decision = false;
+                break;
+            case THROTTLED:
+                decision = nextDueNanos == Long.MIN_VALUE || nowNanos - nextDueNanos >= 0;
+                if (decision) {
+                    nextDueNanos = nowNanos + intervalNanos;
+                }
+                break;
+            case FULL:
+            default:
+                decision = true;
+                break;
+        }
+        if (decision) {
+            drawnFrames++;
+        } else {
+            suppressedFrames++;
+        }
+        return decision;
+    }
+
+    public void setMode(@NonNull Mode mode) {
+        this.mode = mode;
+    }
+
+    @NonNull
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMaxFps(double maxFps) {
+        if (maxFps <= 0) {
+            throw new IllegalArgumentException("maxFps must be positive");
+        }
+        this.intervalNanos = (long) (1e9 / maxFps);
+    }
+
+    /**
+     * @return frames that received overlays
+     */
+    public long getDrawnFrames() {
+        return drawnFrames;
+    }
+
+    /**
+     * @return displayed frames left without overlays by the mode or the rate limit
+     */
+    public long getSuppressedFrames() {
+        return suppressedFrames;
+    }
+}
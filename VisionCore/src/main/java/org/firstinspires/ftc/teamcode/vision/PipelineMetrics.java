@@ -0,0 +1,102 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Per-stage latency histograms for the AprilTag pipeline. All timestamps are {@link System#nanoTime()}
+ * based, which is the clock the vision portal stamps frames with.
+ *
+ * <ul>
+ *     <li>{@link #getPreprocess()} - the shared preprocessing stage, when one is registered</li>
+ *     <li>{@link #getCaptureToStart()} - camera capture until {@code processFrame} begins (queueing delay,
+ *     including preprocessing)</li>
+ *     <li>{@link #getDetection()} - time spent in the tag detectors (including ROI pose solves)</li>
+ *     <li>{@link #getConversion()} - converting detector output into published detection data</li>
+ *     <li>{@link #getCaptureToCorners()} - camera capture until a frame's corners are visible to readers, for
+ *     frames published corners first</li>
+ *     <li>{@link #getCaptureToPublish()} - camera capture until the detections are visible to readers</li>
+ *     <li>{@link #getDraw()} - live-view overlay drawing per processor, on the render thread</li>
+ * </ul>
+ */
+public class PipelineMetrics {
+
+    private final LatencyHistogram preprocess = new LatencyHistogram("preprocess");
+    private final LatencyHistogram captureToStart = new LatencyHistogram("capture->start");
+    private final LatencyHistogram detection = new LatencyHistogram("detect");
+    private final LatencyHistogram conversion = new LatencyHistogram("convert");
+    private final LatencyHistogram captureToCorners = new LatencyHistogram("capture->corners");
+    private final LatencyHistogram captureToPublish = new LatencyHistogram("capture->publish");
+    private final LatencyHistogram draw = new LatencyHistogram("draw");
+    private final LatencyHistogram[] all =
+            {preprocess, captureToStart, detection, conversion, captureToCorners, captureToPublish, draw};
+
+    /**
+     * Records one frame's timestamps.
+     */
+    public void recordFrame(long captureNanos, long startNanos, long conversionStartNanos, long publishNanos) {
+        captureToStart.recordNanos(startNanos - captureNanos);
+        detection.recordNanos(conversionStartNanos - startNanos);
+        conversion.recordNanos(publishNanos - conversionStartNanos);
+        captureToPublish.recordNanos(publishNanos - captureNanos);
+    }
+
+    /**
+     * Records when a frame's corners were published ahead of its poses.
+     */
+    public void recordCorners(long captureNanos, long publishNanos) {
+        captureToCorners.recordNanos(publishNanos - captureNanos);
+    }
+
+    /**
+     * Records the time one frame spent in the shared preprocessing stage.
+     */
+    public void recordPreprocess(long startNanos, long endNanos) {
+        preprocess.recordNanos(endNanos - startNanos);
+    }
+
+    /**
+     * Records the time one processor spent drawing its overlay.
+     */
+    public void recordDraw(long startNanos, long endNanos) {
+        draw.recordNanos(endNanos - startNanos);
+    }
+
+    public LatencyHistogram getPreprocess() {
+        return preprocess;
+    }
+
+    public LatencyHistogram getCaptureToStart() {
+        return captureToStart;
+    }
+
+    public LatencyHistogram getDetection() {
+        return detection;
+    }
+
+    public LatencyHistogram getConversion() {
+        return conversion;
+    }
+
+    public LatencyHistogram getCaptureToCorners() {
+        return captureToCorners;
+    }
+
+    public LatencyHistogram getCaptureToPublish() {
+        return captureToPublish;
+    }
+
+    public LatencyHistogram getDraw() {
+        return draw;
+    }
+
+    /**
+     * @return every histogram in pipeline order; the array is shared and must not be modified
+     */
+    public LatencyHistogram[] getHistograms() {
+        return all;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : all) {
+            histogram.reset();
+        }
+    }
+}
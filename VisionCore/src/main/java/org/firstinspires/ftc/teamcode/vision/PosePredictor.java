@@ -0,0 +1,44 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Turns timestamped vision poses, and optionally odometry, into a robot pose at any requested time, so
+ * control loops can run faster than the camera and act on where the robot is now rather than where it was
+ * when the frame was captured.
+ *
+ * <p>Poses are planar and in the field frame: {@code x} and {@code y} in meters, heading in radians
+ * (counter-clockwise from field +x). Timestamps are {@link System#nanoTime()} values. Implementations are
+ * driven from one thread, normally the op mode thread.</p>
+ */
+public interface PosePredictor {
+
+    /**
+     * Feeds one vision pose, measured from a frame captured at {@code captureTimeNanos}.
+     *
+     * @param noiseScale multiplier on the configured measurement noise; 1 for a typical solve
+     * @return whether the measurement was used; old or out-of-order measurements are dropped
+     */
+    boolean addMeasurement(long captureTimeNanos, double x, double y, double heading, double noiseScale);
+
+    /**
+     * Feeds the robot-frame motion since the previous odometry call.
+     *
+     * @param forward  distance driven along robot +x, meters
+     * @param left     distance driven along robot +y, meters
+     * @param turn     heading change, radians, counter-clockwise positive
+     */
+    void addOdometry(long nanoTime, double forward, double left, double turn);
+
+    /**
+     * Predicts the pose at {@code nanoTime} into {@code out} without allocating.
+     *
+     * @return {@code out.valid}; {@code false} until the first measurement
+     */
+    boolean predictAt(long nanoTime, @NonNull PredictedPose out);
+
+    /**
+     * Forgets all measurements and odometry.
+     */
+    void reset();
+}
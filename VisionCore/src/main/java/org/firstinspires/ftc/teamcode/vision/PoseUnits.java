@@ -0,0 +1,21 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Converts raw detector output (meters and radians) into the units a consumer asked for.
+ */
+public interface PoseUnits {
+
+    double fromMeters(double meters);
+
+    double fromRadians(double radians);
+
+    /** Short label for distances, e.g. {@code "m"}. */
+    @NonNull
+    String getDistanceLabel();
+
+    /** Short label for angles, e.g. {@code "deg"}. */
+    @NonNull
+    String getAngleLabel();
+}
@@ -0,0 +1,24 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Mutable result of {@link PosePredictor#predictAt}, reused across calls.
+ */
+public class PredictedPose {
+    public boolean valid;
+    /** Field position, meters. */
+    public double x;
+    public double y;
+    /** Heading in radians, wrapped to {@code (-pi, pi]}. */
+    public double heading;
+    /** Field-frame velocity, meters per second and radians per second. */
+    public double velocityX;
+    public double velocityY;
+    public double angularVelocity;
+    /** One-sigma uncertainty of the predicted position (meters, larger axis) and heading (radians). */
+    public double positionStdDev;
+    public double headingStdDev;
+    /** Time the pose was predicted for. */
+    public long timeNanos;
+    /** How far {@link #timeNanos} lies past the capture time of the newest vision measurement. */
+    public long ageNanos;
+}
@@ -0,0 +1,251 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Predicts where already-detected tags will appear in the next frame so detection can be limited to small
+ * regions of interest. Each track keeps the bounding box of its last corners plus a constant-velocity
+ * estimate of its centre in pixels per frame. A full-frame search is requested every
+ * {@link Config#fullSearchInterval} frames, whenever a track is lost, and whenever more tags are visible
+ * than the tracker can hold.
+ *
+ * <p>Feed one frame at a time: {@link #beginFrame(boolean)}, one {@link #observe} per detection, then
+ * {@link #endFrame()}. State lives in primitive arrays sized at construction. Not thread-safe.</p>
+ */
+public class RoiTracker {
+
+    public static class Config {
+        /** Force a full-frame search after this many consecutive ROI-only frames. */
+        public int fullSearchInterval = 10;
+        /** Padding added on every side of a predicted tag box, as a fraction of the box's larger edge. */
+        public double marginFraction = 0.5;
+        /** Smallest ROI edge in pixels; tiny crops make the detector's quad fitting unreliable. */
+        public int minRoiSizePx = 64;
+        /** Maximum number of simultaneously tracked tags. */
+        public int maxTracks = 8;
+    }
+
+    private final Config config;
+
+    private final int[] trackFamily;
+    private final int[] trackId;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final boolean[] seen;
+    private int trackCount;
+
+    private final int[] roiScratch;
+
+    private boolean fullFrame;
+    private boolean overflowed;
+    private boolean trackLost = true;
+    private int framesSinceFullSearch;
+
+    public RoiTracker(@NonNull Config config) {
+        if (config.maxTracks <= 0) {
+            throw new IllegalArgumentException("maxTracks must be positive");
+        }
+        this.config = config;
+        int n = config.maxTracks;
+        trackFamily = new int[n];
+        trackId = new int[n];
+        minX = new double[n];
+        minY = new double[n];
+        maxX = new double[n];
+        maxY = new double[n];
+        velocityX = new double[n];
+        velocityY = new double[n];
+        seen = new boolean[n];
+        roiScratch = new int[n * 4];
+    }
+
+    public boolean needsFullSearch() {
+        return trackCount == 0 || trackLost || framesSinceFullSearch >= config.fullSearchInterval;
+    }
+
+    /**
+     * Writes the predicted regions as {@code x, y, width, height} quadruples into {@code out}, merging any
+     * that overlap so a tag is never searched twice.
+     *
+     * @return the number of regions written; {@code out} must hold at least {@code 4 * maxTracks} values
+     */
+    public int predictRois(int frameWidth, int frameHeight, @NonNull int[] out) {
+        int count = 0;
+        for (int i = 0; i < trackCount; i++) {
+            double width = maxX[i] - minX[i];
+            double height = maxY[i] - minY[i];
+            double margin = Math.max(width, height) * config.marginFraction;
+            double padX = margin + Math.abs(velocityX[i]);
+            double padY = margin + Math.abs(velocityY[i]);
+
+            double left = minX[i] + velocityX[i] - padX;
+            double top = minY[i] + velocityY[i] - padY;
+            double right = maxX[i] + velocityX[i] + padX;
+            double bottom = maxY[i] + velocityY[i] + padY;
+
+            double grow = config.minRoiSizePx - (right - left);
+            if (grow > 0) {
+                left -= grow / 2;
+                right += grow / 2;
+            }
+            grow = config.minRoiSizePx - (bottom - top);
+            if (grow > 0) {
+                top -= grow / 2;
+                bottom += grow / 2;
+            }
+
+            int x0 = clamp((int) Math.floor(left), 0, frameWidth);
+            int y0 = clamp((int) Math.floor(top), 0, frameHeight);
+            int x1 = clamp((int) Math.ceil(right), 0, frameWidth);
+            int y1 = clamp((int) Math.ceil(bottom), 0, frameHeight);
+            if (x1 <= x0 || y1 <= y0) {
+                continue;
+            }
+            int base = count * 4;
+            roiScratch[base] = x0;
+            roiScratch[base + 1] = y0;
+            roiScratch[base + 2] = x1;
+            roiScratch[base + 3] = y1;
+            count++;
+        }
+
+        count = mergeOverlapping(count);
+        for (int i = 0; i < count; i++) {
+            int base = i * 4;
+            out[base] = roiScratch[base];
+            out[base + 1] = roiScratch[base + 1];
+            out[base + 2] = roiScratch[base + 2] - roiScratch[base];
+            out[base + 3] = roiScratch[base + 3] - roiScratch[base + 1];
+        }
+        return count;
+    }
+
+    public void beginFrame(boolean fullFrame) {
+        this.fullFrame = fullFrame;
+        this.overflowed = false;
+        for (int i = 0; i < trackCount; i++) {
+            seen[i] = false;
+        }
+    }
+
+    /**
+     * Records a detection in full-frame pixel coordinates.
+     *
+     * @param corners holds eight values {@code x0, y0, ... x3, y3}
+     * @param offset  index of {@code x0} within {@code corners}
+     */
+    public void observe(int family, int id, @NonNull double[] corners, int offset) {
+        double[] c = corners;
+        int o = offset;
+        double left = Math.min(Math.min(c[o], c[o + 2]), Math.min(c[o + 4], c[o + 6]));
+        double right = Math.max(Math.max(c[o], c[o + 2]), Math.max(c[o + 4], c[o + 6]));
+        double top = Math.min(Math.min(c[o + 1], c[o + 3]), Math.min(c[o + 5], c[o + 7]));
+        double bottom = Math.max(Math.max(c[o + 1], c[o + 3]), Math.max(c[o + 5], c[o + 7]));
+
+        int track = find(family, id);
+        if (track >= 0) {
+            velocityX[track] = (left + right - minX[track] - maxX[track]) / 2;
+            velocityY[track] = (top + bottom - minY[track] - maxY[track]) / 2;
+        } else if (trackCount < trackId.length) {
+            track = trackCount++;
+            trackFamily[track] = family;
+            trackId[track] = id;
+            velocityX[track] = 0;
+            velocityY[track] = 0;
+        } else {
+            // More tags than tracks: ROI frames would miss the extras, so keep searching the full frame.
+            overflowed = true;
+            return;
+        }
+        minX[track] = left;
+        minY[track] = top;
+        maxX[track] = right;
+        maxY[track] = bottom;
+        seen[track] = true;
+    }
+
+    public void endFrame() {
+        boolean lost = false;
+        int kept = 0;
+        for (int i = 0; i < trackCount; i++) {
+            if (!seen[i]) {
+                lost = true;
+                continue;
+            }
+            if (kept != i) {
+                trackFamily[kept] = trackFamily[i];
+                trackId[kept] = trackId[i];
+                minX[kept] = minX[i];
+                minY[kept] = minY[i];
+                maxX[kept] = maxX[i];
+                maxY[kept] = maxY[i];
+                velocityX[kept] = velocityX[i];
+                velocityY[kept] = velocityY[i];
+            }
+            kept++;
+        }
+        trackCount = kept;
+
+        if (fullFrame) {
+            framesSinceFullSearch = 0;
+            trackLost = overflowed;
+        } else {
+            framesSinceFullSearch++;
+            trackLost = lost || overflowed;
+        }
+    }
+
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    public void reset() {
+        trackCount = 0;
+        trackLost = true;
+        framesSinceFullSearch = 0;
+    }
+
+    private int find(int family, int id) {
+        for (int i = 0; i < trackCount; i++) {
+            if (trackId[i] == id && trackFamily[i] == family) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Repeatedly unions overlapping boxes (stored as x0, y0, x1, y1) until none overlap. */
+    private int mergeOverlapping(int count) {
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int i = 0; i < count && !merged; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    int a = i * 4;
+                    int b = j * 4;
+                    if (roiScratch[a] < roiScratch[b + 2] && roiScratch[b] < roiScratch[a + 2]
+                            && roiScratch[a + 1] < roiScratch[b + 3] && roiScratch[b + 1] < roiScratch[a + 3]) {
+                        roiScratch[a] = Math.min(roiScratch[a], roiScratch[b]);
+                        roiScratch[a + 1] = Math.min(roiScratch[a + 1], roiScratch[b + 1]);
+                        roiScratch[a + 2] = Math.max(roiScratch[a + 2], roiScratch[b + 2]);
+                        roiScratch[a + 3] = Math.max(roiScratch[a + 3], roiScratch[b + 3]);
+                        int last = (count - 1) * 4;
+                        System.arraycopy(roiScratch, last, roiScratch, b, 4);
+                        count--;
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
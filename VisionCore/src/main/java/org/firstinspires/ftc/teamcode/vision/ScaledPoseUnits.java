@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * {@link PoseUnits} that scale meters and radians by constant factors.
+ */
+public final class ScaledPoseUnits implements PoseUnits {
+
+    public static final ScaledPoseUnits METERS_RADIANS = new ScaledPoseUnits(1.0, "m", 1.0, "rad");
+    public static final ScaledPoseUnits METERS_DEGREES =
+            new ScaledPoseUnits(1.0, "m", 180.0 / Math.PI, "deg");
+    public static final ScaledPoseUnits INCHES_DEGREES =
+            new ScaledPoseUnits(1.0 / 0.0254, "in", 180.0 / Math.PI, "deg");
+
+    private final double unitsPerMeter;
+    private final String distanceLabel;
+    private final double unitsPerRadian;
+    private final String angleLabel;
+
+    public ScaledPoseUnits(double unitsPerMeter, @NonNull String distanceLabel,
+                           double unitsPerRadian, @NonNull String angleLabel) {
+        this.unitsPerMeter = unitsPerMeter;
+        this.distanceLabel = distanceLabel;
+        this.unitsPerRadian = unitsPerRadian;
+        this.angleLabel = angleLabel;
+    }
+
+    @Override
+    public double fromMeters(double meters) {
+        return meters * unitsPerMeter;
+    }
+
+    @Override
+    public double fromRadians(double radians) {
+        return radians * unitsPerRadian;
+    }
+
+    @NonNull
+    @Override
+    public String getDistanceLabel() {
+        return distanceLabel;
+    }
+
+    @NonNull
+    @Override
+    public String getAngleLabel() {
+        return angleLabel;
+    }
+}
@@ -0,0 +1,16 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Reader side of a detection publisher: hands out the most recently published {@link DetectionSnapshot}.
+ */
+public interface SnapshotSource {
+
+    /**
+     * Returns the newest published snapshot. The previously acquired snapshot may be recycled by this
+     * call, so only one thread may acquire and it must not hold on to older snapshots.
+     */
+    @NonNull
+    DetectionSnapshot acquire();
+}
@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Rejects detections the robot never acts on before they cost a snapshot slot, a corner copy, a pose solve
+ * or an ROI track: tags outside an allow-list or on a deny-list, weak decodes below a decision margin, and
+ * tags beyond a maximum range. ID lists are held as bitsets, so each check is one array read.
+ *
+ * <p>The ID and margin checks ({@link #accepts}) run on every decoded tag; the range check
+ * ({@link #acceptsRange}) runs once a pose is known. Rejections are counted per reason. Checks are made from
+ * the vision thread; the counters may be read from any thread.</p>
+ */
+public class TagFilter {
+
+    public static class Config {
+        /** Only these IDs are kept when non-null. */
+        public @Nullable int[] allowIds = null;
+        /** These IDs are always dropped, even when allowed. */
+        public @Nullable int[] denyIds = null;
+        /**
+         * Decodes with a lower decision margin are dropped; 0 keeps everything. Spurious {@code TAG_16h5}
+         * detections typically score well below genuine ones.
+         */
+        public double minDecisionMargin = 0;
+        /** Tags farther away than this are dropped; infinite keeps everything. Tags without a pose are kept. */
+        public double maxRangeMeters = Double.POSITIVE_INFINITY;
+    }
+
+    private final @Nullable long[] allowed;
+    private final @Nullable long[] denied;
+    private final double minDecisionMargin;
+    private final double maxRangeMeters;
+
+    private volatile long rejectedById;
+    private volatile long rejectedByMargin;
+    private volatile long rejectedByRange;
+
+    public TagFilter(@NonNull Config config) {
+        this.allowed = config.allowIds != null ? toBitset(config.allowIds) : null;
+        this.denied = config.denyIds != null ? toBitset(config.denyIds) : null;
+        this.minDecisionMargin = config.minDecisionMargin;
+        this.maxRangeMeters = config.maxRangeMeters;
+    }
+
+    /**
+     * @return whether a decoded tag passes the ID lists and the decision-margin threshold
+     */
+    public boolean accepts(int id, double decisionMargin) {
+        if ((allowed != null && !contains(allowed, id)) || (denied != null && contains(denied, id))) {
+            rejectedById++;
+            return false;
+        }
+        if (decisionMargin < minDecisionMargin) {
+            rejectedByMargin++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a tag at {@code rangeMeters} is close enough; an unknown ({@code NaN}) range passes
+     */
+    public boolean acceptsRange(double rangeMeters) {
+        if (rangeMeters > maxRangeMeters) {
+            rejectedByRange++;
+            return false;
+        }
+        return true;
+    }
+
+    public long getRejectedById() {
+        return rejectedById;
+    }
+
+    public long getRejectedByMargin() {
+        return rejectedByMargin;
+    }
+
+    public long getRejectedByRange() {
+        return rejectedByRange;
+    }
+
+    public long getRejectedCount() {
+        return rejectedById + rejectedByMargin + rejectedByRange;
+    }
+
+    private static boolean contains(long[] bits, int id) {
+        int word = id >>> 6;
+        return id >= 0 && word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    private static long[] toBitset(int[] ids) {
+        int max = -1;
+        for (int id : ids) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative tag id " + id);
+            }
+            max = Math.max(max, id);
+        }
+        long[] bits = new long[max < 0 ? 0 : (max >>> 6) + 1];
+        for (int id : ids) {
+            bits[id >>> 6] |= 1L << id;
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,287 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Table of the most recent sighting of every tag, indexed directly by family and tag ID. Lookups are
+ * array accesses; updating from a {@link DetectionSnapshot} touches one entry per detection. Entries are
+ * created the first time a tag is seen and then reused, so steady-state operation does not allocate.
+ *
+ * <p>Entries are live, mutable objects owned by the index: read them on the thread that updates the index
+ * (the op mode thread, via {@code AprilTagVisionManager}) and copy anything you need to keep.</p>
+ *
+ * <p>Pose accessors such as {@link Entry#getRange()} convert to the index's {@link PoseUnits}, like
+ * {@link DetectionView}; the {@code *Meters} and {@code *Radians} accessors return the stored SI values.</p>
+ */
+public class TagIdIndex implements TagLookup {
+
+    /** Latest sighting of one tag, stored in meters and radians. */
+    public static final class Entry {
+        private final int id;
+        private final String tagFamily;
+        private final PoseUnits units;
+        private long captureTimeNanos;
+        private long frameSequence;
+        private double centerX;
+        private double centerY;
+        private double range;
+        private double bearing;
+        private double elevation;
+        private double x;
+        private double y;
+        private double z;
+        private double yaw;
+        private double pitch;
+        private double roll;
+
+        Entry(int id, String tagFamily, PoseUnits units) {
+            this.id = id;
+            this.tagFamily = tagFamily;
+            this.units = units;
+        }
+
+        void copyFrom(DetectionSnapshot snapshot, int slot) {
+            captureTimeNanos = snapshot.getCaptureTimeNanos();
+            frameSequence = snapshot.getFrameSequence();
+            centerX = snapshot.getCenterX(slot);
+            centerY = snapshot.getCenterY(slot);
+            range = snapshot.getRangeMeters(slot);
+            bearing = snapshot.getBearingRadians(slot);
+            elevation = snapshot.getElevationRadians(slot);
+            x = snapshot.getXMeters(slot);
+            y = snapshot.getYMeters(slot);
+            z = snapshot.getZMeters(slot);
+            yaw = snapshot.getYawRadians(slot);
+            pitch = snapshot.getPitchRadians(slot);
+            roll = snapshot.getRollRadians(slot);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        @NonNull
+        public String getTagFamily() {
+            return tagFamily;
+        }
+
+        public long getCaptureTimeNanos() {
+            return captureTimeNanos;
+        }
+
+        public long getFrameSequence() {
+            return frameSequence;
+        }
+
+        /**
+         * @return milliseconds between capture and {@code nowNanos}
+         */
+        public double getAgeMs(long nowNanos) {
+            return (nowNanos - captureTimeNanos) / 1e6;
+        }
+
+        public boolean isFresh(long nowNanos, long maxAgeMs) {
+            return nowNanos - captureTimeNanos <= maxAgeMs * 1_000_000L;
+        }
+
+        public double getCenterX() {
+            return centerX;
+        }
+
+        public double getCenterY() {
+            return centerY;
+        }
+
+        /** Range in the index's distance unit. */
+        public double getRange() {
+            return units.fromMeters(range);
+        }
+
+        public double getBearing() {
+            return units.fromRadians(bearing);
+        }
+
+        public double getElevation() {
+            return units.fromRadians(elevation);
+        }
+
+        public double getTranslationX() {
+            return units.fromMeters(x);
+        }
+
+        public double getTranslationY() {
+            return units.fromMeters(y);
+        }
+
+        public double getTranslationZ() {
+            return units.fromMeters(z);
+        }
+
+        public double getYaw() {
+            return units.fromRadians(yaw);
+        }
+
+        public double getPitch() {
+            return units.fromRadians(pitch);
+        }
+
+        public double getRoll() {
+            return units.fromRadians(roll);
+        }
+
+        public double getRangeMeters() {
+            return range;
+        }
+
+        public double getBearingRadians() {
+            return bearing;
+        }
+
+        public double getElevationRadians() {
+            return elevation;
+        }
+
+        public double getXMeters() {
+            return x;
+        }
+
+        public double getYMeters() {
+            return y;
+        }
+
+        public double getZMeters() {
+            return z;
+        }
+
+        public double getYawRadians() {
+            return yaw;
+        }
+
+        public double getPitchRadians() {
+            return pitch;
+        }
+
+        public double getRollRadians() {
+            return roll;
+        }
+    }
+
+    private final String[] families;
+    private final PoseUnits units;
+    private final Entry[][] entries;
+
+    /**
+     * Creates an index whose converting accessors report meters and radians.
+     *
+     * @param families every family name that snapshots fed to this index may report
+     */
+    public TagIdIndex(@NonNull String[] families) {
+        this(families, ScaledPoseUnits.METERS_RADIANS);
+    }
+
+    /**
+     * @param families every family name that snapshots fed to this index may report
+     * @param units    units of the converting pose accessors on {@link Entry}
+     */
+    public TagIdIndex(@NonNull String[] families, @NonNull PoseUnits units) {
+        this.families = families.clone();
+        this.units = units;
+        this.entries = new Entry[families.length][];
+        for (int f = 0; f < families.length; f++) {
+            entries[f] = new Entry[idSpaceSize(families[f])];
+        }
+    }
+
+    /**
+     * Records every detection of a snapshot. Tags whose ID is outside the family's ID space are ignored.
+     */
+    public void update(@NonNull DetectionSnapshot snapshot) {
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            int family = familyIndex(snapshot.getTagFamily(slot));
+            int id = snapshot.getId(slot);
+            if (family < 0 || id < 0 || id >= entries[family].length) {
+                continue;
+            }
+            Entry entry = entries[family][id];
+            if (entry == null) {
+                entry = new Entry(id, families[family], units);
+                entries[family][id] = entry;
+            }
+            entry.copyFrom(snapshot, slot);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Entry get(int id) {
+        Entry newest = null;
+        for (int f = 0; f < entries.length; f++) {
+            Entry entry = id >= 0 && id < entries[f].length ? entries[f][id] : null;
+            if (entry != null && (newest == null || entry.captureTimeNanos - newest.captureTimeNanos > 0)) {
+                newest = entry;
+            }
+        }
+        return newest;
+    }
+
+    @Nullable
+    @Override
+    public Entry get(@NonNull String tagFamily, int id) {
+        int family = familyIndex(tagFamily);
+        if (family < 0 || id < 0 || id >= entries[family].length) {
+            return null;
+        }
+        return entries[family][id];
+    }
+
+    @Override
+    public boolean hasFresh(int id, long nowNanos, long maxAgeMs) {
+        Entry entry = get(id);
+        return entry != null && entry.isFresh(nowNanos, maxAgeMs);
+    }
+
+    @Override
+    public int getFresh(@NonNull int[] ids, long nowNanos, long maxAgeMs, @NonNull Entry[] out) {
+        int found = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Entry entry = get(ids[i]);
+            if (entry != null && entry.isFresh(nowNanos, maxAgeMs)) {
+                out[i] = entry;
+                found++;
+            } else {
+                out[i] = null;
+            }
+        }
+        return found;
+    }
+
+    private int familyIndex(String tagFamily) {
+        for (int f = 0; f < families.length; f++) {
+            if (families[f].equals(tagFamily)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Number of codes in the standard AprilTag families; unknown families get a generous default.
+     */
+    static int idSpaceSize(String tagFamily) {
+        switch (tagFamily) {
+            case "TAG_16h5":
+                return 30;
+            case "TAG_25h9":
+                return 35;
+            case "TAG_36h10":
+                return 2320;
+            case "TAG_36h11":
+                return 587;
+            case "TAG_standard41h12":
+                return 2115;
+            default:
+                return 2400;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Latest sighting of a tag by ID. Times are {@link System#nanoTime()} values.
+ */
+public interface TagLookup {
+
+    /**
+     * @return the latest sighting of {@code id} in any family, or {@code null} if it was never seen
+     */
+    @Nullable
+    TagIdIndex.Entry get(int id);
+
+    /**
+     * @return the latest sighting of {@code id} in {@code tagFamily}, or {@code null} if it was never seen
+     */
+    @Nullable
+    TagIdIndex.Entry get(@NonNull String tagFamily, int id);
+
+    boolean hasFresh(int id, long nowNanos, long maxAgeMs);
+
+    /**
+     * Looks up several tags at once.
+     *
+     * @param out receives, at the same position as in {@code ids}, the fresh entry or {@code null}
+     * @return the number of fresh entries found
+     */
+    int getFresh(@NonNull int[] ids, long nowNanos, long maxAgeMs, @NonNull TagIdIndex.Entry[] out);
+}
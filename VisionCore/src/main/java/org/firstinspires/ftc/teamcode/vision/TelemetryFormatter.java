@@ -0,0 +1,18 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Formats telemetry lines into a caller-owned {@link StringBuilder}. Each method appends exactly one line
+ * without a trailing newline; the caller clears the builder between lines.
+ */
+public interface TelemetryFormatter {
+
+    void appendSummary(@NonNull DetectionView detections, @NonNull StringBuilder out);
+
+    void appendDetection(@NonNull DetectionView detections, int index, @NonNull StringBuilder out);
+
+    void appendLatencySummary(@NonNull PipelineMetrics metrics, @NonNull StringBuilder out);
+
+    void appendLatency(@NonNull LatencyHistogram histogram, @NonNull StringBuilder out);
+}
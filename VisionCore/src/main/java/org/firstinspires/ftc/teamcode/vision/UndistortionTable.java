@@ -0,0 +1,99 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+/**
+ * Maps distorted image points to where an ideal pinhole camera with the same {@code fx, fy, cx, cy} would
+ * have seen them, using the Brown-Conrady model OpenCV calibrations produce (radial {@code k1, k2, k3},
+ * tangential {@code p1, p2}).
+ *
+ * <p>Inverting the model needs an iterative solve per point, so it is done once, when the table is built,
+ * on a grid of nodes every {@link #DEFAULT_GRID_STEP} pixels. Lookups interpolate bilinearly between the
+ * four surrounding nodes; distortion varies smoothly enough that the interpolation error stays far below
+ * corner detection noise. Only detected corners are undistorted, never whole frames.</p>
+ *
+ * <p>Immutable after construction, so lookups may run on several threads at once.</p>
+ */
+public final class UndistortionTable {
+
+    public static final int DEFAULT_GRID_STEP = 8;
+    /** Fixed-point iterations of the inverse model; enough to converge for webcam-grade distortion. */
+    private static final int ITERATIONS = 10;
+
+    private final int step;
+    private final int columns;
+    private final int rows;
+    /** Undistorted x and y per grid node, row-major, interleaved. */
+    private final float[] nodes;
+
+    public UndistortionTable(int width, int height, double fx, double fy, double cx, double cy,
+                             double k1, double k2, double p1, double p2, double k3) {
+        this(width, height, fx, fy, cx, cy, k1, k2, p1, p2, k3, DEFAULT_GRID_STEP);
+    }
+
+    public UndistortionTable(int width, int height, double fx, double fy, double cx, double cy,
+                             double k1, double k2, double p1, double p2, double k3, int gridStep) {
+        if (width <= 0 || height <= 0 || gridStep <= 0) {
+            throw new IllegalArgumentException("Frame size and grid step must be positive");
+        }
+        this.step = gridStep;
+        // One node past the last pixel on each axis, so every pixel lies inside a cell.
+        this.columns = (width + gridStep - 1) / gridStep + 1;
+        this.rows = (height + gridStep - 1) / gridStep + 1;
+        this.nodes = new float[columns * rows * 2];
+
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                double xd = (column * gridStep - cx) / fx;
+                double yd = (row * gridStep - cy) / fy;
+                // Solve distort(x, y) = (xd, yd) by fixed-point iteration from the distorted point.
+                double x = xd;
+                double y = yd;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    double r2 = x * x + y * y;
+                    double radial = 1 + r2 * (k1 + r2 * (k2 + r2 * k3));
+                    double dx = 2 * p1 * x * y + p2 * (r2 + 2 * x * x);
+                    double dy = p1 * (r2 + 2 * y * y) + 2 * p2 * x * y;
+                    x = (xd - dx) / radial;
+                    y = (yd - dy) / radial;
+                }
+                int node = (row * columns + column) * 2;
+                nodes[node] = (float) (fx * x + cx);
+                nodes[node + 1] = (float) (fy * y + cy);
+            }
+        }
+    }
+
+    /**
+     * Undistorts {@code pointCount} interleaved {@code x, y} pairs. Points outside the frame are extrapolated
+     * from the nearest cell; {@code NaN} coordinates stay {@code NaN}. {@code src} and {@code dst} may be the
+     * same array.
+     */
+    public void undistort(double[] src, int srcOffset, double[] dst, int dstOffset, int pointCount) {
+        for (int p = 0; p < pointCount; p++) {
+            double u = src[srcOffset + p * 2];
+            double v = src[srcOffset + p * 2 + 1];
+            if (Double.isNaN(u) || Double.isNaN(v)) {
+                dst[dstOffset + p * 2] = u;
+                dst[dstOffset + p * 2 + 1] = v;
+                continue;
+            }
+            double gx = u / step;
+            double gy = v / step;
+            int column = Math.max(0, Math.min(columns - 2, (int) Math.floor(gx)));
+            int row = Math.max(0, Math.min(rows - 2, (int) Math.floor(gy)));
+            double tx = gx - column;
+            double ty = gy - row;
+
+            int n00 = (row * columns + column) * 2;
+            int n01 = n00 + 2;
+            int n10 = n00 + columns * 2;
+            int n11 = n10 + 2;
+            double w00 = (1 - tx) * (1 - ty);
+            double w01 = tx * (1 - ty);
+            double w10 = (1 - tx) * ty;
+            double w11 = tx * ty;
+            dst[dstOffset + p * 2] = w00 * nodes[n00] + w01 * nodes[n01] + w10 * nodes[n10] + w11 * nodes[n11];
+            dst[dstOffset + p * 2 + 1] =
+                    w00 * nodes[n00 + 1] + w01 * nodes[n01 + 1] + w10 * nodes[n10 + 1] + w11 * nodes[n11 + 1];
+        }
+    }
+}
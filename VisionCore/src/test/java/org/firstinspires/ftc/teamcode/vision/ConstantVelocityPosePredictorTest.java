@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ConstantVelocityPosePredictorTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static long ms(double millis) {
+        return (long) (millis * 1e6);
+    }
+
+    /** Starts a predictor at the origin at t = 0 with odometry timing anchored there. */
+    private static ConstantVelocityPosePredictor started(int odometryHistory) {
+        ConstantVelocityPosePredictor.Config config = new ConstantVelocityPosePredictor.Config();
+        config.odometryHistory = odometryHistory;
+        ConstantVelocityPosePredictor predictor = new ConstantVelocityPosePredictor(config);
+        predictor.addOdometry(0, 0, 0, 0);
+        assertTrue(predictor.addMeasurement(0, 0, 0, 0, 1));
+        return predictor;
+    }
+
+    /** Drives forward 0.1 m every 10 ms, from 10 ms to {@code count * 10} ms. */
+    private static void driveForward(PosePredictor predictor, int count) {
+        for (int i = 1; i <= count; i++) {
+            predictor.addOdometry(ms(10 * i), 0.1, 0, 0);
+        }
+    }
+
+    private static PredictedPose predict(PosePredictor predictor, long nanoTime) {
+        PredictedPose pose = new PredictedPose();
+        assertTrue(predictor.predictAt(nanoTime, pose));
+        return pose;
+    }
+
+    @Test
+    public void delayedMeasurementCorrectsThePoseAtItsCaptureTime() {
+        ConstantVelocityPosePredictor predictor = started(128);
+        driveForward(predictor, 10);
+
+        // Odometry puts the robot at 0.5 m at 50 ms; vision, arriving late, says 0.6 m.
+        assertTrue(predictor.addMeasurement(ms(50), 0.6, 0, 0, 1));
+
+        double atCapture = predict(predictor, ms(50)).x;
+        assertTrue(atCapture > 0.5 && atCapture < 0.6);
+        // The correction lands at 50 ms and the odometry after it is replayed on top.
+        assertEquals(atCapture + 0.5, predict(predictor, ms(100)).x, EPSILON);
+        assertEquals(0, predict(predictor, ms(100)).y, EPSILON);
+    }
+
+    @Test
+    public void measurementsOlderThanTheFilterAreRejected() {
+        ConstantVelocityPosePredictor predictor = started(128);
+        driveForward(predictor, 5);
+        assertTrue(predictor.addMeasurement(ms(40), 0.4, 0, 0, 1));
+
+        assertFalse(predictor.addMeasurement(ms(30), 0.3, 0, 0, 1));
+        assertEquals(1, predictor.getRejectedMeasurements());
+    }
+
+    @Test
+    public void extrapolationIsCappedWhileUncertaintyKeepsGrowing() {
+        ConstantVelocityPosePredictor predictor = started(128);
+        driveForward(predictor, 10); // 10 m/s until 100 ms
+
+        PredictedPose inside = predict(predictor, ms(200));
+        PredictedPose atCap = predict(predictor, ms(350));
+        PredictedPose pastCap = predict(predictor, ms(1100));
+
+        assertEquals(10.0, inside.velocityX, EPSILON);
+        assertEquals(1.0 + 1.0, inside.x, EPSILON);
+        // maxExtrapolationMs = 250 past the newest odometry at 100 ms.
+        assertEquals(1.0 + 2.5, atCap.x, EPSILON);
+        assertEquals(atCap.x, pastCap.x, EPSILON);
+        assertTrue(atCap.positionStdDev > inside.positionStdDev);
+        assertTrue(pastCap.positionStdDev > atCap.positionStdDev);
+        assertTrue(pastCap.headingStdDev > atCap.headingStdDev);
+    }
+
+    @Test
+    public void predictAtDoesNotChangeTheCommittedState() {
+        ConstantVelocityPosePredictor probed = started(128);
+        ConstantVelocityPosePredictor untouched = started(128);
+        driveForward(probed, 10);
+        driveForward(untouched, 10);
+
+        PredictedPose first = predict(probed, ms(80));
+        predict(probed, ms(500));
+        predict(probed, ms(20));
+        PredictedPose again = predict(probed, ms(80));
+        assertEquals(first.x, again.x, EPSILON);
+        assertEquals(first.positionStdDev, again.positionStdDev, EPSILON);
+
+        assertTrue(probed.addMeasurement(ms(50), 0.6, 0.05, 0.1, 1));
+        assertTrue(untouched.addMeasurement(ms(50), 0.6, 0.05, 0.1, 1));
+        PredictedPose a = predict(probed, ms(150));
+        PredictedPose b = predict(untouched, ms(150));
+        assertEquals(b.x, a.x, EPSILON);
+        assertEquals(b.y, a.y, EPSILON);
+        assertEquals(b.heading, a.heading, EPSILON);
+        assertEquals(b.positionStdDev, a.positionStdDev, EPSILON);
+    }
+
+    @Test
+    public void fullOdometryBufferFoldsSamplesWithoutLosingMotion() {
+        ConstantVelocityPosePredictor small = started(4);
+        ConstantVelocityPosePredictor large = started(128);
+        driveForward(small, 10);
+        driveForward(large, 10);
+
+        PredictedPose folded = predict(small, ms(100));
+        PredictedPose buffered = predict(large, ms(100));
+        assertEquals(1.0, folded.x, EPSILON);
+        assertEquals(buffered.x, folded.x, EPSILON);
+        assertEquals(buffered.positionStdDev, folded.positionStdDev, EPSILON);
+    }
+}
@@ -0,0 +1,151 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DecimationOverrideTest {
+
+    /** Stands in for the manager's processors: explicit decimation, optionally driven by a controller. */
+    private static final class FakeDetectors implements DecimationTarget {
+        private final DecimationController controller;
+        float decimation = Float.NaN;
+        boolean paused;
+        int sets;
+
+        FakeDetectors(DecimationController controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public float getDecimation() {
+            return decimation;
+        }
+
+        @Override
+        public void setDecimation(float value) {
+            sets++;
+            if (controller != null) {
+                controller.reset(value);
+                value = controller.getDecimation();
+            }
+            decimation = value;
+        }
+
+        @Override
+        public void clearDecimation() {
+            if (controller != null) {
+                setDecimation(DecimationOverride.SDK_DEFAULT_DECIMATION);
+            } else {
+                decimation = Float.NaN;
+            }
+        }
+
+        @Override
+        public void setAdaptiveDecimationPaused(boolean paused) {
+            this.paused = paused;
+        }
+
+        /** One processed frame without tags in view. */
+        void frame(double frameMs) {
+            if (controller != null && !paused) {
+                decimation = controller.update(frameMs, Double.NaN);
+            }
+        }
+    }
+
+    @Test
+    public void unsetDecimationIsRestoredAsUnset() {
+        FakeDetectors detectors = new FakeDetectors(null);
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        override.apply(4);
+        assertTrue(override.isActive());
+        assertEquals(4, detectors.getDecimation(), 0);
+
+        override.restore();
+        assertFalse(override.isActive());
+        assertTrue(Float.isNaN(detectors.getDecimation()));
+    }
+
+    @Test
+    public void explicitDecimationIsRestoredExactly() {
+        FakeDetectors detectors = new FakeDetectors(null);
+        detectors.setDecimation(1.5f);
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        override.apply(4);
+        assertEquals(4, detectors.getDecimation(), 0);
+        override.restore();
+        assertEquals(1.5f, detectors.getDecimation(), 0);
+    }
+
+    @Test
+    public void neverLowersAHigherDecimation() {
+        FakeDetectors detectors = new FakeDetectors(null);
+        detectors.setDecimation(5);
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        override.apply(4);
+        assertEquals(5, detectors.getDecimation(), 0);
+        assertEquals(1, detectors.sets);
+        override.restore();
+        assertEquals(5, detectors.getDecimation(), 0);
+    }
+
+    @Test
+    public void sdkDefaultIsNotRaisedToItself() {
+        FakeDetectors detectors = new FakeDetectors(null);
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        override.apply(DecimationOverride.SDK_DEFAULT_DECIMATION);
+        assertEquals(0, detectors.sets);
+        override.restore();
+        assertTrue(Float.isNaN(detectors.getDecimation()));
+    }
+
+    @Test
+    public void repeatedApplyKeepsTheFirstSavedState() {
+        FakeDetectors detectors = new FakeDetectors(null);
+        detectors.setDecimation(2);
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        override.apply(3.5f);
+        override.apply(4);
+        override.restore();
+        assertEquals(2, detectors.getDecimation(), 0);
+        override.restore();
+        assertEquals(2, detectors.getDecimation(), 0);
+    }
+
+    @Test
+    public void degradeRecoverCyclePausesAndRestoresAdaptiveDecimation() {
+        DecimationController.Config config = new DecimationController.Config();
+        config.settleFrames = 0;
+        config.initialDecimation = 3;
+        FakeDetectors detectors = new FakeDetectors(new DecimationController(config));
+        DecimationOverride override = new DecimationOverride(detectors);
+
+        // Fast frames without tags walk the controller down to 2.
+        detectors.frame(5);
+        detectors.frame(5);
+        float before = detectors.getDecimation();
+        assertEquals(2, before, 0);
+
+        override.apply(4);
+        assertTrue(detectors.paused);
+        for (int i = 0; i < 20; i++) {
+            detectors.frame(5);
+        }
+        assertEquals("the controller must not undo the raise", 4, detectors.getDecimation(), 0);
+
+        override.restore();
+        assertFalse(detectors.paused);
+        assertEquals(before, detectors.getDecimation(), 0);
+
+        detectors.frame(5);
+        assertEquals("the controller resumes from the restored value", 1.5f, detectors.getDecimation(), 0);
+    }
+}
@@ -0,0 +1,127 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DetectionReaderTest {
+
+    private static final String[] FAMILIES = {"TAG_36h11"};
+
+    private final DetectionSnapshotBuffer buffer = new DetectionSnapshotBuffer(FAMILIES, 8);
+    private final DetectionReader reader = new DetectionReader(
+            new SnapshotSource[] {buffer}, FAMILIES, ScaledPoseUnits.METERS_RADIANS);
+
+    /** Publishes a frame whose every value encodes {@code frame}, so a torn read shows up as a mismatch. */
+    private void publish(long frame) {
+        DetectionSnapshot snapshot = buffer.beginWrite(frame * 1000, frame);
+        int tags = (int) (frame % 4) + 1;
+        for (int t = 0; t < tags; t++) {
+            int slot = snapshot.add(t + 1, 0, frame, frame);
+            snapshot.setPose(slot, frame, 0, 0, frame, frame, frame, 0, 0, 0);
+        }
+        buffer.publish();
+    }
+
+    @Test
+    public void lookupsReadTheNewestFrameUntilAViewIsHandedOut() {
+        assertNull(reader.lookup().get(1));
+        publish(1);
+        assertEquals(1, reader.lookup().get(1).getFrameSequence());
+        publish(2);
+        assertEquals(2, reader.lookup().get(1).getFrameSequence());
+        assertEquals(2, reader.currentView().getFrameSequence());
+    }
+
+    @Test
+    public void lookupsReadTheFrameOfTheViewHandedOut() {
+        publish(1);
+        DetectionView view = reader.acquireView();
+        publish(2);
+        publish(3);
+
+        assertEquals(1, reader.lookup().get(1).getFrameSequence());
+        assertEquals(1, reader.currentView().getFrameSequence());
+        assertEquals(1, view.getFrameSequence());
+        assertEquals(1.0, view.getCenterX(0), 0);
+
+        view = reader.acquireView();
+        assertEquals(3, view.getFrameSequence());
+        assertEquals(3, reader.lookup().get(1).getFrameSequence());
+    }
+
+    @Test
+    public void lookupsWaitForTheCompleteCopyOfAFramePublishedCornersFirst() {
+        publish(1);
+        assertEquals(1, reader.acquireView().getFrameSequence());
+        // Same steps as the processor: corners published as pending, poses joined into a copy of them.
+        DetectionSnapshot corners = buffer.beginWrite(2000, 2);
+        corners.add(1, 0, 20, 20);
+        corners.setPending(true);
+        buffer.publish();
+
+        DetectionView view = reader.acquireView();
+        assertTrue(view.isPending());
+        assertEquals(2, view.getFrameSequence());
+        assertEquals(20.0, view.getCenterX(0), 0);
+        assertTrue(Double.isNaN(view.getRangeMeters(0)));
+        assertEquals(1, reader.lookup().get(1).getFrameSequence());
+
+        DetectionSnapshot complete = buffer.beginWrite(2000, 2);
+        complete.copyFrom(corners);
+        complete.setPending(false);
+        complete.setPose(0, 2.5, 0, 0, 2.5, 0, 0, 0, 0, 0);
+        buffer.publish();
+
+        view = reader.acquireView();
+        assertFalse(view.isPending());
+        assertEquals(20.0, view.getCenterX(0), 0);
+        assertEquals(2.5, view.getRangeMeters(0), 0);
+        assertEquals(2, reader.lookup().get(1).getFrameSequence());
+        assertEquals(2.5, reader.lookup().get(1).getRange(), 0);
+    }
+
+    @Test(timeout = 20_000)
+    public void viewReadsAndLookupsStayOnOneFrameWhileAWriterPublishes() throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            long frame = 1;
+            while (!stop.get()) {
+                publish(frame++);
+            }
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        writer.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+        writer.start();
+        try {
+            for (int loop = 0; loop < 200_000; loop++) {
+                DetectionView view = reader.acquireView();
+                long frame = view.getFrameSequence();
+                int size = view.size();
+                for (int i = 0; i < size; i++) {
+                    TagIdIndex.Entry entry = reader.lookup().get(view.getId(i));
+                    assertNotNull(entry);
+                    assertEquals(frame, entry.getFrameSequence());
+                    assertEquals(frame, entry.getCenterX(), 0);
+                    reader.lookup().hasFresh(view.getId(i), frame * 1000, 1);
+                    assertEquals(size, view.size());
+                    assertEquals(frame, view.getFrameSequence(i));
+                    assertEquals(frame, view.getCenterX(i), 0);
+                    assertEquals(frame, view.getRangeMeters(i), 0);
+                    assertEquals(frame, view.getTranslationZ(i), 0);
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,110 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DetectionSnapshotBufferTest {
+
+    private static final String[] FAMILIES = {"TAG_36h11", "TAG_16h5"};
+
+    private final DetectionSnapshotBuffer buffer = new DetectionSnapshotBuffer(FAMILIES, 4);
+
+    private void publish(long frame, int tags) {
+        DetectionSnapshot snapshot = buffer.beginWrite(frame * 10, frame);
+        for (int t = 0; t < tags; t++) {
+            snapshot.add((int) frame, t & 1, frame, frame);
+        }
+        buffer.publish();
+    }
+
+    @Test
+    public void acquireBeforeAnyPublishReturnsAnEmptySnapshot() {
+        DetectionSnapshot snapshot = buffer.acquire();
+        assertEquals(0, snapshot.size());
+        assertEquals(0, snapshot.getFrameSequence());
+    }
+
+    @Test
+    public void acquireReturnsTheNewestPublishedFrame() {
+        publish(1, 1);
+        publish(2, 2);
+        publish(3, 3);
+        DetectionSnapshot snapshot = buffer.acquire();
+        assertEquals(3, snapshot.getFrameSequence());
+        assertEquals(30, snapshot.getCaptureTimeNanos());
+        assertEquals(3, snapshot.size());
+        assertEquals("TAG_16h5", snapshot.getTagFamily(1));
+    }
+
+    @Test
+    public void acquireWithoutNewFrameKeepsTheSameSnapshot() {
+        publish(1, 1);
+        DetectionSnapshot first = buffer.acquire();
+        assertSame(first, buffer.acquire());
+        publish(2, 1);
+        assertNotSame(first, buffer.acquire());
+    }
+
+    @Test
+    public void writerNeverReusesTheSnapshotTheReaderHolds() {
+        publish(1, 2);
+        DetectionSnapshot held = buffer.acquire();
+        for (long frame = 2; frame < 10; frame++) {
+            publish(frame, 1);
+            assertEquals(1, held.getFrameSequence());
+            assertEquals(2, held.size());
+            assertEquals(1, held.getId(0));
+        }
+    }
+
+    @Test
+    public void fullSnapshotCountsOverflow() {
+        DetectionSnapshot snapshot = buffer.beginWrite(1, 1);
+        for (int t = 0; t < 6; t++) {
+            snapshot.add(t, 0, 0, 0);
+        }
+        buffer.publish();
+        DetectionSnapshot read = buffer.acquire();
+        assertEquals(4, read.size());
+        assertEquals(2, read.getOverflow());
+    }
+
+    @Test(timeout = 20_000)
+    public void concurrentReaderOnlySeesCompleteFrames() throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            long frame = 1;
+            while (!stop.get()) {
+                publish(frame, (int) (frame % 4) + 1);
+                frame++;
+            }
+        });
+        writer.start();
+        try {
+            long last = 0;
+            for (int i = 0; i < 200_000; i++) {
+                DetectionSnapshot snapshot = buffer.acquire();
+                long frame = snapshot.getFrameSequence();
+                if (frame == 0) {
+                    continue;
+                }
+                assertEquals(true, frame >= last);
+                assertEquals((int) (frame % 4) + 1, snapshot.size());
+                assertEquals(frame * 10, snapshot.getCaptureTimeNanos());
+                for (int slot = 0; slot < snapshot.size(); slot++) {
+                    assertEquals(frame, snapshot.getId(slot));
+                    assertEquals(frame, snapshot.getCenterX(slot), 0);
+                }
+                last = frame;
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class DetectionTextFormatterTest {
+
+    private static String fixed(double value, int decimals) {
+        return DetectionTextFormatter.appendFixed(new StringBuilder(), value, decimals).toString();
+    }
+
+    @Test
+    public void roundsHalfUpToTheRequestedDecimals() {
+        assertEquals("1.25", fixed(1.2499, 2));
+        assertEquals("1.3", fixed(1.25, 1));
+        assertEquals("2", fixed(1.5, 0));
+        assertEquals("0.125000", fixed(0.125, 6));
+    }
+
+    @Test
+    public void padsFractionsWithLeadingZeros() {
+        assertEquals("1.05", fixed(1.05, 2));
+        assertEquals("3.007", fixed(3.007, 3));
+        assertEquals("0.00", fixed(0.0, 2));
+        assertEquals("12.0", fixed(12, 1));
+    }
+
+    @Test
+    public void writesNegativeValuesWithoutANegativeZero() {
+        assertEquals("-2.50", fixed(-2.5, 2));
+        assertEquals("-0.1", fixed(-0.06, 1));
+        assertEquals("0.0", fixed(-0.04, 1));
+    }
+
+    @Test
+    public void writesNonFiniteValuesAsWords() {
+        assertEquals("NaN", fixed(Double.NaN, 2));
+        assertEquals("Inf", fixed(Double.POSITIVE_INFINITY, 2));
+        assertEquals("-Inf", fixed(Double.NEGATIVE_INFINITY, 2));
+    }
+
+    @Test
+    public void appendsToExistingText() {
+        StringBuilder out = new StringBuilder("range=");
+        DetectionTextFormatter.appendFixed(out, 0.5, 2).append(" m");
+        assertEquals("range=0.50 m", out.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FrameSignalTest {
+
+    @Test
+    public void returnsImmediatelyWhenANewerFrameWasSignalled() throws InterruptedException {
+        FrameSignal signal = new FrameSignal();
+        signal.signal();
+        signal.signal();
+
+        long start = System.nanoTime();
+        assertEquals(2, signal.await(0, 10_000));
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+
+    @Test
+    public void timesOutWithTheUnchangedSequence() throws InterruptedException {
+        FrameSignal signal = new FrameSignal();
+        signal.signal();
+
+        long start = System.nanoTime();
+        assertEquals(1, signal.await(1, 30));
+        assertTrue(System.nanoTime() - start >= 25_000_000L);
+    }
+
+    @Test
+    public void wakesAWaiterWhenAFrameIsSignalled() throws InterruptedException {
+        FrameSignal signal = new FrameSignal();
+        long[] result = new long[1];
+        Thread waiter = new Thread(() -> {
+            try {
+                result[0] = signal.await(0, 10_000);
+            } catch (InterruptedException ignored) {
+                result[0] = -1;
+            }
+        });
+        waiter.start();
+        Thread.sleep(20);
+        signal.signal();
+        waiter.join(5_000);
+
+        assertEquals(1, result[0]);
+        assertEquals(1, signal.get());
+    }
+}
@@ -0,0 +1,97 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HealthMonitorTest {
+
+    private static final double FPS = 30;
+    private static final double FRAME_MS = 20;
+
+    private final HealthMonitor monitor;
+    private long nowMs;
+    private long delivered;
+
+    public HealthMonitorTest() {
+        HealthMonitor.Config config = new HealthMonitor.Config();
+        config.stallMs = 1000;
+        config.startupTimeoutMs = 3000;
+        config.restartCooldownMs = 2000;
+        config.degradeAfterSamples = 2;
+        monitor = new HealthMonitor(config, 2);
+    }
+
+    /** Advances the clock by {@code ms}, delivering {@code frames} frames, and takes one sample. */
+    private HealthMonitor.Action sample(long ms, int frames, boolean streaming, double fps) {
+        nowMs += ms;
+        delivered += frames;
+        return monitor.sample(nowMs * 1_000_000L, true, streaming, fps, FRAME_MS, delivered);
+    }
+
+    private void startStreaming() {
+        assertEquals(HealthMonitor.Action.NONE, sample(0, 0, true, FPS));
+        assertEquals(HealthMonitor.Action.NONE, sample(250, 7, true, FPS));
+    }
+
+    @Test
+    public void deliveredFramesKeepThePipelineAliveWhenNothingIsProcessed() {
+        startStreaming();
+        // A frame policy or budget skipping every frame still counts as delivery; the low rate degrades instead.
+        for (int i = 0; i < 20; i++) {
+            HealthMonitor.Action action = sample(250, 7, true, 0);
+            if (action == HealthMonitor.Action.RESTART) {
+                throw new AssertionError("restarted at sample " + i);
+            }
+        }
+        assertEquals(2, monitor.getTier());
+        assertEquals(0, monitor.getRestartCount());
+    }
+
+    @Test
+    public void restartsWhenDeliveryStopsForTheStallTime() {
+        startStreaming();
+        for (int i = 0; i < 4; i++) {
+            assertEquals(HealthMonitor.Action.NONE, sample(250, 0, true, FPS));
+        }
+        assertEquals(1000, monitor.getLastFrameAgeMs(), 1e-9);
+        assertEquals(HealthMonitor.Action.RESTART, sample(250, 0, true, FPS));
+        assertEquals(1, monitor.getRestartCount());
+    }
+
+    @Test
+    public void restartsWhenTheCameraLeavesStreaming() {
+        startStreaming();
+        // Not streaming: no progress, and the stale FPS must not drive tier changes either.
+        for (int i = 0; i < 4; i++) {
+            assertEquals(HealthMonitor.Action.NONE, sample(250, 0, false, 0));
+        }
+        assertEquals(0, monitor.getTier());
+        assertEquals(HealthMonitor.Action.RESTART, sample(250, 0, false, 0));
+    }
+
+    @Test
+    public void waitsForTheStartupTimeoutBeforeTheFirstFrame() {
+        assertEquals(HealthMonitor.Action.NONE, sample(0, 0, false, 0));
+        for (int i = 0; i < 12; i++) {
+            assertEquals(HealthMonitor.Action.NONE, sample(250, 0, false, 0));
+        }
+        assertEquals(HealthMonitor.Action.RESTART, sample(250, 0, false, 0));
+        // The cooldown holds off a second restart while the camera reopens.
+        for (int i = 0; i < 7; i++) {
+            assertEquals(HealthMonitor.Action.NONE, sample(250, 0, false, 0));
+        }
+        assertEquals(1, monitor.getRestartCount());
+    }
+
+    @Test
+    public void pausedStreamingIsNeverAStall() {
+        startStreaming();
+        for (int i = 0; i < 40; i++) {
+            nowMs += 250;
+            assertEquals(HealthMonitor.Action.NONE,
+                    monitor.sample(nowMs * 1_000_000L, false, false, 0, FRAME_MS, delivered));
+        }
+        assertEquals(0, monitor.getRestartCount());
+    }
+}
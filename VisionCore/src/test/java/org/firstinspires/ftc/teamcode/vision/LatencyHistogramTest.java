@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram("detect");
+
+    @Test
+    public void emptyHistogramReportsNaN() {
+        assertEquals(0, histogram.getCount());
+        assertTrue(Double.isNaN(histogram.getP50Ms()));
+        assertEquals(0, histogram.getMaxMs(), 0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        for (int micros = 1; micros <= 10; micros++) {
+            histogram.recordMicros(micros);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(0.005, histogram.getP50Ms(), 0);
+        assertEquals(0.010, histogram.getMaxMs(), 0);
+    }
+
+    @Test
+    public void percentilesStayWithinBucketPrecision() {
+        // 1 ms to 100 ms in 1 ms steps: p50 is 50 ms, p95 95 ms, p99 99 ms.
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.recordNanos(ms * 1_000_000L);
+        }
+        assertEquals(50, histogram.getP50Ms(), 50 * 0.07);
+        assertEquals(95, histogram.getP95Ms(), 95 * 0.07);
+        assertEquals(99, histogram.getP99Ms(), 99 * 0.07);
+        assertEquals(100, histogram.getMaxMs(), 0);
+    }
+
+    @Test
+    public void percentileNeverExceedsTheMaximum() {
+        histogram.recordMicros(1000);
+        assertEquals(1.0, histogram.getP99Ms(), 0);
+        assertEquals(1.0, histogram.getPercentileMs(1.0), 0);
+    }
+
+    @Test
+    public void negativeSamplesAreClampedToZero() {
+        histogram.recordMicros(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getP50Ms(), 0);
+    }
+
+    @Test
+    public void hugeSamplesLandInTheLastBucket() {
+        histogram.recordMicros(Long.MAX_VALUE / 2);
+        assertEquals(1, histogram.getCount());
+        assertEquals(Long.MAX_VALUE / 2 / 1000.0, histogram.getMaxMs(), 1);
+    }
+
+    @Test
+    public void bucketsCoverEveryValueOnce() {
+        long previousUpper = -1;
+        for (long micros = 0; micros < 1 << 16; micros++) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            long upper = LatencyHistogram.bucketUpperMicros(index);
+            assertTrue(micros <= upper);
+            assertTrue("relative bucket width at " + micros, upper - micros <= Math.max(0, micros / 16));
+            assertTrue(upper >= previousUpper);
+            previousUpper = upper;
+        }
+    }
+
+    @Test
+    public void resetClearsCountsAndMaximum() {
+        histogram.recordMicros(500);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMs(), 0);
+        assertTrue(Double.isNaN(histogram.getP95Ms()));
+    }
+}
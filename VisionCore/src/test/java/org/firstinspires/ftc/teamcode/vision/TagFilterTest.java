@@ -0,0 +1,79 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TagFilterTest {
+
+    @Test
+    public void defaultConfigAcceptsEverything() {
+        TagFilter filter = new TagFilter(new TagFilter.Config());
+        assertTrue(filter.accepts(0, 0));
+        assertTrue(filter.accepts(586, 0));
+        assertTrue(filter.acceptsRange(1e6));
+        assertTrue(filter.acceptsRange(Double.NaN));
+        assertEquals(0, filter.getRejectedCount());
+    }
+
+    @Test
+    public void allowListKeepsOnlyListedIds() {
+        TagFilter.Config config = new TagFilter.Config();
+        config.allowIds = new int[] {1, 63, 64, 200};
+        TagFilter filter = new TagFilter(config);
+        assertTrue(filter.accepts(1, 0));
+        assertTrue(filter.accepts(63, 0));
+        assertTrue(filter.accepts(64, 0));
+        assertTrue(filter.accepts(200, 0));
+        assertFalse(filter.accepts(2, 0));
+        assertFalse(filter.accepts(201, 0));
+        assertFalse(filter.accepts(1000, 0));
+        assertFalse(filter.accepts(-1, 0));
+        assertEquals(4, filter.getRejectedById());
+    }
+
+    @Test
+    public void emptyAllowListRejectsEverything() {
+        TagFilter.Config config = new TagFilter.Config();
+        config.allowIds = new int[0];
+        TagFilter filter = new TagFilter(config);
+        assertFalse(filter.accepts(0, 100));
+    }
+
+    @Test
+    public void denyListWinsOverAllowList() {
+        TagFilter.Config config = new TagFilter.Config();
+        config.allowIds = new int[] {5, 6};
+        config.denyIds = new int[] {6, 7};
+        TagFilter filter = new TagFilter(config);
+        assertTrue(filter.accepts(5, 0));
+        assertFalse(filter.accepts(6, 0));
+        assertFalse(filter.accepts(7, 0));
+    }
+
+    @Test
+    public void marginAndRangeAreCountedSeparately() {
+        TagFilter.Config config = new TagFilter.Config();
+        config.minDecisionMargin = 20;
+        config.maxRangeMeters = 2.0;
+        TagFilter filter = new TagFilter(config);
+        assertFalse(filter.accepts(3, 19.9));
+        assertTrue(filter.accepts(3, 20));
+        assertTrue(filter.acceptsRange(2.0));
+        assertFalse(filter.acceptsRange(2.01));
+        assertTrue(filter.acceptsRange(Double.NaN));
+        assertEquals(0, filter.getRejectedById());
+        assertEquals(1, filter.getRejectedByMargin());
+        assertEquals(1, filter.getRejectedByRange());
+        assertEquals(2, filter.getRejectedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeIdsInAListAreRejected() {
+        TagFilter.Config config = new TagFilter.Config();
+        config.denyIds = new int[] {-3};
+        new TagFilter(config);
+    }
+}
@@ -0,0 +1,121 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TagIdIndexTest {
+
+    private static final String[] FAMILIES = {"TAG_36h11", "TAG_16h5"};
+
+    private final TagIdIndex index = new TagIdIndex(FAMILIES);
+
+    private static DetectionSnapshot snapshot(long captureTimeNanos, long frame, int... familyAndId) {
+        DetectionSnapshot snapshot = new DetectionSnapshot(FAMILIES, 8);
+        snapshot.reset(captureTimeNanos, frame);
+        for (int i = 0; i < familyAndId.length; i += 2) {
+            int slot = snapshot.add(familyAndId[i + 1], familyAndId[i], 100 + i, 200 + i);
+            snapshot.setPose(slot, 1.5 + i, 0.1, 0.2, 0.3, 1.4, 0.5, 0.6, 0.7, 0.8);
+        }
+        return snapshot;
+    }
+
+    @Test
+    public void unseenTagsAreNull() {
+        assertNull(index.get(3));
+        assertNull(index.get("TAG_36h11", 3));
+        assertFalse(index.hasFresh(3, 0, 1000));
+    }
+
+    @Test
+    public void updateCopiesEveryField() {
+        index.update(snapshot(5_000_000L, 7, 0, 3));
+        TagIdIndex.Entry entry = index.get("TAG_36h11", 3);
+        assertEquals(3, entry.getId());
+        assertEquals("TAG_36h11", entry.getTagFamily());
+        assertEquals(5_000_000L, entry.getCaptureTimeNanos());
+        assertEquals(7, entry.getFrameSequence());
+        assertEquals(100, entry.getCenterX(), 0);
+        assertEquals(200, entry.getCenterY(), 0);
+        assertEquals(1.5, entry.getRangeMeters(), 0);
+        assertEquals(0.1, entry.getBearingRadians(), 0);
+        assertEquals(1.4, entry.getYMeters(), 0);
+        assertEquals(0.8, entry.getRollRadians(), 0);
+    }
+
+    @Test
+    public void poseAccessorsConvertToTheIndexUnits() {
+        TagIdIndex inches = new TagIdIndex(FAMILIES, ScaledPoseUnits.INCHES_DEGREES);
+        inches.update(snapshot(5_000_000L, 7, 0, 3));
+        TagIdIndex.Entry entry = inches.get(3);
+        assertEquals(1.5 / 0.0254, entry.getRange(), 1e-9);
+        assertEquals(Math.toDegrees(0.1), entry.getBearing(), 1e-9);
+        assertEquals(1.4 / 0.0254, entry.getTranslationY(), 1e-9);
+        assertEquals(Math.toDegrees(0.8), entry.getRoll(), 1e-9);
+        assertEquals(1.5, entry.getRangeMeters(), 0);
+        assertEquals(0.8, entry.getRollRadians(), 0);
+
+        index.update(snapshot(5_000_000L, 7, 0, 3));
+        assertEquals(1.5, index.get(3).getRange(), 0);
+    }
+
+    @Test
+    public void entriesAreReusedAcrossUpdates() {
+        index.update(snapshot(1, 1, 0, 3));
+        TagIdIndex.Entry first = index.get(3);
+        index.update(snapshot(2, 2, 0, 3));
+        assertSame(first, index.get(3));
+        assertEquals(2, first.getFrameSequence());
+    }
+
+    @Test
+    public void keepsTheLastSightingOfTagsMissingFromNewerFrames() {
+        index.update(snapshot(1, 1, 0, 3, 0, 4));
+        index.update(snapshot(2, 2, 0, 4));
+        assertEquals(1, index.get(3).getFrameSequence());
+        assertEquals(2, index.get(4).getFrameSequence());
+    }
+
+    @Test
+    public void lookupByIdReturnsTheNewestFamily() {
+        index.update(snapshot(10, 1, 0, 5));
+        index.update(snapshot(20, 2, 1, 5));
+        assertEquals("TAG_16h5", index.get(5).getTagFamily());
+        index.update(snapshot(30, 3, 0, 5));
+        assertEquals("TAG_36h11", index.get(5).getTagFamily());
+        assertEquals(20, index.get("TAG_16h5", 5).getCaptureTimeNanos());
+    }
+
+    @Test
+    public void idsOutsideTheFamilyIdSpaceAreIgnored() {
+        index.update(snapshot(1, 1, 1, 30, 1, -1, 1, 29));
+        assertNull(index.get("TAG_16h5", 30));
+        assertNull(index.get(-1));
+        assertEquals(29, index.get("TAG_16h5", 29).getId());
+        assertNull(index.get("TAG_25h9", 1));
+    }
+
+    @Test
+    public void freshnessUsesTheCaptureTime() {
+        index.update(snapshot(1_000_000_000L, 1, 0, 3));
+        assertTrue(index.hasFresh(3, 1_050_000_000L, 50));
+        assertFalse(index.hasFresh(3, 1_051_000_000L, 50));
+        assertEquals(51, index.get(3).getAgeMs(1_051_000_000L), 1e-9);
+    }
+
+    @Test
+    public void getFreshFillsEveryPosition() {
+        index.update(snapshot(1_000_000_000L, 1, 0, 1, 0, 2));
+        index.update(snapshot(2_000_000_000L, 2, 0, 2));
+        TagIdIndex.Entry[] out = new TagIdIndex.Entry[3];
+        int found = index.getFresh(new int[] {1, 2, 9}, 2_000_000_000L, 100, out);
+        assertEquals(1, found);
+        assertNull(out[0]);
+        assertEquals(2, out[1].getId());
+        assertNull(out[2]);
+    }
+}
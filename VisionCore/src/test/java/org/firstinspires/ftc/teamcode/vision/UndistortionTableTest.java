@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UndistortionTableTest {
+
+    // A 640x480 webcam calibration with visible barrel distortion and a little tangential skew.
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final double FX = 622.0;
+    private static final double FY = 620.0;
+    private static final double CX = 319.5;
+    private static final double CY = 241.0;
+    private static final double K1 = -0.12;
+    private static final double K2 = 0.18;
+    private static final double P1 = 0.0012;
+    private static final double P2 = -0.0008;
+    private static final double K3 = -0.05;
+
+    private static final UndistortionTable TABLE =
+            new UndistortionTable(WIDTH, HEIGHT, FX, FY, CX, CY, K1, K2, P1, P2, K3);
+
+    /** Forward Brown-Conrady model, as in OpenCV's projectPoints: ideal pixel to distorted pixel. */
+    private static double[] distort(double u, double v) {
+        double x = (u - CX) / FX;
+        double y = (v - CY) / FY;
+        double r2 = x * x + y * y;
+        double radial = 1 + K1 * r2 + K2 * r2 * r2 + K3 * r2 * r2 * r2;
+        double xd = x * radial + 2 * P1 * x * y + P2 * (r2 + 2 * x * x);
+        double yd = y * radial + P1 * (r2 + 2 * y * y) + 2 * P2 * x * y;
+        return new double[]{FX * xd + CX, FY * yd + CY};
+    }
+
+    /** Ideal pixel whose distorted image is {@code (u, v)}, by Newton's method on the forward model. */
+    private static double[] reference(double u, double v) {
+        double[] ideal = {u, v};
+        double h = 1e-4;
+        for (int i = 0; i < 50; i++) {
+            double[] d = distort(ideal[0], ideal[1]);
+            double[] dx = distort(ideal[0] + h, ideal[1]);
+            double[] dy = distort(ideal[0], ideal[1] + h);
+            double a = (dx[0] - d[0]) / h;
+            double b = (dy[0] - d[0]) / h;
+            double c = (dx[1] - d[1]) / h;
+            double e = (dy[1] - d[1]) / h;
+            double ru = d[0] - u;
+            double rv = d[1] - v;
+            double det = a * e - b * c;
+            ideal[0] -= (e * ru - b * rv) / det;
+            ideal[1] -= (a * rv - c * ru) / det;
+        }
+        double[] check = distort(ideal[0], ideal[1]);
+        assertEquals(u, check[0], 1e-9);
+        assertEquals(v, check[1], 1e-9);
+        return ideal;
+    }
+
+    private static void assertUndistorts(double u, double v, double tolerancePixels) {
+        double[] expected = reference(u, v);
+        double[] actual = new double[2];
+        TABLE.undistort(new double[]{u, v}, 0, actual, 0, 1);
+        assertEquals("x at " + u + "," + v, expected[0], actual[0], tolerancePixels);
+        assertEquals("y at " + u + "," + v, expected[1], actual[1], tolerancePixels);
+    }
+
+    @Test
+    public void recoversIdealPointsRoundTrippedThroughTheForwardModel() {
+        double[] ideal = {100.25, 60.75, 319.5, 241.0, 580.0, 430.5, 15.0, 470.0};
+        double[] points = new double[ideal.length];
+        for (int i = 0; i < ideal.length; i += 2) {
+            double[] d = distort(ideal[i], ideal[i + 1]);
+            points[i] = d[0];
+            points[i + 1] = d[1];
+        }
+        TABLE.undistort(points, 0, points, 0, ideal.length / 2);
+        for (int i = 0; i < ideal.length; i++) {
+            assertEquals(ideal[i], points[i], 0.02);
+        }
+    }
+
+    @Test
+    public void matchesReferenceInsideAndOnTheGridNodes() {
+        for (double v = 0; v <= HEIGHT; v += 37.3) {
+            for (double u = 0; u <= WIDTH; u += 41.7) {
+                assertUndistorts(u, v, 0.02);
+            }
+        }
+        assertUndistorts(CX, CY, 1e-3);
+        assertUndistorts(64, 48, 0.02);
+    }
+
+    @Test
+    public void matchesReferenceAlongTheFrameEdges() {
+        for (double u = 0; u <= WIDTH; u += 16.5) {
+            assertUndistorts(u, 0, 0.02);
+            assertUndistorts(u, HEIGHT - 1, 0.02);
+            assertUndistorts(u, HEIGHT, 0.02);
+        }
+        for (double v = 0; v <= HEIGHT; v += 16.5) {
+            assertUndistorts(0, v, 0.02);
+            assertUndistorts(WIDTH - 1, v, 0.02);
+            assertUndistorts(WIDTH, v, 0.02);
+        }
+    }
+
+    @Test
+    public void extrapolatesCloselyJustOutsideTheGrid() {
+        // Corners of tags clipped by the frame border land a few pixels outside it.
+        assertUndistorts(-4, -4, 0.1);
+        assertUndistorts(WIDTH + 6, HEIGHT + 6, 0.1);
+        assertUndistorts(-6, HEIGHT / 2.0, 0.1);
+        assertUndistorts(WIDTH / 2.0, HEIGHT + 6, 0.1);
+    }
+
+    @Test
+    public void matchesCalib3dUndistortImagePoints() {
+        // Calib3d.undistortImagePoints for the same calibration (OpenCV 4.7, 100 iterations, eps 1e-12).
+        double[][] expected = {
+                {0, 0, -7.092081, -5.846737},
+                {640, 480, 647.486816, 485.089172},
+                {320, 0, 320.086731, -3.907573},
+                {100, 100, 96.485329, 97.545425},
+                {-4, -4, -11.140534, -9.919525},
+                {646, 486, 653.568115, 491.163422},
+        };
+        double[] actual = new double[2];
+        for (double[] row : expected) {
+            TABLE.undistort(row, 0, actual, 0, 1);
+            assertEquals(row[2], actual[0], 0.03);
+            assertEquals(row[3], actual[1], 0.03);
+        }
+    }
+
+    @Test
+    public void keepsNanCoordinatesAndHonoursOffsets() {
+        double[] src = {Double.NaN, 5, 1, 2, 100, 100};
+        double[] dst = new double[8];
+        TABLE.undistort(src, 0, dst, 2, 3);
+        assertTrue(Double.isNaN(dst[2]));
+        assertEquals(5, dst[3], 0);
+        double[] expected = reference(100, 100);
+        assertEquals(expected[0], dst[6], 0.02);
+        assertEquals(expected[1], dst[7], 0.02);
+        assertEquals(0, dst[0], 0);
+    }
+}